@@ -0,0 +1,102 @@
+package com.juniorproject.orderbook.benchmark;
+
+import com.juniorproject.orderbook.repository.BookType;
+import com.juniorproject.orderbook.repository.OrderBook;
+import com.juniorproject.orderbook.service.CommandHandler;
+import com.juniorproject.orderbook.service.MyWriter;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end benchmark of CommandHandler over synthetic input.
+ * Input is a mix of updates, queries and small market orders around the touch,
+ * result is time per command.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class CommandHandlerBenchmark {
+
+    private static final int COMMANDS = 10_000;
+
+    @Param({"treeset", "array", "offheap", "hybrid"})
+    private String bookType;
+
+    @Param({"10", "1000"})
+    private int depth;
+
+    @Param({"1", "50"})
+    private int spread;
+
+    private CommandHandler commandHandler;
+
+    private String[] commands;
+
+    @Setup
+    public void setUp() {
+        final OrderBook book = BookType.valueOfByAlias(bookType).newBook();
+        OrderBookBenchmark.fill(book, depth, spread);
+        commandHandler = new CommandHandler(book, new MyWriter(Writer.nullWriter()));
+
+        final int bestBid = OrderBookBenchmark.BEST_BID;
+        final int bestAsk = bestBid + spread;
+        final Random random = new Random(42);
+        commands = new String[COMMANDS];
+        for (int i = 0; i < COMMANDS; i++) {
+            final int level = random.nextInt(Math.min(depth, 10));
+            final int kind = random.nextInt(10);
+            if (kind < 5) {
+                commands[i] = random.nextBoolean()
+                        ? "u," + (bestBid - level) + "," + OrderBookBenchmark.LEVEL_SIZE + ",bid"
+                        : "u," + (bestAsk + level) + "," + OrderBookBenchmark.LEVEL_SIZE + ",ask";
+            } else if (kind < 7) {
+                commands[i] = random.nextBoolean() ? "q,best_bid" : "q,best_ask";
+            } else if (kind < 8) {
+                commands[i] = "q,size," + (bestBid - level);
+            } else {
+                commands[i] = (random.nextBoolean() ? "o,buy," : "o,sell,") + (1 + random.nextInt(5));
+            }
+        }
+        // orders must not exhaust the book during measurement
+        for (int i = 0; i < COMMANDS; i += 8) {
+            commands[i] = "u," + bestBid + "," + OrderBookBenchmark.LEVEL_SIZE + ",bid";
+            commands[i + 1] = "u," + bestAsk + "," + OrderBookBenchmark.LEVEL_SIZE + ",ask";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void handleString() {
+        for (final String command : commands) {
+            commandHandler.handle(command);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void handleChars() {
+        for (final String command : commands) {
+            commandHandler.handle(command, 0, command.length());
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.juniorproject.orderbook.benchmark;
+
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.repository.BookType;
+import com.juniorproject.orderbook.repository.OrderBook;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of OrderBook operations.
+ * Book has *depth* levels of {@link #LEVEL_SIZE} shares on each side,
+ * best ask is *spread* ticks above best bid.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+public class OrderBookBenchmark {
+
+    static final int BEST_BID = 100_000;
+
+    static final int LEVEL_SIZE = 100;
+
+    private static final int PRICES = 1024;
+
+    @Param({"treeset", "array", "offheap", "hybrid"})
+    private String bookType;
+
+    @Param({"10", "1000"})
+    private int depth;
+
+    @Param({"1", "50"})
+    private int spread;
+
+    private OrderBook book;
+
+    private int[] prices;
+
+    private int[] sizes;
+
+    private EntryType[] types;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        book = BookType.valueOfByAlias(bookType).newBook();
+        fill(book, depth, spread);
+
+        final Random random = new Random(42);
+        prices = new int[PRICES];
+        sizes = new int[PRICES];
+        types = new EntryType[PRICES];
+        for (int i = 0; i < PRICES; i++) {
+            final int level = random.nextInt(depth);
+            final boolean bid = random.nextBoolean();
+            prices[i] = bid ? BEST_BID - level : BEST_BID + spread + level;
+            sizes[i] = 1 + random.nextInt(LEVEL_SIZE);
+            types[i] = bid ? EntryType.BID : EntryType.ASK;
+        }
+    }
+
+    /**
+     * Puts *depth* levels on both sides of *book*.
+     */
+    static void fill(final OrderBook book, final int depth, final int spread) {
+        for (int level = 0; level < depth; level++) {
+            book.update(new BookEntry(BEST_BID - level, LEVEL_SIZE, EntryType.BID));
+            book.update(new BookEntry(BEST_BID + spread + level, LEVEL_SIZE, EntryType.ASK));
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        final int i = nextIndex();
+        book.update(prices[i], sizes[i], types[i]);
+    }
+
+    @Benchmark
+    public BookEntry bestBid() {
+        return book.bestBid();
+    }
+
+    @Benchmark
+    public BookEntry bestAsk() {
+        return book.bestAsk();
+    }
+
+    @Benchmark
+    public int bestBidPrimitive() {
+        return book.bestBidPrice() + book.bestBidSize();
+    }
+
+    @Benchmark
+    public BookEntry getEntryByPrice() {
+        return book.getEntryByPrice(prices[nextIndex()]);
+    }
+
+    /**
+     * Buys out the best ask level and puts it back, so book stays the same.
+     */
+    @Benchmark
+    public void orderBuy() {
+        final int price = book.bestAskPrice();
+        book.orderBuy(LEVEL_SIZE);
+        book.update(price, LEVEL_SIZE, EntryType.ASK);
+    }
+
+    /**
+     * Sells into the best bid level and puts it back, so book stays the same.
+     */
+    @Benchmark
+    public void orderSell() {
+        final int price = book.bestBidPrice();
+        book.orderSell(LEVEL_SIZE);
+        book.update(price, LEVEL_SIZE, EntryType.BID);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (PRICES - 1);
+        return next;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.juniorproject.orderbook;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.juniorproject.orderbook.service.BinaryCommandCodec;
+import com.juniorproject.orderbook.service.MyWriterException;
+
+/**
+ * Converts text input into fixed-width binary commands read by -Dorderbook.input=binary.
+ * 
+ * Default input file is input.txt
+ * default output file is input.bin
+ * 
+ * They can be overridden by command line arguments, first argument - text input file name (or path),
+ * second command line argument - binary output file name (or path)
+ * 
+ * Empty lines and unknown commands are dropped, so line numbers of binary input
+ * (used by snapshots and journal) count commands, not lines of text input.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public class CommandConverter {
+    private static Logger log = LoggerFactory.getLogger(CommandConverter.class.getName());
+
+    public static void main(String[] args) {
+        String inputFilePath = "input.txt";
+        String outputFilePath = "input.bin";
+
+        if (args.length != 0) {
+            inputFilePath = args[0];
+            if (args.length >= 2) {
+                outputFilePath = args[1];
+            }
+        }
+        log.info("converting {} into {}", inputFilePath, outputFilePath);
+        try {
+            BinaryCommandCodec.convert(Paths.get(inputFilePath), Paths.get(outputFilePath));
+        } catch (IOException e) {
+            log.error("error while converting, looks like input file does not exist", e);
+            throw new MyWriterException("error while converting, looks like input file does not exist", e);
+        }
+    }
+}
@@ -2,16 +2,39 @@ package com.juniorproject.orderbook;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.juniorproject.orderbook.repository.BookTreeSetImpl;
+import com.juniorproject.orderbook.repository.BookLatency;
+import com.juniorproject.orderbook.repository.BookSnapshot;
+import com.juniorproject.orderbook.repository.BookType;
+import com.juniorproject.orderbook.repository.DeltaOrderBook;
+import com.juniorproject.orderbook.repository.LimitOrderBook;
+import com.juniorproject.orderbook.repository.OrderBook;
+import com.juniorproject.orderbook.repository.PublishingOrderBook;
+import com.juniorproject.orderbook.repository.TimedOrderBook;
+import com.juniorproject.orderbook.repository.TopOfBookPublisher;
+import com.juniorproject.orderbook.service.BatchReplay;
+import com.juniorproject.orderbook.service.BinaryCommandCodec;
+import com.juniorproject.orderbook.service.ChannelWriter;
 import com.juniorproject.orderbook.service.CommandHandler;
+import com.juniorproject.orderbook.service.CommandJournal;
+import com.juniorproject.orderbook.service.CommandPipeline;
+import com.juniorproject.orderbook.service.CommandStats;
+import com.juniorproject.orderbook.service.DeltaWriter;
+import com.juniorproject.orderbook.service.FlushPolicy;
+import com.juniorproject.orderbook.service.MappedFileReader;
 import com.juniorproject.orderbook.service.MyWriter;
 import com.juniorproject.orderbook.service.MyWriterException;
+import com.juniorproject.orderbook.service.ShardRouter;
 
 /**
  * Simple implementation of limit order book.
@@ -22,11 +45,100 @@ import com.juniorproject.orderbook.service.MyWriterException;
  * They can be overridden by command line arguments, first argument - input file name (or path),
  * second command line argument - output file name (or path)
  * 
+ * OrderBook implementation is chosen by system property orderbook.book,
+ * treeset (default), array, offheap (ladder kept in direct memory)
+ * or hybrid (dense window around the touch, sparse levels far from it),
+ * orderbook.pruning (none, eager or lazy, default) tells treeset what to do with emptied levels
+ * 
+ * Input reading is chosen by system property orderbook.input,
+ * lines (default) reads file line by line as Strings,
+ * mmap maps ASCII file into memory and parses raw bytes,
+ * pipeline does the same, but decoding, book changes and output writing run on three threads
+ * connected by ring buffers of orderbook.pipeline.ring slots,
+ * binary maps file of fixed-width binary commands made by {@link CommandConverter}
+ * 
+ * Output writing is chosen by system property orderbook.output,
+ * by default output goes through BufferedWriter,
+ * channel formats output into direct buffer and writes it to FileChannel in blocks,
+ * see orderbook.flush (size, commands or end) and orderbook.flush.threshold
+ * 
+ * -Dorderbook.shards=N turns on multi instrument mode, every input line starts with symbol
+ * (AAPL,u,9,1,bid), symbols are spread over N single threaded shards,
+ * output lines are prefixed with symbol
+ * 
+ * -Dorderbook.batch=N replays many independent files on N threads, first argument is then directory
+ * of input files or file listing them, second argument is output directory (default output),
+ * every input gets its own book and output file of the same name, aggregated throughput is printed at the end
+ * 
+ * s,*file* input command writes snapshot of the book,
+ * -Dorderbook.restore=*file* starts from such snapshot and skips input lines it already covers
+ * 
+ * -Dorderbook.journal=*file* appends every command that changes the book to write-ahead journal,
+ * forced to disk every orderbook.journal.batch commands or orderbook.journal.interval milliseconds;
+ * on start commands already in the journal are replayed and input lines they cover are skipped
+ * 
+ * -Dorderbook.delta=*file* writes market data deltas, new sizes of changed levels and changed top of book,
+ * coalesced over every orderbook.delta.batch commands
+ * 
+ * -Dorderbook.publish=true publishes top of book after every change through {@link TopOfBookPublisher},
+ * which other threads read without locks
+ * 
+ * -Dorderbook.quiet=true turns off per command logging, only aggregated counters are logged,
+ * every orderbook.stats.interval commands at DEBUG and at the end at INFO
+ * 
+ * -Dorderbook.latency=true records latency histograms of every command type and every OrderBook method,
+ * logged with the counters
+ * 
  * @author Slava Shishkanu
  *
  */
 public class OrderBookMain {
     private static Logger log = LoggerFactory.getLogger(OrderBookMain.class.getName());
+
+    private static final String BOOK_PROPERTY = "orderbook.book";
+
+    private static final String INPUT_PROPERTY = "orderbook.input";
+
+    private static final String OUTPUT_PROPERTY = "orderbook.output";
+
+    private static final String FLUSH_PROPERTY = "orderbook.flush";
+
+    private static final String FLUSH_THRESHOLD_PROPERTY = "orderbook.flush.threshold";
+
+    private static final int DEFAULT_FLUSH_THRESHOLD = 1 << 16;
+
+    private static final String SHARDS_PROPERTY = "orderbook.shards";
+
+    private static final String RING_SIZE_PROPERTY = "orderbook.pipeline.ring";
+
+    private static final int DEFAULT_RING_SIZE = 1 << 16;
+
+    private static final String RESTORE_PROPERTY = "orderbook.restore";
+
+    private static final String BATCH_PROPERTY = "orderbook.batch";
+
+    private static final String JOURNAL_PROPERTY = "orderbook.journal";
+
+    private static final String JOURNAL_BATCH_PROPERTY = "orderbook.journal.batch";
+
+    private static final int DEFAULT_JOURNAL_BATCH = 4096;
+
+    private static final String JOURNAL_INTERVAL_PROPERTY = "orderbook.journal.interval";
+
+    private static final String JOURNAL_SEGMENT_PROPERTY = "orderbook.journal.segment";
+
+    private static final long DEFAULT_JOURNAL_SEGMENT = 64L << 20;
+
+    private static final String DELTA_PROPERTY = "orderbook.delta";
+
+    private static final String DELTA_BATCH_PROPERTY = "orderbook.delta.batch";
+
+    private static final int DEFAULT_DELTA_BATCH = 1024;
+
+    private static final String PUBLISH_PROPERTY = "orderbook.publish";
+
+    private static final BookLatency BOOK_LATENCY = Boolean.getBoolean(CommandStats.LATENCY_PROPERTY)
+            ? new BookLatency() : null;
     
     public static void main(String[] args) {
         String inputFilePath = "input.txt";
@@ -40,17 +152,168 @@ public class OrderBookMain {
         }
         log.info("input file is {}", inputFilePath);
         log.info("output file is {}", outputFilePath);
+        final BookType bookType = BookType.valueOfByAlias(System.getProperty(BOOK_PROPERTY, "treeset"));
+        log.info("order book is {}", bookType);
+        final String inputMode = System.getProperty(INPUT_PROPERTY, "lines");
+        log.info("input mode is {}", inputMode);
         
-        final CommandHandler commandHandler;
-        try (Stream<String> stream = Files.lines(Paths.get(inputFilePath));
-                BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputFilePath),
-                        StandardCharsets.UTF_8)) {
-            final MyWriter myWriter = new MyWriter(writer);
-            commandHandler = new CommandHandler(BookTreeSetImpl.getInstance(), myWriter);
-            stream.forEach(commandHandler::handle);
+        final Path inputFile = Paths.get(inputFilePath);
+        final Path outputFile = Paths.get(outputFilePath);
+        final int shards = Integer.getInteger(SHARDS_PROPERTY, 0);
+        final int batchThreads = Integer.getInteger(BATCH_PROPERTY, 0);
+        try {
+            if (batchThreads > 0) {
+                replayBatch(bookType, inputMode, batchThreads, inputFile,
+                        args.length >= 2 ? outputFile : Paths.get("output"));
+            } else if (shards > 0) {
+                try (BufferedWriter writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+                    readSharded(inputFile, new ShardRouter(shards, bookType, writer));
+                }
+            } else if ("channel".equals(System.getProperty(OUTPUT_PROPERTY))) {
+                try (BufferedWriter deltaWriter = openDeltaWriter();
+                        ChannelWriter channelWriter = openChannelWriter(outputFile)) {
+                    run(inputMode, inputFile, newCommandHandler(bookType, channelWriter, deltaWriter));
+                }
+            } else {
+                try (BufferedWriter deltaWriter = openDeltaWriter();
+                        BufferedWriter writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+                    final MyWriter myWriter = new MyWriter(writer);
+                    run(inputMode, inputFile, newCommandHandler(bookType, myWriter, deltaWriter));
+                }
+            }
         } catch (IOException e) {
             log.error("error while reading, looks like input file does not exist", e);
             throw new MyWriterException("error while reading, looks like input file does not exist", e);
         }
     }
+
+    /**
+     * Creates handler of new book, restores the book from snapshot if orderbook.restore is set.
+     * Decorators sit below {@link LimitOrderBook}, so they see level changes made by resting orders too.
+     * @param deltaWriter - where market data deltas go, null if they are not written
+     */
+    private static CommandHandler newCommandHandler(final BookType bookType, final MyWriter myWriter,
+            final BufferedWriter deltaWriter) throws IOException {
+        final OrderBook baseBook = bookType.newBaseBook();
+        OrderBook decorated = BOOK_LATENCY == null ? baseBook : new TimedOrderBook(baseBook, BOOK_LATENCY);
+        DeltaOrderBook deltaBook = null;
+        if (deltaWriter != null) {
+            deltaBook = new DeltaOrderBook(decorated, new DeltaWriter(deltaWriter));
+            decorated = deltaBook;
+        }
+        PublishingOrderBook publishingBook = null;
+        if (Boolean.getBoolean(PUBLISH_PROPERTY)) {
+            publishingBook = new PublishingOrderBook(decorated, new TopOfBookPublisher());
+            decorated = publishingBook;
+            log.info("top of book is published for reader threads");
+        }
+        final OrderBook book = new LimitOrderBook(decorated);
+        final CommandHandler commandHandler = new CommandHandler(book, myWriter);
+        if (deltaBook != null) {
+            commandHandler.setDeltas(deltaBook, Integer.getInteger(DELTA_BATCH_PROPERTY, DEFAULT_DELTA_BATCH));
+        }
+        if (publishingBook != null) {
+            commandHandler.setPublisher(publishingBook.getPublisher());
+        }
+        final String snapshot = System.getProperty(RESTORE_PROPERTY);
+        if (snapshot != null) {
+            commandHandler.setLine(BookSnapshot.restore(Paths.get(snapshot), book));
+        }
+        return commandHandler;
+    }
+
+    /**
+     * Reads input, journaling commands if orderbook.journal is set.
+     */
+    private static void run(final String inputMode, final Path inputFile, final CommandHandler commandHandler)
+            throws IOException {
+        try (CommandJournal journal = openJournal(commandHandler)) {
+            commandHandler.setJournal(journal);
+            read(inputMode, inputFile, commandHandler);
+        }
+    }
+
+    /**
+     * Replays existing journal into the book of *commandHandler* and opens it for appending.
+     * @return journal, null if orderbook.journal is not set
+     */
+    private static CommandJournal openJournal(final CommandHandler commandHandler) throws IOException {
+        final String journalFile = System.getProperty(JOURNAL_PROPERTY);
+        if (journalFile == null) {
+            return null;
+        }
+        final Path journalPath = Paths.get(journalFile);
+        CommandJournal.replay(journalPath, commandHandler);
+        final int batch = Integer.getInteger(JOURNAL_BATCH_PROPERTY, DEFAULT_JOURNAL_BATCH);
+        final long interval = TimeUnit.MILLISECONDS.toNanos(Long.getLong(JOURNAL_INTERVAL_PROPERTY, 0L));
+        final long segment = Long.getLong(JOURNAL_SEGMENT_PROPERTY, DEFAULT_JOURNAL_SEGMENT);
+        return new CommandJournal(journalPath, segment, batch, interval);
+    }
+
+    private static void read(final String inputMode, final Path inputFile, final CommandHandler commandHandler)
+            throws IOException {
+        if ("mmap".equals(inputMode)) {
+            new MappedFileReader().read(inputFile, commandHandler::handle, commandHandler.getLine());
+        } else if ("binary".equals(inputMode)) {
+            new MappedFileReader().readRecords(inputFile, BinaryCommandCodec.RECORD_BYTES, commandHandler::handleBinary,
+                    commandHandler.getLine());
+        } else if ("pipeline".equals(inputMode)) {
+            final int ringSize = Integer.getInteger(RING_SIZE_PROPERTY, DEFAULT_RING_SIZE);
+            new CommandPipeline(commandHandler, new MappedFileReader(), ringSize).run(inputFile);
+        } else {
+            readLines(inputFile, commandHandler);
+        }
+        commandHandler.flushDeltas();
+        commandHandler.getStats().report();
+        if (commandHandler.getPublisher() != null) {
+            log.info("last published top of book {}", commandHandler.getPublisher().read());
+        }
+        if (BOOK_LATENCY != null) {
+            BOOK_LATENCY.report();
+        }
+    }
+
+    private static void replayBatch(final BookType bookType, final String inputMode, final int threads,
+            final Path source, final Path outputDirectory) throws IOException {
+        final List<Path> inputs = BatchReplay.listInputs(source);
+        log.info("{} files are replayed on {} threads into {}", inputs.size(), threads, outputDirectory);
+        final BatchReplay.Report report = new BatchReplay(bookType, inputMode, threads).run(inputs, outputDirectory);
+        System.out.println(report);
+    }
+
+    private static void readSharded(final Path inputFile, final ShardRouter router) throws IOException {
+        log.info("commands are routed to shards by symbol");
+        try (Stream<String> stream = Files.lines(inputFile)) {
+            stream.forEach(router::route);
+        } finally {
+            router.close();
+        }
+    }
+
+    /**
+     * @return writer of orderbook.delta file, null if it is not set
+     */
+    private static BufferedWriter openDeltaWriter() throws IOException {
+        final String deltaFile = System.getProperty(DELTA_PROPERTY);
+        if (deltaFile == null) {
+            return null;
+        }
+        log.info("market data deltas are written to {}", deltaFile);
+        return Files.newBufferedWriter(Paths.get(deltaFile), StandardCharsets.UTF_8);
+    }
+
+    private static ChannelWriter openChannelWriter(final Path outputFile) throws IOException {
+        final FlushPolicy flushPolicy = FlushPolicy.valueOfByAlias(System.getProperty(FLUSH_PROPERTY, "end"));
+        final int threshold = Integer.getInteger(FLUSH_THRESHOLD_PROPERTY, DEFAULT_FLUSH_THRESHOLD);
+        log.info("output is written through channel, flush policy {}, threshold {}", flushPolicy, threshold);
+        final FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new ChannelWriter(channel, flushPolicy, threshold);
+    }
+
+    private static void readLines(final Path inputFile, final CommandHandler commandHandler) throws IOException {
+        try (Stream<String> stream = Files.lines(inputFile)) {
+            stream.skip(commandHandler.getLine()).forEach(line -> commandHandler.handle(line, 0, line.length()));
+        }
+    }
 }
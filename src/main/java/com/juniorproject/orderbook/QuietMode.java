@@ -0,0 +1,21 @@
+package com.juniorproject.orderbook;
+
+/**
+ * Startup switch for per command logging.
+ *
+ * When JVM is started with -Dorderbook.quiet=true, hot path code skips its per command
+ * log statements and only aggregated counters are kept, see
+ * {@link com.juniorproject.orderbook.service.CommandStats CommandStats}.
+ * Flag is a compile time constant for JIT, so guarded statements are removed from compiled code.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class QuietMode {
+
+    public static final boolean ENABLED = Boolean.getBoolean("orderbook.quiet");
+
+    private QuietMode() {
+    }
+
+}
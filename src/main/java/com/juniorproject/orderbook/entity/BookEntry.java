@@ -1,8 +1,16 @@
 package com.juniorproject.orderbook.entity;
 
+/**
+ * Price level of the book.
+ * Entries are mutable so books can reuse them as pooled levels and as flyweight query results,
+ * price of an entry must not be changed while it is kept in a sorted collection.
+ *
+ * @author Slava Shishkanu
+ *
+ */
 public class BookEntry {
 
-    private final int price;
+    private int price;
 
     private int size;
 
@@ -22,6 +30,21 @@ public class BookEntry {
         return price;
     }
 
+    public void setPrice(int price) {
+        this.price = price;
+    }
+
+    /**
+     * Sets all fields at once.
+     * @return this entry
+     */
+    public BookEntry set(int price, int size, EntryType type) {
+        this.price = price;
+        this.size = size;
+        this.type = type;
+        return this;
+    }
+
     public int getSize() {
         return size;
     }
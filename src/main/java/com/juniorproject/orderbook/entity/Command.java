@@ -0,0 +1,228 @@
+package com.juniorproject.orderbook.entity;
+
+/**
+ * Mutable parsed command.
+ * One instance is reused for all input lines, so parsing does not allocate.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public class Command {
+
+    private CommandType type;
+
+    private EntryType entryType;
+
+    private int price;
+
+    private int size;
+
+    /** id of limit order for LIMIT, CANCEL and MODIFY commands. */
+    private long orderId;
+
+    /** side of LIMIT order. */
+    private OrderType orderType;
+
+    /** null for plain market order that fails when it can not be filled. */
+    private ExecutionMode executionMode;
+
+    private FillStatus fillStatus;
+
+    private int resultPrice;
+
+    private int resultSize;
+
+    /** result of CUMULATIVE_SIZE query, may not fit into int. */
+    private long resultTotal;
+
+    /** result of DEPTH query: price, size pairs of bid levels followed by ask levels. */
+    private int[] depth = new int[0];
+
+    private int bidLevels;
+
+    private int askLevels;
+
+    /** file of SNAPSHOT command. */
+    private String path;
+
+    /** number of input line command was read from, counted from 1. */
+    private long line;
+
+    /** System.nanoTime() when command was read, used to measure latency. */
+    private long timestamp;
+
+    public CommandType getType() {
+        return type;
+    }
+
+    public void setType(CommandType type) {
+        this.type = type;
+    }
+
+    public EntryType getEntryType() {
+        return entryType;
+    }
+
+    public void setEntryType(EntryType entryType) {
+        this.entryType = entryType;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public void setPrice(int price) {
+        this.price = price;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(long orderId) {
+        this.orderId = orderId;
+    }
+
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    public void setOrderType(OrderType orderType) {
+        this.orderType = orderType;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public FillStatus getFillStatus() {
+        return fillStatus;
+    }
+
+    public void setFillStatus(FillStatus fillStatus) {
+        this.fillStatus = fillStatus;
+    }
+
+    public int getResultPrice() {
+        return resultPrice;
+    }
+
+    public void setResultPrice(int resultPrice) {
+        this.resultPrice = resultPrice;
+    }
+
+    public int getResultSize() {
+        return resultSize;
+    }
+
+    public void setResultSize(int resultSize) {
+        this.resultSize = resultSize;
+    }
+
+    public long getResultTotal() {
+        return resultTotal;
+    }
+
+    public void setResultTotal(long resultTotal) {
+        this.resultTotal = resultTotal;
+    }
+
+    public int[] getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns depth buffer big enough for *levels* levels of both sides,
+     * buffer is reused and grows only when more levels are requested than before.
+     */
+    public int[] depthBuffer(int levels) {
+        if (depth.length < 4 * levels) {
+            depth = new int[4 * levels];
+        }
+        return depth;
+    }
+
+    public int getBidLevels() {
+        return bidLevels;
+    }
+
+    public void setBidLevels(int bidLevels) {
+        this.bidLevels = bidLevels;
+    }
+
+    public int getAskLevels() {
+        return askLevels;
+    }
+
+    public void setAskLevels(int askLevels) {
+        this.askLevels = askLevels;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Copies all fields of *other* command into this one.
+     */
+    public void copyFrom(Command other) {
+        type = other.type;
+        entryType = other.entryType;
+        price = other.price;
+        size = other.size;
+        orderId = other.orderId;
+        orderType = other.orderType;
+        executionMode = other.executionMode;
+        fillStatus = other.fillStatus;
+        resultPrice = other.resultPrice;
+        resultSize = other.resultSize;
+        resultTotal = other.resultTotal;
+        bidLevels = other.bidLevels;
+        askLevels = other.askLevels;
+        if (type == CommandType.DEPTH) {
+            System.arraycopy(other.depth, 0, depthBuffer(size), 0, 2 * (bidLevels + askLevels));
+        }
+        path = other.path;
+        line = other.line;
+        timestamp = other.timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Command [type=" + type + ", entryType=" + entryType + ", price=" + price + ", size=" + size
+                + ", orderId=" + orderId + ", orderType=" + orderType + ", executionMode=" + executionMode + "]";
+    }
+
+}
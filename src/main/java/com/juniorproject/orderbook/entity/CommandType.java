@@ -0,0 +1,23 @@
+package com.juniorproject.orderbook.entity;
+
+/**
+ * Commands that can be parsed out of input.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public enum CommandType {
+    UPDATE,
+    BEST_BID,
+    BEST_ASK,
+    SIZE,
+    DEPTH,
+    CUMULATIVE_SIZE,
+    SWEEP_PRICE,
+    BUY,
+    SELL,
+    LIMIT,
+    CANCEL,
+    MODIFY,
+    SNAPSHOT
+}
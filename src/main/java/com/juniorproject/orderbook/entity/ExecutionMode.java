@@ -0,0 +1,42 @@
+package com.juniorproject.orderbook.entity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How market order treats the part that can not be filled.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public enum ExecutionMode {
+
+    /** whole order is filled or nothing is touched. */
+    FILL_OR_KILL("fok"),
+    /** fills whatever is available, the rest is cancelled. */
+    IMMEDIATE_OR_CANCEL("ioc");
+
+    private String alias;
+
+    private static final Map<String, ExecutionMode> aliasMap = new HashMap<>();
+
+    static {
+        for (ExecutionMode executionMode : ExecutionMode.values()) {
+            aliasMap.put(executionMode.alias, executionMode);
+        }
+    }
+
+    private ExecutionMode(String alias) {
+        this.alias = alias;
+    }
+
+    public static ExecutionMode valueOfByAlias(String alias) {
+        ExecutionMode executionMode = aliasMap.get(alias);
+        if (executionMode == null) {
+            throw new IllegalArgumentException(
+                    "No enum alias " + ExecutionMode.class.getCanonicalName() + "." + alias);
+        }
+        return executionMode;
+    }
+
+}
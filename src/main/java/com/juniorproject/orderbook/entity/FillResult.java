@@ -0,0 +1,116 @@
+package com.juniorproject.orderbook.entity;
+
+import java.util.Arrays;
+
+/**
+ * Mutable result of sweeping one side of the book with a market order:
+ * how much was filled, over how many levels and at what average price,
+ * and price and quantity taken from every touched level, best level first.
+ * One instance can be reused for all orders, see {@link #reset(int)},
+ * level arrays only grow when an order touches more levels than any order before.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public class FillResult {
+
+    private static final int INITIAL_LEVELS = 16;
+
+    private int requested;
+
+    private int filled;
+
+    private int levelsTouched;
+
+    /** sum of price * quantity over touched levels. */
+    private long notional;
+
+    private int[] levelPrices = new int[INITIAL_LEVELS];
+
+    private int[] levelQuantities = new int[INITIAL_LEVELS];
+
+    /**
+     * Clears result before next order.
+     * @param requested - size of the order
+     */
+    public FillResult reset(int requested) {
+        this.requested = requested;
+        this.filled = 0;
+        this.levelsTouched = 0;
+        this.notional = 0;
+        return this;
+    }
+
+    /**
+     * Records execution of *quantity* shares at *price* level.
+     */
+    public void addLevel(int price, int quantity) {
+        if (levelsTouched == levelPrices.length) {
+            levelPrices = Arrays.copyOf(levelPrices, 2 * levelsTouched);
+            levelQuantities = Arrays.copyOf(levelQuantities, 2 * levelsTouched);
+        }
+        levelPrices[levelsTouched] = price;
+        levelQuantities[levelsTouched] = quantity;
+        filled += quantity;
+        levelsTouched++;
+        notional += (long) price * quantity;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getFilled() {
+        return filled;
+    }
+
+    /**
+     * @return shares left unfilled because the side ran out of levels
+     */
+    public int getRemaining() {
+        return requested - filled;
+    }
+
+    public int getLevelsTouched() {
+        return levelsTouched;
+    }
+
+    /**
+     * @return price of *level*-th touched level, from 0 to {@link #getLevelsTouched()} exclusive
+     */
+    public int getLevelPrice(int level) {
+        return levelPrices[level];
+    }
+
+    /**
+     * @return shares taken from *level*-th touched level, from 0 to {@link #getLevelsTouched()} exclusive
+     */
+    public int getLevelQuantity(int level) {
+        return levelQuantities[level];
+    }
+
+    public long getNotional() {
+        return notional;
+    }
+
+    /**
+     * @return volume weighted average price of filled shares, zero if nothing was filled
+     */
+    public double getAveragePrice() {
+        return filled == 0 ? 0 : (double) notional / filled;
+    }
+
+    /**
+     * @return true if whole requested size was filled
+     */
+    public boolean isComplete() {
+        return filled == requested;
+    }
+
+    @Override
+    public String toString() {
+        return "FillResult [requested=" + requested + ", filled=" + filled + ", levelsTouched=" + levelsTouched
+                + ", averagePrice=" + getAveragePrice() + "]";
+    }
+
+}
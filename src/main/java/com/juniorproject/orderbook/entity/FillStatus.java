@@ -0,0 +1,16 @@
+package com.juniorproject.orderbook.entity;
+
+/**
+ * Outcome of market order with {@link ExecutionMode}.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public enum FillStatus {
+    /** whole order was filled. */
+    FILLED,
+    /** part of order was filled, the rest was cancelled. */
+    PARTIALLY_FILLED,
+    /** nothing was filled, book is untouched. */
+    KILLED
+}
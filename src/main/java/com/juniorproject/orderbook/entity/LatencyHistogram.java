@@ -0,0 +1,127 @@
+package com.juniorproject.orderbook.entity;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, in the spirit of HdrHistogram.
+ *
+ * Values below {@link #SUB_BUCKETS} get a bucket each, every following power of two is split into
+ * {@link #SUB_BUCKETS} / 2 equal buckets, so recorded value is kept with about 3% precision
+ * up to {@link #HIGHEST_TRACKABLE} nanoseconds, bigger values fall into the last bucket.
+ * Maximum is kept exactly.
+ *
+ * {@link #record(long)} does not allocate or lock and must be called from one thread only,
+ * counters are published with lazy sets, so percentiles can be read from any thread at any time.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class LatencyHistogram {
+
+    public static final int SUB_BUCKETS = 64;
+
+    /** about 18 minutes. */
+    public static final long HIGHEST_TRACKABLE = 1L << 40;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketOf(HIGHEST_TRACKABLE) + 1);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency, negative values are recorded as zero.
+     */
+    public void record(final long nanos) {
+        final long value = nanos < 0 ? 0 : nanos;
+        final int bucket = value >= HIGHEST_TRACKABLE ? counts.length() - 1 : bucketOf(value);
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        count.lazySet(count.get() + 1);
+        if (value > max.get()) {
+            max.lazySet(value);
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile - from 0 to 100
+     * @return highest value equivalent to the one *percentile* percents of recorded values are below or equal to,
+     * never above maximum, zero if nothing is recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+        final int last = counts.length() - 1;
+        for (int i = 0; i < last; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        // last bucket is open ended
+        return max.get();
+    }
+
+    /**
+     * Forgets recorded values, must not run together with {@link #record(long)}.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @return bucket of value below {@link #HIGHEST_TRACKABLE}
+     */
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    /**
+     * @return highest value that falls into *bucket*
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / HALF - 1;
+        final long lowest = (long) (bucket - shift * HALF) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder("count=").append(getCount());
+        for (double percentile : REPORTED_PERCENTILES) {
+            result.append(", p").append(percentile % 1 == 0 ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile)).append('=').append(getValueAtPercentile(percentile));
+        }
+        return result.append(", max=").append(getMax()).append(" ns").toString();
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.juniorproject.orderbook.entity;
+
+/**
+ * Immutable snapshot of best bid and best ask.
+ * Price and size are zero when side is empty.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public final class TopOfBook {
+
+    private final int bidPrice;
+
+    private final int bidSize;
+
+    private final int askPrice;
+
+    private final int askSize;
+
+    private final long sequence;
+
+    /**
+     * @param sequence - number of snapshot, grows with every published change
+     */
+    public TopOfBook(int bidPrice, int bidSize, int askPrice, int askSize, long sequence) {
+        this.bidPrice = bidPrice;
+        this.bidSize = bidSize;
+        this.askPrice = askPrice;
+        this.askSize = askSize;
+        this.sequence = sequence;
+    }
+
+    public int getBidPrice() {
+        return bidPrice;
+    }
+
+    public int getBidSize() {
+        return bidSize;
+    }
+
+    public int getAskPrice() {
+        return askPrice;
+    }
+
+    public int getAskSize() {
+        return askSize;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "TopOfBook [bid=" + bidPrice + "x" + bidSize + ", ask=" + askPrice + "x" + askSize
+                + ", sequence=" + sequence + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + bidPrice;
+        result = prime * result + bidSize;
+        result = prime * result + askPrice;
+        result = prime * result + askSize;
+        result = prime * result + Long.hashCode(sequence);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        TopOfBook other = (TopOfBook) obj;
+        if (bidPrice != other.bidPrice)
+            return false;
+        if (bidSize != other.bidSize)
+            return false;
+        if (askPrice != other.askPrice)
+            return false;
+        if (askSize != other.askSize)
+            return false;
+        if (sequence != other.sequence)
+            return false;
+        return true;
+    }
+
+}
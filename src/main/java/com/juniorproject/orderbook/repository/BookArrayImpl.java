@@ -0,0 +1,141 @@
+package com.juniorproject.orderbook.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Price ladder implementation of limit order book.
+ *
+ * Sizes are kept in two primitive arrays (bids and asks) indexed by price offset,
+ * best bid and best ask are cached by {@link LadderOrderBook}, so top of book queries are O(1).
+ * Entries returned by queries are reusable views, overwritten by the next query of the same kind.
+ * Ladder grows when a price outside of current range arrives.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class BookArrayImpl extends LadderOrderBook {
+
+    private static Logger log = LoggerFactory.getLogger(BookArrayImpl.class.getName());
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private final int initialCapacity;
+
+    /** price of the level stored at index 0. */
+    private int base;
+
+    private int[] bids;
+
+    private int[] asks;
+
+    public BookArrayImpl() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity - number of price levels allocated on first update
+     */
+    public BookArrayImpl(final int initialCapacity) {
+        if (initialCapacity <= 0 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("initial capacity out of range: " + initialCapacity);
+        }
+        this.initialCapacity = initialCapacity;
+    }
+
+    @Override
+    protected int bidAt(final int price) {
+        return inRange(price) ? bids[price - base] : 0;
+    }
+
+    @Override
+    protected int askAt(final int price) {
+        return inRange(price) ? asks[price - base] : 0;
+    }
+
+    @Override
+    protected void putBid(final int price, final int size) {
+        final int index = ensureIndex(price);
+        bids[index] = size;
+    }
+
+    @Override
+    protected void putAsk(final int price, final int size) {
+        final int index = ensureIndex(price);
+        asks[index] = size;
+    }
+
+    @Override
+    protected long nextBidBelow(final long price) {
+        if (bids == null) {
+            return NONE;
+        }
+        for (long index = Math.min(price - 1 - base, bids.length - 1); index >= 0; index--) {
+            if (bids[(int) index] != 0) {
+                return base + index;
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    protected long nextAskAbove(final long price) {
+        if (asks == null) {
+            return NONE;
+        }
+        for (long index = Math.max(price + 1 - base, 0); index < asks.length; index++) {
+            if (asks[(int) index] != 0) {
+                return base + index;
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    protected void clearLevels() {
+        bids = null;
+        asks = null;
+    }
+
+    private boolean inRange(final int price) {
+        if (bids == null) {
+            return false;
+        }
+        final long index = (long) price - base;
+        return index >= 0 && index < bids.length;
+    }
+
+    /**
+     * Returns array index of *price*, grows the ladder if price is outside of it.
+     */
+    private int ensureIndex(final int price) {
+        if (bids == null) {
+            base = (int) Math.max(Integer.MIN_VALUE, (long) price - initialCapacity / 2);
+            bids = new int[initialCapacity];
+            asks = new int[initialCapacity];
+        } else if (!inRange(price)) {
+            grow(price);
+        }
+        return price - base;
+    }
+
+    private void grow(final int price) {
+        final long low = Math.min(base, price);
+        final long high = Math.max((long) base + bids.length - 1, price);
+        final int capacity = grownCapacity(bids.length, high - low + 1, MAX_CAPACITY, price);
+        final int newBase = centeredBase(low, high, capacity);
+        final int shift = base - newBase;
+        log.debug("growing ladder to {} levels, new base price {}", capacity, newBase);
+
+        final int[] newBids = new int[capacity];
+        final int[] newAsks = new int[capacity];
+        System.arraycopy(bids, 0, newBids, shift, bids.length);
+        System.arraycopy(asks, 0, newAsks, shift, asks.length);
+        bids = newBids;
+        asks = newAsks;
+        base = newBase;
+    }
+
+}
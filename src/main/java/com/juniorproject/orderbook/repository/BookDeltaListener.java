@@ -0,0 +1,18 @@
+package com.juniorproject.orderbook.repository;
+
+/**
+ * Receives batches of book changes from {@link DeltaOrderBook}.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+@FunctionalInterface
+public interface BookDeltaListener {
+
+    /**
+     * Called from the thread that changes the book, once per batch that changed something.
+     * @param deltas - changed levels and top of book, reused for the next batch, must not be kept
+     */
+    void onDeltas(BookDeltas deltas);
+
+}
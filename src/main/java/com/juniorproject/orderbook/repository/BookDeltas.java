@@ -0,0 +1,185 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.EntryType;
+import java.util.Arrays;
+
+/**
+ * Preallocated batch of book changes collected by {@link DeltaOrderBook}.
+ *
+ * Holds one entry per changed level, side, price and size the level has at the end of the batch,
+ * in order levels were first changed, so many changes of one level within a batch cost one entry.
+ * Top of book is attached if it differs from top of book of previous batch.
+ *
+ * Arrays grow when a batch touches more levels than ever before, otherwise collecting does not allocate.
+ * Passed to {@link BookDeltaListener} and reused for the next batch, listener must not keep it.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class BookDeltas {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private EntryType[] sides = new EntryType[INITIAL_CAPACITY];
+
+    private int[] prices = new int[INITIAL_CAPACITY];
+
+    private int[] sizes = new int[INITIAL_CAPACITY];
+
+    private int count;
+
+    /** open addressing index of (side, price) keys into entries, twice as big as entry arrays. */
+    private long[] keys = newKeys(2 * INITIAL_CAPACITY);
+
+    private int[] slots = new int[2 * INITIAL_CAPACITY];
+
+    private boolean topOfBookChanged;
+
+    private int bidPrice;
+
+    private int bidSize;
+
+    private int askPrice;
+
+    private int askSize;
+
+    /**
+     * @return number of changed levels
+     */
+    public int size() {
+        return count;
+    }
+
+    public EntryType getSide(final int index) {
+        return sides[index];
+    }
+
+    public int getPrice(final int index) {
+        return prices[index];
+    }
+
+    /**
+     * @return size of level at the end of the batch, zero if level was removed
+     */
+    public int getSize(final int index) {
+        return sizes[index];
+    }
+
+    public boolean isTopOfBookChanged() {
+        return topOfBookChanged;
+    }
+
+    public int getBidPrice() {
+        return bidPrice;
+    }
+
+    public int getBidSize() {
+        return bidSize;
+    }
+
+    public int getAskPrice() {
+        return askPrice;
+    }
+
+    public int getAskSize() {
+        return askSize;
+    }
+
+    /**
+     * @return true if there is nothing to deliver
+     */
+    public boolean isEmpty() {
+        return count == 0 && !topOfBookChanged;
+    }
+
+    /**
+     * Sets size of level, replaces size set earlier in the same batch.
+     */
+    void level(final EntryType side, final int price, final int size) {
+        final long key = key(side, price);
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                sizes[slots[slot]] = size;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (count == sides.length) {
+            grow();
+            level(side, price, size);
+            return;
+        }
+        keys[slot] = key;
+        slots[slot] = count;
+        sides[count] = side;
+        prices[count] = price;
+        sizes[count] = size;
+        count++;
+    }
+
+    /**
+     * Attaches top of book if it has changed since last batch.
+     */
+    void topOfBook(final int newBidPrice, final int newBidSize, final int newAskPrice, final int newAskSize) {
+        topOfBookChanged = newBidPrice != bidPrice || newBidSize != bidSize || newAskPrice != askPrice
+                || newAskSize != askSize;
+        bidPrice = newBidPrice;
+        bidSize = newBidSize;
+        askPrice = newAskPrice;
+        askSize = newAskSize;
+    }
+
+    /**
+     * Forgets changed levels, top of book is kept to compare with the next batch.
+     */
+    void clear() {
+        final int mask = keys.length - 1;
+        for (int i = 0; i < count; i++) {
+            // every key of the batch is removed, so probe chains need no repair
+            int slot = hash(key(sides[i], prices[i])) & mask;
+            while (keys[slot] != EMPTY) {
+                keys[slot] = EMPTY;
+                slot = (slot + 1) & mask;
+            }
+        }
+        count = 0;
+        topOfBookChanged = false;
+    }
+
+    private void grow() {
+        final int capacity = sides.length * 2;
+        final EntryType[] oldSides = sides;
+        final int[] oldPrices = prices;
+        final int[] oldSizes = sizes;
+        final int oldCount = count;
+        sides = new EntryType[capacity];
+        prices = new int[capacity];
+        sizes = new int[capacity];
+        keys = newKeys(2 * capacity);
+        slots = new int[2 * capacity];
+        count = 0;
+        for (int i = 0; i < oldCount; i++) {
+            level(oldSides[i], oldPrices[i], oldSizes[i]);
+        }
+    }
+
+    private static long key(final EntryType side, final int price) {
+        return (long) side.ordinal() << 32 | (price & 0xFFFFFFFFL);
+    }
+
+    private static int hash(final long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ mixed >>> 32);
+    }
+
+    private static long[] newKeys(final int length) {
+        final long[] result = new long[length];
+        Arrays.fill(result, EMPTY);
+        return result;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+
+/**
+ * Free list of BookEntry objects for {@link BookTreeSetImpl}.
+ * Levels removed from the book are released here and reused for new levels,
+ * so book does not allocate entries once the pool holds as many levels as the book ever had.
+ * Pool can be filled up front with system property orderbook.pool.size, empty by default.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+final class BookEntryPool {
+
+    public static final String PROPERTY = "orderbook.pool.size";
+
+    private static final int MIN_CAPACITY = 16;
+
+    private BookEntry[] free;
+
+    private int available;
+
+    /**
+     * @param preallocated - number of entries created right away
+     */
+    BookEntryPool(final int preallocated) {
+        if (preallocated < 0) {
+            throw new IllegalArgumentException("pool size must not be negative: " + preallocated);
+        }
+        free = new BookEntry[Math.max(preallocated, MIN_CAPACITY)];
+        while (available < preallocated) {
+            free[available++] = new BookEntry(0);
+        }
+    }
+
+    /**
+     * @return pool filled with number of entries set by system property orderbook.pool.size
+     */
+    static BookEntryPool configured() {
+        return new BookEntryPool(Integer.getInteger(PROPERTY, 0));
+    }
+
+    /**
+     * @return pooled entry with given fields, new one if pool is empty
+     */
+    BookEntry acquire(final int price, final int size, final EntryType type) {
+        if (available == 0) {
+            return new BookEntry(price, size, type);
+        }
+        final BookEntry entry = free[--available];
+        free[available] = null;
+        return entry.set(price, size, type);
+    }
+
+    /**
+     * Takes back entry that is not used by the book any more.
+     */
+    void release(final BookEntry entry) {
+        if (available == free.length) {
+            final BookEntry[] grown = new BookEntry[2 * free.length];
+            System.arraycopy(free, 0, grown, 0, available);
+            free = grown;
+        }
+        free[available++] = entry;
+    }
+
+    /**
+     * @return number of entries ready to be reused
+     */
+    int getAvailable() {
+        return available;
+    }
+
+}
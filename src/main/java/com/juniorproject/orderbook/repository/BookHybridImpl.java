@@ -0,0 +1,255 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hybrid implementation of limit order book for unbounded price ranges.
+ *
+ * Levels near the touch are kept in a dense window of bid and ask arrays like in {@link BookArrayImpl},
+ * levels outside of the window in {@link SparseLevels}, one per side, so a few outlier quotes far from the market
+ * cost a few ints instead of a ladder stretched up to them.
+ * Window keeps its size and follows the market: when the middle of best bid and best ask
+ * (or the only best price) leaves the middle half of the window, window is re-centered on it,
+ * levels it leaves are moved into sparse levels and sparse levels it covers are moved into the window.
+ * When the spread is half of the window or wider, its middle is empty prices, so the window stays
+ * while one of the touches is in it and otherwise is centered on the touch that has just moved,
+ * or on the one with more shares if both have, so at least one touch is always dense.
+ * Memory is bounded by window size plus number of far levels, nothing is allocated
+ * unless sparse levels outgrow their arrays.
+ * Best prices are cached by {@link LadderOrderBook}, entries returned by queries are reusable views.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class BookHybridImpl extends LadderOrderBook {
+
+    private static Logger log = LoggerFactory.getLogger(BookHybridImpl.class.getName());
+
+    private static final int DEFAULT_WINDOW = 1024;
+
+    private static final int MIN_WINDOW = 4;
+
+    private static final int MAX_WINDOW = 1 << 26;
+
+    private final int window;
+
+    /** price of the level stored at index 0 of the window. */
+    private int base;
+
+    private int[] bids;
+
+    private int[] asks;
+
+    /** swapped with window arrays on re-centering. */
+    private int[] spareBids;
+
+    private int[] spareAsks;
+
+    private final SparseLevels farBids = new SparseLevels();
+
+    private final SparseLevels farAsks = new SparseLevels();
+
+    private long recenters;
+
+    /** best prices seen by previous {@link #afterChange()}. */
+    private long lastBestBid = NONE;
+
+    private long lastBestAsk = NONE;
+
+    public BookHybridImpl() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param window - number of price levels kept in dense arrays around the touch
+     */
+    public BookHybridImpl(final int window) {
+        if (window < MIN_WINDOW || window > MAX_WINDOW) {
+            throw new IllegalArgumentException("window size out of range: " + window);
+        }
+        this.window = window;
+        bids = new int[window];
+        asks = new int[window];
+        spareBids = new int[window];
+        spareAsks = new int[window];
+    }
+
+    @Override
+    protected int bidAt(final int price) {
+        return inWindow(price) ? bids[price - base] : farBids.get(price);
+    }
+
+    @Override
+    protected int askAt(final int price) {
+        return inWindow(price) ? asks[price - base] : farAsks.get(price);
+    }
+
+    @Override
+    protected void putBid(final int price, final int size) {
+        if (inWindow(price)) {
+            bids[price - base] = size;
+        } else {
+            farBids.set(price, size);
+        }
+    }
+
+    @Override
+    protected void putAsk(final int price, final int size) {
+        if (inWindow(price)) {
+            asks[price - base] = size;
+        } else {
+            farAsks.set(price, size);
+        }
+    }
+
+    /**
+     * @return number of price levels of the dense window
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return price of the lowest level of the dense window
+     */
+    public int getWindowBase() {
+        return base;
+    }
+
+    /**
+     * @return number of levels kept outside of the dense window
+     */
+    public int getFarLevels() {
+        return farBids.size() + farAsks.size();
+    }
+
+    /**
+     * @return number of times the window has moved
+     */
+    public long getRecenters() {
+        return recenters;
+    }
+
+    @Override
+    protected void clearLevels() {
+        Arrays.fill(bids, 0);
+        Arrays.fill(asks, 0);
+        farBids.clear();
+        farAsks.clear();
+    }
+
+    @Override
+    protected long nextBidBelow(final long price) {
+        final int farIndex = farBids.ceilingIndex(price) - 1;
+        final long far = farIndex >= 0 ? farBids.priceAt(farIndex) : NONE;
+        if (far >= (long) base + window) {
+            return far;
+        }
+        for (long index = Math.min(price - 1 - base, window - 1); index >= 0; index--) {
+            if (bids[(int) index] != 0) {
+                return Math.max(base + index, far);
+            }
+        }
+        return far;
+    }
+
+    @Override
+    protected long nextAskAbove(final long price) {
+        final int farIndex = farAsks.ceilingIndex(price + 1);
+        final long far = farIndex < farAsks.size() ? farAsks.priceAt(farIndex) : NONE;
+        if (far != NONE && far < base) {
+            return far;
+        }
+        for (long index = Math.max(price + 1 - base, 0); index < window; index++) {
+            if (asks[(int) index] != 0) {
+                return far == NONE ? base + index : Math.min(base + index, far);
+            }
+        }
+        return far;
+    }
+
+    private boolean inWindow(final int price) {
+        final long index = (long) price - base;
+        return index >= 0 && index < window;
+    }
+
+    /**
+     * Moves the window when the touch has left its middle half.
+     */
+    @Override
+    protected void afterChange() {
+        final long bestBid = bestBidLevel();
+        final long bestAsk = bestAskLevel();
+        final boolean bidMoved = bestBid != lastBestBid;
+        final boolean askMoved = bestAsk != lastBestAsk;
+        lastBestBid = bestBid;
+        lastBestAsk = bestAsk;
+        final long anchor;
+        if (bestBid == NONE && bestAsk == NONE) {
+            return;
+        } else if (bestBid == NONE) {
+            anchor = bestAsk;
+        } else if (bestAsk == NONE) {
+            anchor = bestBid;
+        } else if (bestAsk - bestBid < window / 2) {
+            anchor = (bestBid + bestAsk) / 2;
+        } else if (inWindow((int) bestBid) || inWindow((int) bestAsk)) {
+            return;
+        } else if (bidMoved != askMoved) {
+            anchor = bidMoved ? bestBid : bestAsk;
+        } else {
+            anchor = bidAt((int) bestBid) >= askAt((int) bestAsk) ? bestBid : bestAsk;
+        }
+        if (inMiddleHalf(anchor)) {
+            return;
+        }
+        recenter(anchor);
+    }
+
+    private boolean inMiddleHalf(final long price) {
+        final long offset = price - base;
+        return offset >= window / 4 && offset < window - window / 4;
+    }
+
+    private void recenter(final long anchor) {
+        final int newBase = (int) Math.max(Integer.MIN_VALUE,
+                Math.min(anchor - window / 2, (long) Integer.MAX_VALUE - window + 1));
+        final long newEnd = (long) newBase + window;
+        for (int index = 0; index < window; index++) {
+            final long price = (long) base + index;
+            if (price < newBase || price >= newEnd) {
+                if (bids[index] != 0) {
+                    farBids.set((int) price, bids[index]);
+                }
+                if (asks[index] != 0) {
+                    farAsks.set((int) price, asks[index]);
+                }
+            }
+        }
+        Arrays.fill(spareBids, 0);
+        Arrays.fill(spareAsks, 0);
+        final long low = Math.max(base, newBase);
+        final long high = Math.min((long) base + window, newEnd);
+        if (low < high) {
+            System.arraycopy(bids, (int) (low - base), spareBids, (int) (low - newBase), (int) (high - low));
+            System.arraycopy(asks, (int) (low - base), spareAsks, (int) (low - newBase), (int) (high - low));
+        }
+        final int[] oldBids = bids;
+        final int[] oldAsks = asks;
+        bids = spareBids;
+        asks = spareAsks;
+        spareBids = oldBids;
+        spareAsks = oldAsks;
+        base = newBase;
+        final int moved = farBids.drainRange(newBase, (int) (newEnd - 1), bids, newBase)
+                + farAsks.drainRange(newBase, (int) (newEnd - 1), asks, newBase);
+        recenters++;
+        if (log.isDebugEnabled()) {
+            log.debug("window moved to base price {}, {} far levels moved in, {} far levels left", newBase, moved,
+                    getFarLevels());
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency histograms of every {@link BookOperation}, filled by {@link TimedOrderBook}.
+ * Histograms are written by the thread that owns the book and can be reported from any thread.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class BookLatency {
+
+    private static Logger log = LoggerFactory.getLogger(BookLatency.class.getName());
+
+    private static final BookOperation[] OPERATIONS = BookOperation.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+
+    public BookLatency() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records time since *startNanos* taken from {@link System#nanoTime()}.
+     */
+    public void record(final BookOperation operation, final long startNanos) {
+        histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram getHistogram(final BookOperation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    /**
+     * Logs histograms of called operations at INFO.
+     */
+    public void report() {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            if (histograms[i].getCount() != 0) {
+                log.info("{} latency: {}", OPERATIONS[i], histograms[i]);
+            }
+        }
+    }
+
+}
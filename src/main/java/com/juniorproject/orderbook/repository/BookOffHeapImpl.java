@@ -0,0 +1,157 @@
+package com.juniorproject.orderbook.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Off-heap price ladder implementation of limit order book.
+ *
+ * Works like {@link BookArrayImpl}, but sizes of all levels are kept in one direct ByteBuffer,
+ * every level takes {@link #LEVEL_BYTES} bytes: bid size followed by ask size,
+ * price is given by position of the level and side by position of the size inside it.
+ * Heap holds only a few fields no matter how deep the book is, so there is nothing for GC to trace or copy.
+ * Ladder grows into a new buffer when a price outside of current range arrives,
+ * old buffer is freed when it is collected.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class BookOffHeapImpl extends LadderOrderBook {
+
+    private static Logger log = LoggerFactory.getLogger(BookOffHeapImpl.class.getName());
+
+    /** bid size and ask size, ints. */
+    static final int LEVEL_BYTES = 8;
+
+    private static final int ASK_OFFSET = 4;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private final int initialCapacity;
+
+    /** price of the level stored at index 0. */
+    private int base;
+
+    /** number of levels in the ladder, zero before first update. */
+    private int capacity;
+
+    private ByteBuffer levels;
+
+    public BookOffHeapImpl() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity - number of price levels allocated on first update
+     */
+    public BookOffHeapImpl(final int initialCapacity) {
+        if (initialCapacity <= 0 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("initial capacity out of range: " + initialCapacity);
+        }
+        this.initialCapacity = initialCapacity;
+    }
+
+    /**
+     * @return number of off-heap bytes taken by the ladder
+     */
+    public long getOffHeapBytes() {
+        return (long) capacity * LEVEL_BYTES;
+    }
+
+    @Override
+    protected int bidAt(final int price) {
+        return inRange(price) ? levels.getInt((price - base) * LEVEL_BYTES) : 0;
+    }
+
+    @Override
+    protected int askAt(final int price) {
+        return inRange(price) ? levels.getInt((price - base) * LEVEL_BYTES + ASK_OFFSET) : 0;
+    }
+
+    @Override
+    protected void putBid(final int price, final int size) {
+        final int index = ensureIndex(price);
+        levels.putInt(index * LEVEL_BYTES, size);
+    }
+
+    @Override
+    protected void putAsk(final int price, final int size) {
+        final int index = ensureIndex(price);
+        levels.putInt(index * LEVEL_BYTES + ASK_OFFSET, size);
+    }
+
+    @Override
+    protected long nextBidBelow(final long price) {
+        for (long index = Math.min(price - 1 - base, capacity - 1); index >= 0; index--) {
+            if (levels.getInt((int) index * LEVEL_BYTES) != 0) {
+                return base + index;
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    protected long nextAskAbove(final long price) {
+        for (long index = Math.max(price + 1 - base, 0); index < capacity; index++) {
+            if (levels.getInt((int) index * LEVEL_BYTES + ASK_OFFSET) != 0) {
+                return base + index;
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    protected void clearLevels() {
+        levels = null;
+        capacity = 0;
+    }
+
+    private boolean inRange(final int price) {
+        final long index = (long) price - base;
+        return index >= 0 && index < capacity;
+    }
+
+    /**
+     * Returns level index of *price*, grows the ladder if price is outside of it.
+     */
+    private int ensureIndex(final int price) {
+        if (levels == null) {
+            base = (int) Math.max(Integer.MIN_VALUE, (long) price - initialCapacity / 2);
+            capacity = initialCapacity;
+            levels = allocate(capacity);
+        } else if (!inRange(price)) {
+            grow(price);
+        }
+        return price - base;
+    }
+
+    private void grow(final int price) {
+        final long low = Math.min(base, price);
+        final long high = Math.max((long) base + capacity - 1, price);
+        final int newCapacity = grownCapacity(capacity, high - low + 1, MAX_CAPACITY, price);
+        final int newBase = centeredBase(low, high, newCapacity);
+        final int shift = base - newBase;
+        log.debug("growing off-heap ladder to {} levels, new base price {}", newCapacity, newBase);
+
+        final ByteBuffer grown = allocate(newCapacity);
+        levels.clear();
+        grown.position(shift * LEVEL_BYTES);
+        grown.put(levels);
+        grown.clear();
+        levels = grown;
+        capacity = newCapacity;
+        base = newBase;
+    }
+
+    /**
+     * Direct buffers are zeroed on allocation, so new levels are empty.
+     */
+    private static ByteBuffer allocate(final int levelCount) {
+        return ByteBuffer.allocateDirect(levelCount * LEVEL_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+}
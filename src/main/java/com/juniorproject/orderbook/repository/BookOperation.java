@@ -0,0 +1,24 @@
+package com.juniorproject.orderbook.repository;
+
+/**
+ * OrderBook methods timed by {@link TimedOrderBook}.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public enum BookOperation {
+    UPDATE,
+    BEST_BID,
+    BEST_ASK,
+    ENTRY_BY_PRICE,
+    SIZE_BY_PRICE,
+    DEPTH,
+    ORDER_BUY,
+    ORDER_SELL,
+    SWEEP_BUY,
+    SWEEP_SELL,
+    TOTAL_SIZE,
+    CUMULATIVE_SIZE,
+    SWEEP_PRICE,
+    CLEAR
+}
@@ -0,0 +1,53 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order books keyed by instrument symbol.
+ * Book is created on first access to its symbol.
+ *
+ * Not thread safe, every registry is meant to be owned by a single thread.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class BookRegistry {
+
+    private final BookType bookType;
+
+    private final Map<String, OrderBook> books = new HashMap<>();
+
+    /**
+     * @param bookType - implementation of books created by registry
+     */
+    public BookRegistry(final BookType bookType) {
+        this.bookType = bookType;
+    }
+
+    /**
+     * @param symbol - instrument
+     * @return book of instrument, new empty one if symbol is seen first time
+     */
+    public OrderBook getBook(final String symbol) {
+        return books.computeIfAbsent(symbol, key -> bookType.newBook());
+    }
+
+    /**
+     * @param symbol - instrument
+     * @return true if registry has book of symbol
+     */
+    public boolean contains(final String symbol) {
+        return books.containsKey(symbol);
+    }
+
+    /**
+     * @return symbols of all books in registry
+     */
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(books.keySet());
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.OrderType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes OrderBook state into compact binary file and restores it back.
+ * <p>
+ * header - magic "OBSN", format version, number of input lines the state covers (long) <br>
+ * levels - count, then price (int), size (int), side (byte) of every non-empty bid, ask and spread level <br>
+ * orders - count, then id (long), side (byte), price (int), size (int) of every resting limit order,
+ * orders of one level oldest first
+ * </p>
+ * Numbers are big endian. Snapshot is written into temporary file which then replaces target file,
+ * so a crash while writing never leaves broken snapshot behind.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class BookSnapshot {
+
+    private static Logger log = LoggerFactory.getLogger(BookSnapshot.class.getName());
+
+    private static final int MAGIC = 0x4F42534E;
+
+    private static final int VERSION = 1;
+
+    private static final byte BID = 0;
+
+    private static final byte ASK = 1;
+
+    private static final byte SPREAD = 2;
+
+    private static final int LEVEL_BYTES = 9;
+
+    private static final int ORDER_BYTES = 17;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int INITIAL_DEPTH = 1024;
+
+    private BookSnapshot() {
+    }
+
+    /**
+     * Writes snapshot of *book* into *file*.
+     * @param book - book to save, limit orders are saved if it is {@link LimitOrderBook}
+     * @param line - number of input lines applied to the book
+     * @param file - snapshot file, replaced if exists
+     * @throws IOException if file can not be written
+     */
+    public static void write(final OrderBook book, final long line, final Path file) throws IOException {
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        final int[] bids = levels(book, EntryType.BID);
+        final int[] asks = levels(book, EntryType.ASK);
+        final int[] spreads = levels(book, EntryType.SPREAD);
+        final int levelCount = bids[0] + asks[0] + spreads[0];
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(line).putInt(levelCount);
+            putLevels(channel, buffer, bids, BID);
+            putLevels(channel, buffer, asks, ASK);
+            putLevels(channel, buffer, spreads, SPREAD);
+            if (book instanceof LimitOrderBook) {
+                final LimitOrderBook limitBook = (LimitOrderBook) book;
+                ensureRoom(channel, buffer, Integer.BYTES);
+                buffer.putInt(limitBook.getOrderCount());
+                final IOException[] failure = new IOException[1];
+                limitBook.forEachOrder(order -> {
+                    try {
+                        ensureRoom(channel, buffer, ORDER_BYTES);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                        return;
+                    }
+                    buffer.putLong(order.id).put(order.type == OrderType.BUY ? BID : ASK)
+                            .putInt(order.price).putInt(order.size);
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+            } else {
+                ensureRoom(channel, buffer, Integer.BYTES);
+                buffer.putInt(0);
+            }
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("snapshot of {} levels at line {} written to {}", levelCount, line, file);
+    }
+
+    /**
+     * Clears *book* and fills it from snapshot *file*.
+     * @param file - snapshot written by {@link #write(OrderBook, long, Path)}
+     * @param book - book to restore into, limit orders are restored if it is {@link LimitOrderBook}
+     * @return number of input lines the snapshot covers
+     * @throws IOException if file can not be read
+     * @throws BookException if file is not a snapshot or has unknown version
+     */
+    public static long restore(final Path file, final OrderBook book) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 2 * Integer.BYTES + Long.BYTES + Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new BookException(String.format("%s is not a book snapshot", file));
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new BookException(String.format("snapshot %s has unsupported version %s", file, version));
+        }
+        final long line = buffer.getLong();
+        book.clear();
+        final int levelCount = buffer.getInt();
+        for (int i = 0; i < levelCount; i++) {
+            final int price = buffer.getInt();
+            final int size = buffer.getInt();
+            book.update(price, size, side(buffer.get()));
+        }
+        final int orderCount = buffer.getInt();
+        if (orderCount != 0 && !(book instanceof LimitOrderBook)) {
+            log.warn("{} has no limit orders, {} resting orders of snapshot are kept as plain level size",
+                    book.getClass().getSimpleName(), orderCount);
+        }
+        for (int i = 0; i < orderCount && book instanceof LimitOrderBook; i++) {
+            final long id = buffer.getLong();
+            final OrderType type = buffer.get() == BID ? OrderType.BUY : OrderType.SELL;
+            final int price = buffer.getInt();
+            ((LimitOrderBook) book).enqueue(id, type, price, buffer.getInt());
+        }
+        log.info("book of {} levels and {} orders restored from {}, input is continued after line {}",
+                levelCount, orderCount, file, line);
+        return line;
+    }
+
+    /**
+     * @return number of levels in first element followed by price, size pairs of all non-empty levels of *side*
+     */
+    private static int[] levels(final OrderBook book, final EntryType side) {
+        int depth = INITIAL_DEPTH;
+        while (true) {
+            final int[] buffer = new int[1 + 2 * depth];
+            buffer[0] = book.getDepth(side, depth, buffer, 1);
+            if (buffer[0] < depth) {
+                return buffer;
+            }
+            depth *= 2;
+        }
+    }
+
+    private static EntryType side(final byte side) {
+        switch (side) {
+            case BID:
+                return EntryType.BID;
+            case ASK:
+                return EntryType.ASK;
+            default:
+                return EntryType.SPREAD;
+        }
+    }
+
+    private static void putLevels(final FileChannel channel, final ByteBuffer buffer, final int[] levels,
+            final byte side) throws IOException {
+        for (int i = 0; i < levels[0]; i++) {
+            ensureRoom(channel, buffer, LEVEL_BYTES);
+            buffer.putInt(levels[1 + 2 * i]).putInt(levels[2 + 2 * i]).put(side);
+        }
+    }
+
+    private static void ensureRoom(final FileChannel channel, final ByteBuffer buffer, final int bytes)
+            throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -1,17 +1,37 @@
 package com.juniorproject.orderbook.repository;
 
+import com.juniorproject.orderbook.QuietMode;
 import com.juniorproject.orderbook.entity.BookEntry;
 import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Simple TreeSet implementation of limit order book.
+ * Bid and ask levels are kept in two sets ordered by price, one level per side and price,
+ * so a bid and an ask at the same price are separate levels and updating one keeps the other.
+ * Spread levels, prices where nobody buys or sells, are rare and kept apart in {@link SparseLevels}.
+ * Levels consumed by orders or updated to zero size are removed according to {@link PruningPolicy}.
+ * Running sizes of every side are kept in {@link PriceLevelIndex}, so cumulative size
+ * and sweep price queries do not walk the sets.
+ *
+ * Best bid is the highest live level of bids at or below a cached bound, raised by updates
+ * and tightened by lookups, best ask likewise, so emptied best levels are not searched for again
+ * until the best level is asked for (lazy invalidation) and then only dead levels below them are skipped.
+ * Depth and sweeps walk the sets from the best level, levels are looked up by a reusable probe entry.
+ *
+ * Existing levels are changed in place and removed levels go to {@link BookEntryPool}.
+ * Levels never leave the book: queries copy them into reusable views, overwritten by the next query of the same kind,
+ * and {@link #getEntries()} returns copies, so callers cannot change a level behind the book's back.
+ * Updates, queries and orders do not allocate once every price has its level
+ * (TreeSet still allocates a node whenever a new price is added).
  * 
  * @author Slava Shishkanu
  *
@@ -20,19 +40,98 @@ public final class BookTreeSetImpl implements OrderBook {
     
     private static Logger log = LoggerFactory.getLogger(BookTreeSetImpl.class.getName());
     
-    private NavigableSet<BookEntry> entries;
+    private static final Comparator<BookEntry> BY_PRICE = (first, second) ->
+            Integer.compare(first.getPrice(), second.getPrice());
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    /** bid levels, lowest price first. */
+    private final NavigableSet<BookEntry> bids = new TreeSet<>(BY_PRICE);
+
+    /** ask levels, lowest price first. */
+    private final NavigableSet<BookEntry> asks = new TreeSet<>(BY_PRICE);
+
+    /** sizes of spread levels, a price has either a spread level or bid and ask levels. */
+    private final SparseLevels spreads = new SparseLevels();
+
+    /** no live bid is priced above it, {@link #NONE} if there are no live bids. */
+    private long bidBound = NONE;
+
+    /** no live ask is priced below it, {@link #NONE} if there are no live asks. */
+    private long askBound = NONE;
+
+    /** lazy pruning does not bother compacting books with fewer empty levels. */
+    private static final int MIN_DEAD_LEVELS_TO_COMPACT = 1024;
+
+    private final PruningPolicy pruningPolicy;
+
+    private long levelsConsumed;
+
+    /** running sizes of bid levels, kept in step with levels. */
+    private final PriceLevelIndex bidIndex = new PriceLevelIndex();
+
+    /** running sizes of ask levels, kept in step with levels. */
+    private final PriceLevelIndex askIndex = new PriceLevelIndex();
+
+    /** reused by {@link #orderBuy(int)} and {@link #orderSell(int)}. */
+    private final FillResult orderFill = new FillResult();
+
+    /** number of zero size entries. */
+    private int deadLevels;
+
+    private final BookEntryPool pool;
+
+    /** key for lookups by price, never stored in the set. */
+    private final BookEntry probe = new BookEntry(0);
+
+    private final BookEntry bestBidView = new BookEntry(0);
+
+    private final BookEntry bestAskView = new BookEntry(0);
+
+    private final BookEntry priceView = new BookEntry(0);
     
-    private BookTreeSetImpl() {
-        entries = new TreeSet<>(Comparator.comparing(BookEntry::getPrice).reversed());
+    private BookTreeSetImpl(final PruningPolicy pruningPolicy, final BookEntryPool pool) {
+        this.pruningPolicy = pruningPolicy;
+        this.pool = pool;
     }
 
     public static BookTreeSetImpl getInstance() {
         return BookTreeSetHolder.BOOK_TREE_SET_INSTANCE;
     }
 
+    /**
+     * @return new book, independent of the shared {@link #getInstance() instance},
+     *         with {@link PruningPolicy#configured() configured} pruning
+     */
+    public static BookTreeSetImpl newInstance() {
+        return new BookTreeSetImpl(PruningPolicy.configured(), BookEntryPool.configured());
+    }
+
+    /**
+     * @return new book, independent of the shared {@link #getInstance() instance}
+     */
+    public static BookTreeSetImpl newInstance(final PruningPolicy pruningPolicy) {
+        return new BookTreeSetImpl(pruningPolicy, BookEntryPool.configured());
+    }
+
+    public PruningPolicy getPruningPolicy() {
+        return pruningPolicy;
+    }
+
     @Override
     public List<BookEntry> getEntries() {
-        return entries.stream().collect(Collectors.toList());
+        final List<BookEntry> result = new ArrayList<>(bids.size() + asks.size());
+        for (final BookEntry entry : asks.descendingSet()) {
+            result.add(new BookEntry(entry.getPrice(), entry.getSize(), entry.getType()));
+        }
+        for (final BookEntry entry : bids.descendingSet()) {
+            result.add(new BookEntry(entry.getPrice(), entry.getSize(), entry.getType()));
+        }
+        for (int i = 0; i < spreads.size(); i++) {
+            result.add(new BookEntry(spreads.priceAt(i), spreads.sizeAt(i), EntryType.SPREAD));
+        }
+        result.sort(BY_PRICE.reversed());
+        return result;
     }
 
     @Override
@@ -40,94 +139,379 @@ public final class BookTreeSetImpl implements OrderBook {
         entriesReceived.forEach(this::update);
     }
 
+    @Override
+    public long getLevelsConsumed() {
+        return levelsConsumed;
+    }
+
+    @Override
+    public int getLiveLevels() {
+        return bids.size() + asks.size() - deadLevels;
+    }
+
+    @Override
+    public int getDeadLevels() {
+        return deadLevels;
+    }
+
+    @Override
+    public long getTotalSize(final EntryType side) {
+        final PriceLevelIndex index = indexOf(side);
+        return index == null ? 0 : index.getTotal();
+    }
+
+    @Override
+    public long getCumulativeSize(final EntryType side, final int price) {
+        if (side == EntryType.BID) {
+            return bidIndex.sumFrom(price);
+        }
+        return side == EntryType.ASK ? askIndex.sumUpTo(price) : 0;
+    }
+
+    @Override
+    public int getSweepPrice(final EntryType side, final long quantity) {
+        if (side == EntryType.BID) {
+            return bidIndex.highestPriceReaching(quantity);
+        }
+        return side == EntryType.ASK ? askIndex.lowestPriceReaching(quantity) : 0;
+    }
+
     @Override
     public void clear() {
-        entries.clear();
+        for (final BookEntry entry : bids) {
+            pool.release(entry);
+        }
+        for (final BookEntry entry : asks) {
+            pool.release(entry);
+        }
+        bids.clear();
+        asks.clear();
+        spreads.clear();
+        deadLevels = 0;
+        bidIndex.clear();
+        askIndex.clear();
+        bidBound = NONE;
+        askBound = NONE;
     }
 
     @Override
     public void update(final BookEntry bookEntry) {
-        if (entries.contains(bookEntry)) {
-            entries.remove(bookEntry);
+        update(bookEntry.getPrice(), bookEntry.getSize(), bookEntry.getType());
+    }
+
+    /**
+     * Sets size of one side at *price*, level of the other side at the same price is kept
+     * and spread level at *price* is removed.
+     * Spread is where nobody buys or sells, so SPREAD update empties levels of both sides at *price*
+     * and keeps its size as spread level, zero size removes it.
+     */
+    @Override
+    public void update(final int price, final int size, final EntryType type) {
+        spreads.set(price, type == EntryType.SPREAD ? size : 0);
+        if (type == EntryType.BID || type == EntryType.ASK) {
+            updateSide(price, size, type);
+            return;
+        }
+        if (find(bids, price) != null) {
+            updateSide(price, 0, EntryType.BID);
+        }
+        if (find(asks, price) != null) {
+            updateSide(price, 0, EntryType.ASK);
         }
-        entries.add(bookEntry);
     }
 
     @Override
     public BookEntry bestBid() {
-        return entries.stream()
-                .filter(entry -> (entry.getType() == EntryType.BID) && (entry.getSize() != 0))
-                .findFirst().orElse(new BookEntry(0));
+        return copy(best(EntryType.BID), 0, bestBidView);
     }
 
     @Override
     public BookEntry bestAsk() {
-        return entries.stream()
-                .filter(entry -> (entry.getType() == EntryType.ASK) && (entry.getSize() != 0))
-                .sorted(Comparator.comparing(BookEntry::getPrice)).findFirst()
-                .orElse(new BookEntry(0));
+        return copy(best(EntryType.ASK), 0, bestAskView);
+    }
+
+    @Override
+    public int bestBidPrice() {
+        final BookEntry entry = best(EntryType.BID);
+        return entry == null ? 0 : entry.getPrice();
+    }
+
+    @Override
+    public int bestAskPrice() {
+        final BookEntry entry = best(EntryType.ASK);
+        return entry == null ? 0 : entry.getPrice();
     }
 
     @Override
     public BookEntry getEntryByPrice(final int price) {
-        final BookEntry entry = new BookEntry(price);
-        if (entries.contains(entry)) {
-            return entries.tailSet(new BookEntry(price)).first();
-        } else {
-            return entry;
+        final BookEntry entry = find(price);
+        if (entry == null && spreads.get(price) != 0) {
+            return priceView.set(price, spreads.get(price), EntryType.SPREAD);
         }
+        return copy(entry, price, priceView);
     }
 
     @Override
-    public void orderBuy(final int size) {
-        log.info("buy {} shares", size);
-        final List<BookEntry> selectedAsks = entries
-                .descendingSet()
-                .tailSet(bestAsk())
-                .stream()
-                .collect(Collectors.toList());
+    public int getSizeByPrice(final int price) {
+        return getSize(EntryType.BID, price) + getSize(EntryType.ASK, price) + spreads.get(price);
+    }
 
-        removeFromFirstShares(selectedAsks, size);
+    @Override
+    public int getSize(final EntryType side, final int price) {
+        if (side != EntryType.BID && side != EntryType.ASK) {
+            return spreads.get(price);
+        }
+        final BookEntry entry = find(setOf(side), price);
+        return entry == null ? 0 : entry.getSize();
+    }
+
+    @Override
+    public int getDepth(final EntryType side, final int levels, final int[] buffer, final int offset) {
+        int copied = 0;
+        if (side != EntryType.BID && side != EntryType.ASK) {
+            for (; copied < levels && copied < spreads.size(); copied++) {
+                buffer[offset + 2 * copied] = spreads.priceAt(copied);
+                buffer[offset + 2 * copied + 1] = spreads.sizeAt(copied);
+            }
+            return copied;
+        }
+        for (BookEntry entry = best(side); entry != null && copied < levels; entry = nextLive(side, entry)) {
+            buffer[offset + 2 * copied] = entry.getPrice();
+            buffer[offset + 2 * copied + 1] = entry.getSize();
+            copied++;
+        }
+        return copied;
+    }
+
+    @Override
+    public void orderBuy(final int size) {
+        if (!QuietMode.ENABLED) {
+            log.info("buy {} shares", size);
+        }
+        sweepBuy(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot buy {} shares, no more asks available, {} not bought", size, orderFill.getRemaining());
+            throw new BookException(String.format("cannot buy %s shares, no more asks available", size));
+        }
     }
 
     @Override
     public void orderSell(final int size) {
-        final List<BookEntry> selectedBids = entries.tailSet(bestBid()).stream()
-                .collect(Collectors.toList());
-        removeFromFirstShares(selectedBids, size);
+        if (!QuietMode.ENABLED) {
+            log.info("sell {} shares", size);
+        }
+        sweepSell(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot sell {} shares, no more bids available, {} not sold left ", size,
+                    orderFill.getRemaining());
+            throw new BookException(String.format("cannot sell %s shares, no more bids available", size));
+        }
+    }
+
+    @Override
+    public FillResult sweepBuy(final int size, final FillResult fill) {
+        return sweep(EntryType.ASK, fill.reset(size));
+    }
+
+    @Override
+    public FillResult sweepSell(final int size, final FillResult fill) {
+        return sweep(EntryType.BID, fill.reset(size));
+    }
+
+    /**
+     * Takes shares out of best levels of *side* one by one, levels are changed in place, nothing is copied.
+     */
+    private FillResult sweep(final EntryType side, final FillResult fill) {
+        final PriceLevelIndex index = indexOf(side);
+        while (fill.getRemaining() != 0 && index.getTotal() != 0) {
+            final BookEntry entry = best(side);
+            if (!QuietMode.ENABLED) {
+                log.info("updating entry={}, size left={}", entry, fill.getRemaining());
+            }
+            final int quantity = Math.min(fill.getRemaining(), entry.getSize());
+            fill.addLevel(entry.getPrice(), quantity);
+            entry.setSize(entry.getSize() - quantity);
+            index.add(entry.getPrice(), -quantity);
+            if (!QuietMode.ENABLED) {
+                log.info("updated entry={}, size left={}", entry, fill.getRemaining());
+            }
+            if (entry.getSize() == 0) {
+                removeEmpty(entry);
+            }
+        }
+        levelsConsumed += fill.getLevelsTouched();
+        return fill;
+    }
+
+    private void updateSide(final int price, final int size, final EntryType side) {
+        indexOf(side).set(price, size);
+        if (size != 0) {
+            raiseBound(price, side);
+        }
+        final NavigableSet<BookEntry> levels = setOf(side);
+        final BookEntry existing = find(levels, price);
+        if (existing == null) {
+            if (size != 0) {
+                levels.add(pool.acquire(price, size, side));
+            } else if (pruningPolicy != PruningPolicy.EAGER) {
+                levels.add(pool.acquire(price, size, side));
+                deadLevels++;
+                compactIfNeeded();
+            }
+            return;
+        }
+        if (existing.getSize() == 0) {
+            if (size == 0) {
+                return;
+            }
+            deadLevels--;
+        }
+        existing.setSize(size);
+        if (size == 0) {
+            removeEmpty(existing);
+        }
+    }
+
+    /**
+     * @return live level at *price*, bid first, null if there is none
+     */
+    private BookEntry find(final int price) {
+        final BookEntry bid = find(bids, price);
+        if (bid != null && bid.getSize() != 0) {
+            return bid;
+        }
+        final BookEntry ask = find(asks, price);
+        return ask != null && ask.getSize() != 0 ? ask : null;
     }
 
-    private void removeFromFirstShares(final List<BookEntry> selectedShares, final int size) {
-        log.info("remove from shares {}", size);
-        int sizeLeft = size;
-        for (final BookEntry entry : selectedShares) {
-            if (sizeLeft == 0) {
-                break;
+    private BookEntry find(final NavigableSet<BookEntry> levels, final int price) {
+        probe.setPrice(price);
+        final BookEntry entry = levels.ceiling(probe);
+        return entry != null && entry.getPrice() == price ? entry : null;
+    }
+
+    /**
+     * Finds best live level of *side* from its bound and tightens the bound to it.
+     * @return best level, null if *side* has no live levels
+     */
+    private BookEntry best(final EntryType side) {
+        if (side == EntryType.BID) {
+            if (bidBound == NONE) {
+                return null;
             }
-            log.info("updating entry={}, size left={}", entry, sizeLeft);
-            if (sizeLeft < entry.getSize()) {
-                entry.setSize(entry.getSize() - sizeLeft);
-                sizeLeft = 0;
-            } else {
-                sizeLeft -= entry.getSize();
-                entry.setSize(0);
+            probe.setPrice((int) bidBound);
+            BookEntry entry = bids.floor(probe);
+            if (entry != null && !isLive(entry)) {
+                entry = nextLive(side, entry);
             }
-            log.info("updated entry={}, size left={}", entry, sizeLeft);
+            bidBound = entry == null ? NONE : entry.getPrice();
+            return entry;
+        }
+        if (side != EntryType.ASK || askBound == NONE) {
+            return null;
+        }
+        probe.setPrice((int) askBound);
+        BookEntry entry = asks.ceiling(probe);
+        if (entry != null && !isLive(entry)) {
+            entry = nextLive(side, entry);
+        }
+        askBound = entry == null ? NONE : entry.getPrice();
+        return entry;
+    }
+
+    /**
+     * @return next worse live level of *side* after *entry*, skipping dead ones, null if there is none
+     */
+    private BookEntry nextLive(final EntryType side, final BookEntry entry) {
+        BookEntry next = entry;
+        do {
+            next = side == EntryType.BID ? bids.lower(next) : asks.higher(next);
+        } while (next != null && !isLive(next));
+        return next;
+    }
+
+    private static boolean isLive(final BookEntry entry) {
+        return entry.getSize() != 0;
+    }
+
+    /**
+     * Makes sure bound of *side* does not exclude new live level at *price*.
+     */
+    private void raiseBound(final int price, final EntryType side) {
+        if (side == EntryType.BID && (bidBound == NONE || price > bidBound)) {
+            bidBound = price;
+        } else if (side == EntryType.ASK && (askBound == NONE || price < askBound)) {
+            askBound = price;
         }
-        if (sizeLeft != 0) {
-            if (selectedShares.get(0).getType() == EntryType.BID) {
-                log.error("cannot sell {} shares, no more bids available, {} not sold left ", size, sizeLeft);
-                throw new BookException(String.format("cannot sell %s shares, no more bids available", size));
+    }
+
+    /**
+     * @return set holding levels of *side*
+     */
+    private NavigableSet<BookEntry> setOf(final EntryType side) {
+        return side == EntryType.ASK ? asks : bids;
+    }
+
+    /**
+     * @return *view* holding copy of *entry*, or empty level at *price* if *entry* is null
+     */
+    private static BookEntry copy(final BookEntry entry, final int price, final BookEntry view) {
+        return entry == null ? view.set(price, 0, null) : view.set(entry.getPrice(), entry.getSize(), entry.getType());
+    }
+
+    /**
+     * Handles level whose size just dropped to zero according to pruning policy.
+     */
+    private void removeEmpty(final BookEntry entry) {
+        if (pruningPolicy == PruningPolicy.EAGER) {
+            setOf(entry.getType()).remove(entry);
+            pool.release(entry);
+        } else {
+            deadLevels++;
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * @return index of BID or ASK side, null for SPREAD
+     */
+    private PriceLevelIndex indexOf(final EntryType side) {
+        if (side == EntryType.BID) {
+            return bidIndex;
+        }
+        return side == EntryType.ASK ? askIndex : null;
+    }
+
+    /**
+     * Lazy policy compacts the book when empty levels outnumber live ones.
+     */
+    private void compactIfNeeded() {
+        final int levels = bids.size() + asks.size();
+        if (pruningPolicy == PruningPolicy.LAZY && deadLevels >= MIN_DEAD_LEVELS_TO_COMPACT
+                && deadLevels > levels - deadLevels) {
+            if (log.isDebugEnabled()) {
+                log.debug("compacting book, removing {} empty levels of {}", deadLevels, levels);
             }
-            if (selectedShares.get(0).getType() == EntryType.ASK) {
-                log.error("cannot buy {} shares, no more asks available, {} not bought", size, sizeLeft);
-                throw new BookException(String.format("cannot buy %s shares, no more asks available", size));
+            removeEmpty(bids);
+            removeEmpty(asks);
+            deadLevels = 0;
+        }
+    }
+
+    private void removeEmpty(final NavigableSet<BookEntry> levels) {
+        final Iterator<BookEntry> iterator = levels.iterator();
+        while (iterator.hasNext()) {
+            final BookEntry entry = iterator.next();
+            if (entry.getSize() == 0) {
+                iterator.remove();
+                pool.release(entry);
             }
         }
     }
 
     private static class BookTreeSetHolder {
-        public static final BookTreeSetImpl BOOK_TREE_SET_INSTANCE = new BookTreeSetImpl();
+        public static final BookTreeSetImpl BOOK_TREE_SET_INSTANCE =
+                new BookTreeSetImpl(PruningPolicy.configured(), BookEntryPool.configured());
     }
 
 }
@@ -0,0 +1,75 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Available OrderBook implementations.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public enum BookType {
+
+    TREE_SET("treeset"),
+    ARRAY("array"),
+    OFF_HEAP("offheap"),
+    HYBRID("hybrid");
+
+    private String alias;
+
+    private static final Map<String, BookType> aliasMap = new HashMap<>();
+
+    static {
+        for (BookType bookType : BookType.values()) {
+            aliasMap.put(bookType.alias, bookType);
+        }
+    }
+
+    private BookType(String alias) {
+        this.alias = alias;
+    }
+
+    public static BookType valueOfByAlias(String alias) {
+        BookType bookType = aliasMap.get(alias);
+        if (bookType == null) {
+            throw new IllegalArgumentException(
+                    "No enum alias " + BookType.class.getCanonicalName() + "." + alias);
+        }
+        return bookType;
+    }
+
+    /**
+     * @return new empty OrderBook implementation of this type, with limit orders
+     */
+    public OrderBook newBook() {
+        return newBook(null);
+    }
+
+    /**
+     * @param latency - where calls of the book are timed, null for untimed book
+     * @return new empty OrderBook implementation of this type, with limit orders
+     */
+    public OrderBook newBook(final BookLatency latency) {
+        final OrderBook book = newBaseBook();
+        return new LimitOrderBook(latency == null ? book : new TimedOrderBook(book, latency));
+    }
+
+    /**
+     * @return new empty OrderBook implementation of this type, without limit orders,
+     * for decorating before it is wrapped into {@link LimitOrderBook}
+     */
+    public OrderBook newBaseBook() {
+        if (this == ARRAY) {
+            return new BookArrayImpl();
+        }
+        if (this == OFF_HEAP) {
+            return new BookOffHeapImpl();
+        }
+        if (this == HYBRID) {
+            return new BookHybridImpl();
+        }
+        return BookTreeSetImpl.newInstance();
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * OrderBook decorator that turns changes of decorated book into market data deltas.
+ *
+ * Updates and market orders record new sizes of the levels they change into {@link BookDeltas},
+ * orders find the levels they touched in their {@link FillResult} instead of copying depth ahead of the order.
+ * {@link #flush()} attaches top of book and passes the batch to {@link BookDeltaListener},
+ * so a level changed many times within one batch is delivered once, with its last size.
+ * Nothing is allocated once delta and fill arrays have grown to the biggest batch and the widest order.
+ *
+ * Decorated book must not hold limit orders, put this decorator below {@link LimitOrderBook},
+ * which turns limit orders into updates and sweeps of the book it decorates.
+ * Not thread safe, like decorated book.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class DeltaOrderBook implements OrderBook {
+
+    private static Logger log = LoggerFactory.getLogger(DeltaOrderBook.class.getName());
+
+    private final OrderBook book;
+
+    private final BookDeltaListener listener;
+
+    private final BookDeltas deltas = new BookDeltas();
+
+    /** reused by {@link #orderBuy(int)} and {@link #orderSell(int)}. */
+    private final FillResult orderFill = new FillResult();
+
+    /**
+     * @param book - decorated book
+     * @param listener - receives batches of changes
+     */
+    public DeltaOrderBook(final OrderBook book, final BookDeltaListener listener) {
+        this.book = book;
+        this.listener = listener;
+    }
+
+    /**
+     * Delivers changes collected since previous flush, does nothing if neither levels nor top of book changed.
+     */
+    public void flush() {
+        deltas.topOfBook(book.bestBidPrice(), book.bestBidSize(), book.bestAskPrice(), book.bestAskSize());
+        if (!deltas.isEmpty()) {
+            listener.onDeltas(deltas);
+        }
+        deltas.clear();
+    }
+
+    @Override
+    public void update(final BookEntry bookEntry) {
+        update(bookEntry.getPrice(), bookEntry.getSize(), bookEntry.getType());
+    }
+
+    /**
+     * Records new size of the level and removal of levels the update replaced at the price:
+     * spread level for BID and ASK update, levels of both sides for SPREAD update.
+     */
+    @Override
+    public void update(final int price, final int size, final EntryType type) {
+        final boolean bid = book.getSize(EntryType.BID, price) != 0;
+        final boolean ask = book.getSize(EntryType.ASK, price) != 0;
+        final boolean spread = book.getSize(EntryType.SPREAD, price) != 0;
+        book.update(price, size, type);
+        if (type == EntryType.BID || type == EntryType.ASK) {
+            deltas.level(type, price, book.getSize(type, price));
+            if (spread) {
+                deltas.level(EntryType.SPREAD, price, 0);
+            }
+            return;
+        }
+        if (bid) {
+            deltas.level(EntryType.BID, price, 0);
+        }
+        if (ask) {
+            deltas.level(EntryType.ASK, price, 0);
+        }
+        if (spread || size != 0) {
+            deltas.level(EntryType.SPREAD, price, book.getSize(EntryType.SPREAD, price));
+        }
+    }
+
+    /**
+     * Sweeps decorated book, so touched levels are known, and fails like {@link OrderBook#orderBuy(int)}.
+     */
+    @Override
+    public void orderBuy(final int size) {
+        sweepBuy(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot buy {} shares, no more asks available, {} not bought", size, orderFill.getRemaining());
+            throw new BookException(String.format("cannot buy %s shares, no more asks available", size));
+        }
+    }
+
+    /**
+     * Sweeps decorated book, so touched levels are known, and fails like {@link OrderBook#orderSell(int)}.
+     */
+    @Override
+    public void orderSell(final int size) {
+        sweepSell(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot sell {} shares, no more bids available, {} not sold left ", size,
+                    orderFill.getRemaining());
+            throw new BookException(String.format("cannot sell %s shares, no more bids available", size));
+        }
+    }
+
+    @Override
+    public FillResult sweepBuy(final int size, final FillResult fill) {
+        try {
+            return book.sweepBuy(size, fill);
+        } finally {
+            recordLevels(EntryType.ASK, fill);
+        }
+    }
+
+    @Override
+    public FillResult sweepSell(final int size, final FillResult fill) {
+        try {
+            return book.sweepSell(size, fill);
+        } finally {
+            recordLevels(EntryType.BID, fill);
+        }
+    }
+
+    /**
+     * Records removal of every level.
+     */
+    @Override
+    public void clear() {
+        for (final BookEntry entry : book.getEntries()) {
+            if (entry.getSize() != 0) {
+                deltas.level(entry.getType(), entry.getPrice(), 0);
+            }
+        }
+        book.clear();
+    }
+
+    @Override
+    public void addAll(final List<BookEntry> entries) {
+        entries.forEach(this::update);
+    }
+
+    @Override
+    public BookEntry bestBid() {
+        return book.bestBid();
+    }
+
+    @Override
+    public BookEntry bestAsk() {
+        return book.bestAsk();
+    }
+
+    @Override
+    public int bestBidPrice() {
+        return book.bestBidPrice();
+    }
+
+    @Override
+    public int bestBidSize() {
+        return book.bestBidSize();
+    }
+
+    @Override
+    public int bestAskPrice() {
+        return book.bestAskPrice();
+    }
+
+    @Override
+    public int bestAskSize() {
+        return book.bestAskSize();
+    }
+
+    @Override
+    public BookEntry getEntryByPrice(final int price) {
+        return book.getEntryByPrice(price);
+    }
+
+    @Override
+    public int getSizeByPrice(final int price) {
+        return book.getSizeByPrice(price);
+    }
+
+    @Override
+    public int getSize(final EntryType side, final int price) {
+        return book.getSize(side, price);
+    }
+
+    @Override
+    public int getDepth(final EntryType side, final int levels, final int[] buffer, final int offset) {
+        return book.getDepth(side, levels, buffer, offset);
+    }
+
+    @Override
+    public long getTotalSize(final EntryType side) {
+        return book.getTotalSize(side);
+    }
+
+    @Override
+    public long getCumulativeSize(final EntryType side, final int price) {
+        return book.getCumulativeSize(side, price);
+    }
+
+    @Override
+    public int getSweepPrice(final EntryType side, final long quantity) {
+        return book.getSweepPrice(side, quantity);
+    }
+
+    @Override
+    public long getLevelsConsumed() {
+        return book.getLevelsConsumed();
+    }
+
+    @Override
+    public int getLiveLevels() {
+        return book.getLiveLevels();
+    }
+
+    @Override
+    public int getDeadLevels() {
+        return book.getDeadLevels();
+    }
+
+    @Override
+    public List<BookEntry> getEntries() {
+        return book.getEntries();
+    }
+
+    /**
+     * Records sizes the levels touched by *fill* have now.
+     */
+    private void recordLevels(final EntryType side, final FillResult fill) {
+        for (int i = 0; i < fill.getLevelsTouched(); i++) {
+            final int price = fill.getLevelPrice(i);
+            deltas.level(side, price, book.getSize(side, price));
+        }
+    }
+
+}
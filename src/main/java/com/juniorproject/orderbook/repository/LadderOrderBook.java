@@ -0,0 +1,446 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Common part of books keeping bid and ask sizes in primitive storage keyed by price.
+ *
+ * Best prices, side totals and number of live levels are cached and updated on every change,
+ * so top of book queries are O(1). Sweeps, depth and cumulative queries walk from the best price
+ * with {@link #nextBidBelow(long)} and {@link #nextAskAbove(long)}.
+ * Subclasses only store sizes: {@link #bidAt(int)}, {@link #askAt(int)}, {@link #putBid(int, int)},
+ * {@link #putAsk(int, int)} and the two scans above.
+ * Spread levels, prices where nobody buys or sells, are rare and kept apart in {@link SparseLevels}.
+ * Entries returned by queries are reusable views, overwritten by the next query of the same kind.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+abstract class LadderOrderBook implements OrderBook {
+
+    private static Logger log = LoggerFactory.getLogger(LadderOrderBook.class.getName());
+
+    /** no level, below any int price. */
+    static final long NONE = Long.MIN_VALUE;
+
+    private long bestBid = NONE;
+
+    private long bestAsk = NONE;
+
+    private long levelsConsumed;
+
+    private long totalBidSize;
+
+    private long totalAskSize;
+
+    private int liveLevels;
+
+    /** sizes of spread levels, a price has either a spread level or bid and ask levels. */
+    private final SparseLevels spreads = new SparseLevels();
+
+    /** reused by {@link #orderBuy(int)} and {@link #orderSell(int)}. */
+    private final FillResult orderFill = new FillResult();
+
+    private final BookEntry bestBidView = new BookEntry(0);
+
+    private final BookEntry bestAskView = new BookEntry(0);
+
+    private final BookEntry priceView = new BookEntry(0);
+
+    /**
+     * @return bid size at *price*, zero if there is no such level
+     */
+    protected abstract int bidAt(int price);
+
+    /**
+     * @return ask size at *price*, zero if there is no such level
+     */
+    protected abstract int askAt(int price);
+
+    /**
+     * Stores bid size at *price*, never called to store zero size where nothing is stored.
+     */
+    protected abstract void putBid(int price, int size);
+
+    /**
+     * Stores ask size at *price*, never called to store zero size where nothing is stored.
+     */
+    protected abstract void putAsk(int price, int size);
+
+    /**
+     * @return highest bid price below *price*, {@link #NONE} if there is none
+     */
+    protected abstract long nextBidBelow(long price);
+
+    /**
+     * @return lowest ask price above *price*, {@link #NONE} if there is none
+     */
+    protected abstract long nextAskAbove(long price);
+
+    /**
+     * Drops all stored levels.
+     */
+    protected abstract void clearLevels();
+
+    /**
+     * Called after every update and sweep, when best prices are settled.
+     */
+    protected void afterChange() {
+    }
+
+    /**
+     * @return best bid price, {@link #NONE} if there are no bids
+     */
+    protected final long bestBidLevel() {
+        return bestBid;
+    }
+
+    /**
+     * @return best ask price, {@link #NONE} if there are no asks
+     */
+    protected final long bestAskLevel() {
+        return bestAsk;
+    }
+
+    @Override
+    public void update(final BookEntry bookEntry) {
+        update(bookEntry.getPrice(), bookEntry.getSize(), bookEntry.getType());
+    }
+
+    /**
+     * Sets size of one side at *price*, level of the other side at the same price is kept
+     * and spread level at *price* is removed.
+     * Spread is where nobody buys or sells, so SPREAD update removes both sides at *price*
+     * and keeps its size as spread level, zero size removes it.
+     */
+    @Override
+    public void update(final int price, final int size, final EntryType type) {
+        if (type == EntryType.BID) {
+            setBid(price, size);
+        } else if (type == EntryType.ASK) {
+            setAsk(price, size);
+        } else {
+            setBid(price, 0);
+            setAsk(price, 0);
+        }
+        spreads.set(price, type == EntryType.SPREAD ? size : 0);
+        afterChange();
+    }
+
+    @Override
+    public BookEntry bestBid() {
+        if (bestBid == NONE) {
+            return bestBidView.set(0, 0, null);
+        }
+        return bestBidView.set((int) bestBid, bidAt((int) bestBid), EntryType.BID);
+    }
+
+    @Override
+    public BookEntry bestAsk() {
+        if (bestAsk == NONE) {
+            return bestAskView.set(0, 0, null);
+        }
+        return bestAskView.set((int) bestAsk, askAt((int) bestAsk), EntryType.ASK);
+    }
+
+    @Override
+    public int bestBidPrice() {
+        return bestBid == NONE ? 0 : (int) bestBid;
+    }
+
+    @Override
+    public int bestBidSize() {
+        return bestBid == NONE ? 0 : bidAt((int) bestBid);
+    }
+
+    @Override
+    public int bestAskPrice() {
+        return bestAsk == NONE ? 0 : (int) bestAsk;
+    }
+
+    @Override
+    public int bestAskSize() {
+        return bestAsk == NONE ? 0 : askAt((int) bestAsk);
+    }
+
+    @Override
+    public int getSizeByPrice(final int price) {
+        return bidAt(price) + askAt(price) + spreads.get(price);
+    }
+
+    @Override
+    public int getSize(final EntryType side, final int price) {
+        if (side == EntryType.BID) {
+            return bidAt(price);
+        }
+        return side == EntryType.ASK ? askAt(price) : spreads.get(price);
+    }
+
+    @Override
+    public BookEntry getEntryByPrice(final int price) {
+        final int bid = bidAt(price);
+        if (bid != 0) {
+            return priceView.set(price, bid, EntryType.BID);
+        }
+        final int ask = askAt(price);
+        if (ask != 0) {
+            return priceView.set(price, ask, EntryType.ASK);
+        }
+        final int spread = spreads.get(price);
+        if (spread != 0) {
+            return priceView.set(price, spread, EntryType.SPREAD);
+        }
+        return priceView.set(price, 0, null);
+    }
+
+    @Override
+    public int getDepth(final EntryType side, final int levels, final int[] buffer, final int offset) {
+        int copied = 0;
+        if (side == EntryType.BID) {
+            for (long price = bestBid; price != NONE && copied < levels; price = nextBidBelow(price)) {
+                buffer[offset + 2 * copied] = (int) price;
+                buffer[offset + 2 * copied + 1] = bidAt((int) price);
+                copied++;
+            }
+        } else if (side == EntryType.ASK) {
+            for (long price = bestAsk; price != NONE && copied < levels; price = nextAskAbove(price)) {
+                buffer[offset + 2 * copied] = (int) price;
+                buffer[offset + 2 * copied + 1] = askAt((int) price);
+                copied++;
+            }
+        } else {
+            for (; copied < levels && copied < spreads.size(); copied++) {
+                buffer[offset + 2 * copied] = spreads.priceAt(copied);
+                buffer[offset + 2 * copied + 1] = spreads.sizeAt(copied);
+            }
+        }
+        return copied;
+    }
+
+    @Override
+    public void orderBuy(final int size) {
+        sweepBuy(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot buy {} shares, no more asks available, {} not bought", size, orderFill.getRemaining());
+            throw new BookException(String.format("cannot buy %s shares, no more asks available", size));
+        }
+    }
+
+    @Override
+    public void orderSell(final int size) {
+        sweepSell(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot sell {} shares, no more bids available, {} not sold left ", size,
+                    orderFill.getRemaining());
+            throw new BookException(String.format("cannot sell %s shares, no more bids available", size));
+        }
+    }
+
+    @Override
+    public FillResult sweepBuy(final int size, final FillResult fill) {
+        fill.reset(size);
+        while (fill.getRemaining() != 0 && bestAsk != NONE) {
+            final int price = (int) bestAsk;
+            final int available = askAt(price);
+            final int quantity = Math.min(fill.getRemaining(), available);
+            fill.addLevel(price, quantity);
+            setAsk(price, available - quantity);
+        }
+        levelsConsumed += fill.getLevelsTouched();
+        afterChange();
+        return fill;
+    }
+
+    @Override
+    public FillResult sweepSell(final int size, final FillResult fill) {
+        fill.reset(size);
+        while (fill.getRemaining() != 0 && bestBid != NONE) {
+            final int price = (int) bestBid;
+            final int available = bidAt(price);
+            final int quantity = Math.min(fill.getRemaining(), available);
+            fill.addLevel(price, quantity);
+            setBid(price, available - quantity);
+        }
+        levelsConsumed += fill.getLevelsTouched();
+        afterChange();
+        return fill;
+    }
+
+    @Override
+    public long getTotalSize(final EntryType side) {
+        if (side == EntryType.BID) {
+            return totalBidSize;
+        }
+        return side == EntryType.ASK ? totalAskSize : 0;
+    }
+
+    @Override
+    public long getCumulativeSize(final EntryType side, final int price) {
+        long sum = 0;
+        if (side == EntryType.BID) {
+            for (long level = bestBid; level != NONE && level >= price; level = nextBidBelow(level)) {
+                sum += bidAt((int) level);
+            }
+        } else if (side == EntryType.ASK) {
+            for (long level = bestAsk; level != NONE && level <= price; level = nextAskAbove(level)) {
+                sum += askAt((int) level);
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public int getSweepPrice(final EntryType side, final long quantity) {
+        if (quantity <= 0 || quantity > getTotalSize(side)) {
+            return 0;
+        }
+        long swept = 0;
+        if (side == EntryType.BID) {
+            for (long price = bestBid; price != NONE; price = nextBidBelow(price)) {
+                swept += bidAt((int) price);
+                if (swept >= quantity) {
+                    return (int) price;
+                }
+            }
+        } else if (side == EntryType.ASK) {
+            for (long price = bestAsk; price != NONE; price = nextAskAbove(price)) {
+                swept += askAt((int) price);
+                if (swept >= quantity) {
+                    return (int) price;
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getLevelsConsumed() {
+        return levelsConsumed;
+    }
+
+    @Override
+    public int getLiveLevels() {
+        return liveLevels;
+    }
+
+    @Override
+    public void clear() {
+        clearLevels();
+        spreads.clear();
+        bestBid = NONE;
+        bestAsk = NONE;
+        totalBidSize = 0;
+        totalAskSize = 0;
+        liveLevels = 0;
+    }
+
+    /**
+     * Walks both sides from the best price, so only live levels are visited, spread levels are merged in by price.
+     */
+    @Override
+    public List<BookEntry> getEntries() {
+        final List<BookEntry> asks = new ArrayList<>();
+        for (long price = bestAsk; price != NONE; price = nextAskAbove(price)) {
+            asks.add(new BookEntry((int) price, askAt((int) price), EntryType.ASK));
+        }
+        final List<BookEntry> result = new ArrayList<>();
+        int ask = asks.size() - 1;
+        long bid = bestBid;
+        while (ask >= 0 || bid != NONE) {
+            if (ask >= 0 && (bid == NONE || asks.get(ask).getPrice() >= bid)) {
+                result.add(asks.get(ask--));
+            } else {
+                result.add(new BookEntry((int) bid, bidAt((int) bid), EntryType.BID));
+                bid = nextBidBelow(bid);
+            }
+        }
+        if (spreads.size() != 0) {
+            for (int i = 0; i < spreads.size(); i++) {
+                result.add(new BookEntry(spreads.priceAt(i), spreads.sizeAt(i), EntryType.SPREAD));
+            }
+            result.sort(Comparator.comparingInt(BookEntry::getPrice).reversed());
+        }
+        return result;
+    }
+
+    @Override
+    public void addAll(final List<BookEntry> entriesReceived) {
+        entriesReceived.forEach(this::update);
+    }
+
+    private void setBid(final int price, final int size) {
+        final int previous = bidAt(price);
+        if (previous == size) {
+            return;
+        }
+        putBid(price, size);
+        totalBidSize += size - previous;
+        if (size != 0) {
+            if (previous == 0) {
+                liveLevels++;
+            }
+            if (bestBid == NONE || price > bestBid) {
+                bestBid = price;
+            }
+        } else {
+            liveLevels--;
+            if (price == bestBid) {
+                bestBid = nextBidBelow(price);
+            }
+        }
+    }
+
+    private void setAsk(final int price, final int size) {
+        final int previous = askAt(price);
+        if (previous == size) {
+            return;
+        }
+        putAsk(price, size);
+        totalAskSize += size - previous;
+        if (size != 0) {
+            if (previous == 0) {
+                liveLevels++;
+            }
+            if (bestAsk == NONE || price < bestAsk) {
+                bestAsk = price;
+            }
+        } else {
+            liveLevels--;
+            if (price == bestAsk) {
+                bestAsk = nextAskAbove(price);
+            }
+        }
+    }
+
+    /**
+     * @return capacity doubled from *capacity* until it takes *levels* levels
+     * @throws BookException if it would exceed *maxCapacity*, *price* is the one that did not fit
+     */
+    static int grownCapacity(final int capacity, final long levels, final int maxCapacity, final int price) {
+        long grown = capacity;
+        while (grown < levels) {
+            grown *= 2;
+        }
+        if (grown > maxCapacity) {
+            throw new BookException(String.format("price %s is too far from the book, ladder is limited to %s levels",
+                    price, maxCapacity));
+        }
+        return (int) grown;
+    }
+
+    /**
+     * @return price of the first level of a ladder of *capacity* levels with *low*..*high* in its middle
+     */
+    static int centeredBase(final long low, final long high, final int capacity) {
+        final long slack = (capacity - (high - low + 1)) / 2;
+        return (int) Math.max(Integer.MIN_VALUE, low - slack);
+    }
+
+}
@@ -0,0 +1,465 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.QuietMode;
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.OrderType;
+import java.util.List;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * OrderBook decorator that adds limit orders with price-time priority.
+ *
+ * Every price level of decorated book holds size set by <code>u</code> updates plus
+ * remaining sizes of limit orders resting at that price.
+ * Orders of a level are kept in FIFO {@link OrderLevel} list, market orders and crossing limit orders
+ * fill resting orders oldest first, and take size set by updates after them.
+ * Update of one side at a price keeps orders of the other side, SPREAD update cancels orders of both sides.
+ *
+ * Order and level objects are pooled and found by primitive keyed {@link LongObjectHashMap}s,
+ * so place, cancel and fill do not allocate once pools and maps have grown.
+ * While no orders rest on a side, calls go straight to decorated book.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class LimitOrderBook implements OrderBook {
+
+    private static Logger log = LoggerFactory.getLogger(LimitOrderBook.class.getName());
+
+    private final OrderBook book;
+
+    private final LongObjectHashMap<Order> orders = new LongObjectHashMap<>();
+
+    private final LongObjectHashMap<OrderLevel> bidLevels = new LongObjectHashMap<>();
+
+    private final LongObjectHashMap<OrderLevel> askLevels = new LongObjectHashMap<>();
+
+    /** reused by {@link #orderBuy(int)}, {@link #orderSell(int)} and {@link #modify(long, int, int)}. */
+    private final FillResult orderFill = new FillResult();
+
+    private Order freeOrders;
+
+    private OrderLevel freeLevels;
+
+    /** levels consumed by fills done here, not by decorated book. */
+    private long levelsConsumed;
+
+    /**
+     * @param book - decorated book
+     */
+    public LimitOrderBook(final OrderBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @return number of resting limit orders
+     */
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    /**
+     * @return remaining size of resting order, zero if there is no such order
+     */
+    public int getOrderSize(final long id) {
+        final Order order = orders.get(id);
+        return order == null ? 0 : order.size;
+    }
+
+    /**
+     * Places limit order, part crossing the other side is filled right away, the rest waits in the book
+     * behind orders placed earlier at the same price.
+     *
+     * @param id - unique id of the order
+     * @param type - BUY rests as bid, SELL rests as ask
+     * @param price - limit price
+     * @param size - integer greater than zero
+     * @param fill - receives what was filled right away, reset by this method
+     * @return *fill*
+     */
+    public FillResult placeLimit(final long id, final OrderType type, final int price, final int size,
+            final FillResult fill) {
+        if (size <= 0) {
+            throw new BookException(String.format("order %s size must be positive: %s", id, size));
+        }
+        if (orders.get(id) != null) {
+            throw new BookException(String.format("order %s already exists", id));
+        }
+        fill.reset(size);
+        if (type == OrderType.BUY) {
+            while (fill.getRemaining() != 0 && book.bestAskPrice() != 0 && book.bestAskPrice() <= price) {
+                takeFromBest(EntryType.ASK, fill);
+            }
+        } else {
+            while (fill.getRemaining() != 0 && book.bestBidPrice() != 0 && book.bestBidPrice() >= price) {
+                takeFromBest(EntryType.BID, fill);
+            }
+        }
+        if (fill.getRemaining() != 0) {
+            rest(id, type, price, fill.getRemaining());
+        }
+        return fill;
+    }
+
+    /**
+     * Removes resting limit order and its remaining size from the book.
+     *
+     * @param id - id of the order
+     * @return false if there is no such order
+     */
+    public boolean cancel(final long id) {
+        final Order order = orders.remove(id);
+        if (order == null) {
+            return false;
+        }
+        final EntryType side = sideOf(order.type);
+        book.update(order.price, book.getSize(side, order.price) - order.size, side);
+        removeFromLevel(order, side);
+        return true;
+    }
+
+    /**
+     * Changes price and size of resting limit order, zero size cancels it.
+     * Reducing size at the same price keeps time priority,
+     * any other change cancels the order and places it again with the same id.
+     *
+     * @param id - id of the order
+     * @param price - new limit price
+     * @param size - new remaining size
+     * @return false if there is no such order
+     */
+    public boolean modify(final long id, final int price, final int size) {
+        final Order order = orders.get(id);
+        if (order == null) {
+            return false;
+        }
+        if (size <= 0) {
+            return cancel(id);
+        }
+        if (price == order.price && size <= order.size) {
+            final int delta = order.size - size;
+            final EntryType side = sideOf(order.type);
+            book.update(price, book.getSize(side, price) - delta, side);
+            order.size = size;
+            order.level.total -= delta;
+            return true;
+        }
+        final OrderType type = order.type;
+        cancel(id);
+        placeLimit(id, type, price, size, orderFill);
+        return true;
+    }
+
+    @Override
+    public void update(final BookEntry bookEntry) {
+        update(bookEntry.getPrice(), bookEntry.getSize(), bookEntry.getType());
+    }
+
+    /**
+     * Sets size of the level apart from limit orders resting there.
+     */
+    @Override
+    public void update(final int price, final int size, final EntryType type) {
+        if (orders.size() == 0) {
+            book.update(price, size, type);
+            return;
+        }
+        final OrderLevel level = levelsOf(type) == null ? null : levelsOf(type).get(price);
+        book.update(price, level == null ? size : size + level.total, type);
+        if (type == EntryType.SPREAD) {
+            cancelLevel(bidLevels, price);
+            cancelLevel(askLevels, price);
+        }
+    }
+
+    @Override
+    public BookEntry bestBid() {
+        return book.bestBid();
+    }
+
+    @Override
+    public BookEntry bestAsk() {
+        return book.bestAsk();
+    }
+
+    @Override
+    public int bestBidPrice() {
+        return book.bestBidPrice();
+    }
+
+    @Override
+    public int bestBidSize() {
+        return book.bestBidSize();
+    }
+
+    @Override
+    public int bestAskPrice() {
+        return book.bestAskPrice();
+    }
+
+    @Override
+    public int bestAskSize() {
+        return book.bestAskSize();
+    }
+
+    @Override
+    public BookEntry getEntryByPrice(final int price) {
+        return book.getEntryByPrice(price);
+    }
+
+    @Override
+    public int getSizeByPrice(final int price) {
+        return book.getSizeByPrice(price);
+    }
+
+    @Override
+    public int getSize(final EntryType side, final int price) {
+        return book.getSize(side, price);
+    }
+
+    @Override
+    public int getDepth(final EntryType side, final int levels, final int[] buffer, final int offset) {
+        return book.getDepth(side, levels, buffer, offset);
+    }
+
+    @Override
+    public void orderBuy(final int size) {
+        sweepBuy(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot buy {} shares, no more asks available, {} not bought", size, orderFill.getRemaining());
+            throw new BookException(String.format("cannot buy %s shares, no more asks available", size));
+        }
+    }
+
+    @Override
+    public void orderSell(final int size) {
+        sweepSell(size, orderFill);
+        if (!orderFill.isComplete()) {
+            log.error("cannot sell {} shares, no more bids available, {} not sold left ", size,
+                    orderFill.getRemaining());
+            throw new BookException(String.format("cannot sell %s shares, no more bids available", size));
+        }
+    }
+
+    @Override
+    public FillResult sweepBuy(final int size, final FillResult fill) {
+        if (askLevels.size() == 0) {
+            return book.sweepBuy(size, fill);
+        }
+        fill.reset(size);
+        while (fill.getRemaining() != 0 && book.bestAskPrice() != 0) {
+            takeFromBest(EntryType.ASK, fill);
+        }
+        return fill;
+    }
+
+    @Override
+    public FillResult sweepSell(final int size, final FillResult fill) {
+        if (bidLevels.size() == 0) {
+            return book.sweepSell(size, fill);
+        }
+        fill.reset(size);
+        while (fill.getRemaining() != 0 && book.bestBidPrice() != 0) {
+            takeFromBest(EntryType.BID, fill);
+        }
+        return fill;
+    }
+
+    @Override
+    public long getTotalSize(final EntryType side) {
+        return book.getTotalSize(side);
+    }
+
+    @Override
+    public long getCumulativeSize(final EntryType side, final int price) {
+        return book.getCumulativeSize(side, price);
+    }
+
+    @Override
+    public int getSweepPrice(final EntryType side, final long quantity) {
+        return book.getSweepPrice(side, quantity);
+    }
+
+    @Override
+    public long getLevelsConsumed() {
+        return book.getLevelsConsumed() + levelsConsumed;
+    }
+
+    @Override
+    public int getLiveLevels() {
+        return book.getLiveLevels();
+    }
+
+    @Override
+    public int getDeadLevels() {
+        return book.getDeadLevels();
+    }
+
+    @Override
+    public void clear() {
+        book.clear();
+        orders.clear();
+        bidLevels.clear();
+        askLevels.clear();
+    }
+
+    @Override
+    public List<BookEntry> getEntries() {
+        return book.getEntries();
+    }
+
+    @Override
+    public void addAll(final List<BookEntry> entries) {
+        entries.forEach(this::update);
+    }
+
+    /**
+     * Passes resting orders to *action*, orders of every level oldest first.
+     */
+    void forEachOrder(final Consumer<Order> action) {
+        final Consumer<OrderLevel> levelAction = level -> {
+            for (Order order = level.head; order != null; order = order.next) {
+                action.accept(order);
+            }
+        };
+        bidLevels.forEachValue(levelAction);
+        askLevels.forEachValue(levelAction);
+    }
+
+    /**
+     * Fills as much of *fill* as best level of *side* has, resting orders first, oldest first.
+     */
+    private void takeFromBest(final EntryType side, final FillResult fill) {
+        final int price = side == EntryType.ASK ? book.bestAskPrice() : book.bestBidPrice();
+        final int levelSize = side == EntryType.ASK ? book.bestAskSize() : book.bestBidSize();
+        final int quantity = Math.min(fill.getRemaining(), levelSize);
+        final LongObjectHashMap<OrderLevel> levels = levelsOf(side);
+        final OrderLevel level = levels.get(price);
+        int left = quantity;
+        while (level != null && left != 0 && !level.isEmpty()) {
+            final Order order = level.head;
+            if (order.size <= left) {
+                left -= order.size;
+                if (!QuietMode.ENABLED) {
+                    log.info("order {} filled", order);
+                }
+                orders.remove(order.id);
+                removeFromLevel(order, side);
+            } else {
+                order.size -= left;
+                level.total -= left;
+                left = 0;
+            }
+        }
+        book.update(price, levelSize - quantity, side);
+        fill.addLevel(price, quantity);
+        levelsConsumed++;
+    }
+
+    private void rest(final long id, final OrderType type, final int price, final int size) {
+        final EntryType side = sideOf(type);
+        book.update(price, book.getSize(side, price) + size, side);
+        enqueue(id, type, price, size);
+    }
+
+    /**
+     * Puts order at the end of its level, size of the level in decorated book is not changed.
+     */
+    void enqueue(final long id, final OrderType type, final int price, final int size) {
+        final LongObjectHashMap<OrderLevel> levels = levelsOf(sideOf(type));
+        OrderLevel level = levels.get(price);
+        if (level == null) {
+            level = acquireLevel(price);
+            levels.put(price, level);
+        }
+        final Order order = acquireOrder();
+        order.id = id;
+        order.type = type;
+        order.price = price;
+        order.size = size;
+        level.append(order);
+        orders.put(id, order);
+    }
+
+    /**
+     * Drops orders resting at *price* without touching decorated book.
+     */
+    private void cancelLevel(final LongObjectHashMap<OrderLevel> levels, final int price) {
+        final OrderLevel level = levels.remove(price);
+        if (level == null) {
+            return;
+        }
+        while (!level.isEmpty()) {
+            final Order order = level.head;
+            if (!QuietMode.ENABLED) {
+                log.info("order {} cancelled by update of price level", order);
+            }
+            level.unlink(order);
+            orders.remove(order.id);
+            releaseOrder(order);
+        }
+        releaseLevel(level);
+    }
+
+    private void removeFromLevel(final Order order, final EntryType side) {
+        final OrderLevel level = order.level;
+        level.unlink(order);
+        if (level.isEmpty()) {
+            levelsOf(side).remove(level.price);
+            releaseLevel(level);
+        }
+        releaseOrder(order);
+    }
+
+    private LongObjectHashMap<OrderLevel> levelsOf(final EntryType side) {
+        if (side == EntryType.BID) {
+            return bidLevels;
+        }
+        return side == EntryType.ASK ? askLevels : null;
+    }
+
+    private static EntryType sideOf(final OrderType type) {
+        return type == OrderType.BUY ? EntryType.BID : EntryType.ASK;
+    }
+
+    private Order acquireOrder() {
+        final Order order = freeOrders;
+        if (order == null) {
+            return new Order();
+        }
+        freeOrders = order.next;
+        order.next = null;
+        return order;
+    }
+
+    private void releaseOrder(final Order order) {
+        order.type = null;
+        order.next = freeOrders;
+        freeOrders = order;
+    }
+
+    private OrderLevel acquireLevel(final int price) {
+        OrderLevel level = freeLevels;
+        if (level == null) {
+            level = new OrderLevel();
+        } else {
+            freeLevels = level.nextFree;
+            level.nextFree = null;
+        }
+        level.price = price;
+        level.total = 0;
+        return level;
+    }
+
+    private void releaseLevel(final OrderLevel level) {
+        level.head = null;
+        level.tail = null;
+        level.nextFree = freeLevels;
+        freeLevels = level;
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open addressing hash map with primitive long keys.
+ *
+ * Keys are not boxed and no entry objects are created, linear probing with
+ * backward shift deletion keeps the table free of tombstones,
+ * so get, put and remove do not allocate unless the table grows.
+ *
+ * @author Slava Shishkanu
+ *
+ * @param <V> - type of values, null values are not allowed
+ */
+final class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int mask;
+
+    private int size;
+
+    LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize - number of entries that fit without growing
+     */
+    LongObjectHashMap(final int expectedSize) {
+        final int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) * 2;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(final long key) {
+        for (int i = indexOf(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return previous value of *key*, null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V put(final long key, final V value) {
+        int i = indexOf(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                final V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > values.length) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * @return removed value, null if there was no such key
+     */
+    @SuppressWarnings("unchecked")
+    V remove(final long key) {
+        int i = indexOf(key);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return null;
+        }
+        final V removed = (V) values[i];
+        size--;
+        // shift following entries of the same probe chain back into the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            final int home = indexOf(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = null;
+        return removed;
+    }
+
+    /**
+     * Passes every value to *action*, order is not defined.
+     */
+    @SuppressWarnings("unchecked")
+    void forEachValue(final Consumer<? super V> action) {
+        for (final Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int indexOf(final long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = values.length - 1;
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.OrderType;
+
+/**
+ * Resting limit order, node of intrusive FIFO list of its {@link OrderLevel}.
+ * Instances are pooled by {@link LimitOrderBook} and reused after fill or cancel.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+final class Order {
+
+    long id;
+
+    OrderType type;
+
+    int price;
+
+    /** remaining size. */
+    int size;
+
+    OrderLevel level;
+
+    Order previous;
+
+    /** next order of the level, next free order while pooled. */
+    Order next;
+
+    @Override
+    public String toString() {
+        return "Order [id=" + id + ", type=" + type + ", price=" + price + ", size=" + size + "]";
+    }
+
+}
@@ -1,6 +1,11 @@
 package com.juniorproject.orderbook.repository;
 
 import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.FillStatus;
+import com.juniorproject.orderbook.entity.OrderType;
 import java.util.List;
 
 /**
@@ -18,9 +23,23 @@ public interface OrderBook {
      */
     void update(BookEntry bookEntry);
 
+    /**
+     * Same as {@link #update(BookEntry)}, but takes primitive values.
+     * Implementations should override it to avoid creating BookEntry.
+     * 
+     * @param price - integer greater than zero
+     * @param size - integer, zero removes liquidity at price
+     * @param type - side of the level
+     */
+    default void update(int price, int size, EntryType type) {
+        update(new BookEntry(price, size, type));
+    }
+
     /**
      * gives biggest non-zero bid item.
-     * returns empty BookEntry with zero price if no bids found
+     * returns empty BookEntry with zero price if no bids found.
+     * Returned entry may be a level or a view owned by the book, valid only until the book is changed
+     * or queried again, copy it to keep it.
      * @return {@link BookEntry  BookEntry}
      */
     BookEntry bestBid();
@@ -32,12 +51,84 @@ public interface OrderBook {
      */
     BookEntry bestAsk();
 
+    /**
+     * @return price of best bid, zero if no bids found
+     */
+    default int bestBidPrice() {
+        return bestBid().getPrice();
+    }
+
+    /**
+     * @return size of best bid, zero if no bids found
+     */
+    default int bestBidSize() {
+        return bestBid().getSize();
+    }
+
+    /**
+     * @return price of best ask, zero if no asks found
+     */
+    default int bestAskPrice() {
+        return bestAsk().getPrice();
+    }
+
+    /**
+     * @return size of best ask, zero if no asks found
+     */
+    default int bestAskSize() {
+        return bestAsk().getSize();
+    }
+
     /**
      * @param price - integer greater than zero
      * @return {@link BookEntry  BookEntry}
      */
     BookEntry getEntryByPrice(int price);
 
+    /**
+     * @param price - integer greater than zero
+     * @return size at price, zero if there is no such level
+     */
+    default int getSizeByPrice(int price) {
+        return getEntryByPrice(price).getSize();
+    }
+
+    /**
+     * @param side - BID, ASK or SPREAD
+     * @param price - integer greater than zero
+     * @return size of *side* at price, zero if *side* has no level there
+     */
+    default int getSize(EntryType side, int price) {
+        final BookEntry entry = getEntryByPrice(price);
+        return entry.getType() == side ? entry.getSize() : 0;
+    }
+
+    /**
+     * Copies up to *levels* best non-empty levels of one side into *buffer*
+     * as price, size pairs, best level first, without copying the whole book.
+     * Default implementation goes through {@link #getEntries()}, implementations should override it.
+     *
+     * @param side - BID or ASK, SPREAD copies spread levels lowest price first
+     * @param levels - maximum number of levels to copy
+     * @param buffer - receives up to 2 * *levels* ints
+     * @param offset - index of first int written to *buffer*
+     * @return number of levels copied
+     */
+    default int getDepth(EntryType side, int levels, int[] buffer, int offset) {
+        final List<BookEntry> entries = getEntries();
+        final boolean bids = side == EntryType.BID;
+        int copied = 0;
+        for (int i = 0; i < entries.size() && copied < levels; i++) {
+            final BookEntry entry = entries.get(bids ? i : entries.size() - 1 - i);
+            if (entry.getType() == side && entry.getSize() != 0) {
+                buffer[offset + 2 * copied] = entry.getPrice();
+                buffer[offset + 2 * copied + 1] = entry.getSize();
+                copied++;
+            }
+        }
+        return copied;
+    }
+
     /**
      * remove shares out of asks, most cheap ones.
      * @param size - integer greater than zero
@@ -52,6 +143,157 @@ public interface OrderBook {
      */
     void orderSell(int size);
 
+    /**
+     * Removes up to *size* shares out of asks, most cheap ones first, walking levels in place
+     * and stopping as soon as the order is filled. Does not throw when asks run out,
+     * {@link FillResult#getRemaining()} tells how much was not filled.
+     * Default implementation prices the fill from {@link #getEntries()} and calls {@link #orderBuy(int)},
+     * implementations should override it.
+     *
+     * @param size - integer greater than zero
+     * @param fill - receives what was executed, reset by this method
+     * @return *fill*
+     */
+    default FillResult sweepBuy(int size, FillResult fill) {
+        fill.reset(size);
+        final List<BookEntry> entries = getEntries();
+        for (int i = entries.size() - 1; i >= 0 && fill.getRemaining() != 0; i--) {
+            final BookEntry entry = entries.get(i);
+            if (entry.getType() == EntryType.ASK && entry.getSize() != 0) {
+                fill.addLevel(entry.getPrice(), Math.min(entry.getSize(), fill.getRemaining()));
+            }
+        }
+        if (fill.getFilled() != 0) {
+            orderBuy(fill.getFilled());
+        }
+        return fill;
+    }
+
+    /**
+     * Removes up to *size* shares out of bids, most expensive ones first, see {@link #sweepBuy(int, FillResult)}.
+     *
+     * @param size - integer greater than zero
+     * @param fill - receives what was executed, reset by this method
+     * @return *fill*
+     */
+    default FillResult sweepSell(int size, FillResult fill) {
+        fill.reset(size);
+        final List<BookEntry> entries = getEntries();
+        for (int i = 0; i < entries.size() && fill.getRemaining() != 0; i++) {
+            final BookEntry entry = entries.get(i);
+            if (entry.getType() == EntryType.BID && entry.getSize() != 0) {
+                fill.addLevel(entry.getPrice(), Math.min(entry.getSize(), fill.getRemaining()));
+            }
+        }
+        if (fill.getFilled() != 0) {
+            orderSell(fill.getFilled());
+        }
+        return fill;
+    }
+
+    /**
+     * Executes market order without throwing when it can not be filled.
+     * Fill-or-kill orders are checked against {@link #getTotalSize(EntryType)} before anything is changed,
+     * so a rejected order leaves the book untouched.
+     *
+     * @param type - BUY takes asks, SELL takes bids
+     * @param size - integer greater than zero
+     * @param mode - what to do with the part that can not be filled
+     * @param fill - receives what was executed, reset by this method
+     * @return {@link FillStatus}
+     */
+    default FillStatus marketOrder(OrderType type, int size, ExecutionMode mode, FillResult fill) {
+        final EntryType side = type == OrderType.BUY ? EntryType.ASK : EntryType.BID;
+        if (mode == ExecutionMode.FILL_OR_KILL && getTotalSize(side) < size) {
+            fill.reset(size);
+            return FillStatus.KILLED;
+        }
+        if (type == OrderType.BUY) {
+            sweepBuy(size, fill);
+        } else {
+            sweepSell(size, fill);
+        }
+        if (fill.isComplete()) {
+            return FillStatus.FILLED;
+        }
+        return fill.getFilled() == 0 ? FillStatus.KILLED : FillStatus.PARTIALLY_FILLED;
+    }
+
+    /**
+     * Total number of shares on one side.
+     * Default implementation goes through {@link #getEntries()}, implementations should keep it up to date instead.
+     *
+     * @param side - BID or ASK
+     * @return sum of sizes of all levels of *side*
+     */
+    default long getTotalSize(EntryType side) {
+        return getEntries().stream()
+                .filter(entry -> entry.getType() == side)
+                .mapToLong(BookEntry::getSize)
+                .sum();
+    }
+
+    /**
+     * How much can be bought up to *price* (ASK) or sold down to *price* (BID).
+     * Default implementation goes through {@link #getEntries()}, implementations should override it.
+     *
+     * @param side - BID or ASK
+     * @param price - worst price to include
+     * @return sum of sizes of *side* levels at *price* or better
+     */
+    default long getCumulativeSize(EntryType side, int price) {
+        return getEntries().stream()
+                .filter(entry -> entry.getType() == side)
+                .filter(entry -> side == EntryType.BID ? entry.getPrice() >= price : entry.getPrice() <= price)
+                .mapToLong(BookEntry::getSize)
+                .sum();
+    }
+
+    /**
+     * Price reached by sweeping *quantity* shares of one side from the best level, book is not changed.
+     * Default implementation goes through {@link #getEntries()}, implementations should override it.
+     *
+     * @param side - BID or ASK
+     * @param quantity - integer greater than zero
+     * @return price of the last level touched, zero if *side* has less than *quantity* shares
+     */
+    default int getSweepPrice(EntryType side, long quantity) {
+        final List<BookEntry> entries = getEntries();
+        final boolean bids = side == EntryType.BID;
+        long swept = 0;
+        for (int i = 0; i < entries.size() && quantity > 0; i++) {
+            final BookEntry entry = entries.get(bids ? i : entries.size() - 1 - i);
+            if (entry.getType() == side) {
+                swept += entry.getSize();
+                if (swept >= quantity && entry.getSize() != 0) {
+                    return entry.getPrice();
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return number of levels consumed (partially or fully) by market orders so far
+     */
+    default long getLevelsConsumed() {
+        return 0;
+    }
+
+    /**
+     * @return number of price levels with non-zero size
+     */
+    default int getLiveLevels() {
+        return (int) getEntries().stream().filter(entry -> entry.getSize() != 0).count();
+    }
+
+    /**
+     * @return number of zero size levels still kept by implementation
+     */
+    default int getDeadLevels() {
+        return 0;
+    }
+
     /**
      * Clears all entries.
      * used only in tests
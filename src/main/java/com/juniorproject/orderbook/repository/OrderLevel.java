@@ -0,0 +1,58 @@
+package com.juniorproject.orderbook.repository;
+
+/**
+ * Limit orders resting at one price of one side, oldest first.
+ * Instances are pooled by {@link LimitOrderBook}.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+final class OrderLevel {
+
+    int price;
+
+    Order head;
+
+    Order tail;
+
+    /** sum of remaining sizes of all orders of the level. */
+    int total;
+
+    /** next free level while pooled. */
+    OrderLevel nextFree;
+
+    void append(final Order order) {
+        order.level = this;
+        order.previous = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        total += order.size;
+    }
+
+    void unlink(final Order order) {
+        if (order.previous == null) {
+            head = order.next;
+        } else {
+            order.previous.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.previous;
+        } else {
+            order.next.previous = order.previous;
+        }
+        total -= order.size;
+        order.level = null;
+        order.previous = null;
+        order.next = null;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+}
@@ -0,0 +1,293 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.Arrays;
+
+/**
+ * Running sizes of price levels of one side of the book, keyed by price.
+ *
+ * Levels are nodes of a treap (search tree by price, heap by random priority, so it stays balanced
+ * with high probability) and every node keeps the sum of sizes of its subtree,
+ * so cumulative size up to a price and the price where cumulative size reaches a quantity
+ * are found in O(log n) and every size change costs O(log n) too.
+ * Prices may be anywhere in the int range, only levels with non-zero size are kept.
+ * Nodes live in parallel primitive arrays and are reused after removal,
+ * nothing is allocated unless the number of levels outgrows the arrays.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+final class PriceLevelIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** empty subtree, node 0 is never used and its sum stays zero. */
+    private static final int NIL = 0;
+
+    private int[] prices = new int[INITIAL_CAPACITY];
+
+    private int[] sizes = new int[INITIAL_CAPACITY];
+
+    private int[] priorities = new int[INITIAL_CAPACITY];
+
+    private int[] left = new int[INITIAL_CAPACITY];
+
+    private int[] right = new int[INITIAL_CAPACITY];
+
+    /** sum of sizes of the subtree of every node. */
+    private long[] sums = new long[INITIAL_CAPACITY];
+
+    private int root = NIL;
+
+    /** first node never used so far. */
+    private int unused = 1;
+
+    /** removed nodes, linked through {@link #left}. */
+    private int free = NIL;
+
+    /** xorshift state for priorities. */
+    private int seed = 0x2545F491;
+
+    /** subtrees produced by {@link #split(int, int)}. */
+    private int splitLower;
+
+    private int splitUpper;
+
+    /**
+     * Sets size at price, zero removes the level.
+     */
+    void set(final int price, final int size) {
+        final int node = find(price);
+        if (node == NIL) {
+            if (size != 0) {
+                root = insert(root, newNode(price, size));
+            }
+            return;
+        }
+        final int delta = size - sizes[node];
+        if (delta == 0) {
+            return;
+        }
+        if (size == 0) {
+            root = remove(root, price);
+            return;
+        }
+        for (int t = root; t != node; t = price < prices[t] ? left[t] : right[t]) {
+            sums[t] += delta;
+        }
+        sizes[node] = size;
+        sums[node] += delta;
+    }
+
+    /**
+     * Changes size at price by *delta*.
+     */
+    void add(final int price, final int delta) {
+        final int node = find(price);
+        set(price, (node == NIL ? 0 : sizes[node]) + delta);
+    }
+
+    /**
+     * @return sum of sizes at prices up to *price* inclusive
+     */
+    long sumUpTo(final int price) {
+        long sum = 0;
+        int t = root;
+        while (t != NIL) {
+            if (prices[t] <= price) {
+                sum += sums[left[t]] + sizes[t];
+                t = right[t];
+            } else {
+                t = left[t];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return sum of sizes at prices from *price* inclusive
+     */
+    long sumFrom(final int price) {
+        return price == Integer.MIN_VALUE ? getTotal() : getTotal() - sumUpTo(price - 1);
+    }
+
+    /**
+     * @return lowest price where sum of sizes up to it reaches *quantity*, zero if total is less than *quantity*
+     */
+    int lowestPriceReaching(final long quantity) {
+        if (quantity <= 0 || quantity > getTotal()) {
+            return 0;
+        }
+        long remaining = quantity;
+        int t = root;
+        while (true) {
+            final long lower = sums[left[t]];
+            if (lower >= remaining) {
+                t = left[t];
+            } else if (lower + sizes[t] >= remaining) {
+                return prices[t];
+            } else {
+                remaining -= lower + sizes[t];
+                t = right[t];
+            }
+        }
+    }
+
+    /**
+     * @return highest price where sum of sizes from it reaches *quantity*, zero if total is less than *quantity*
+     */
+    int highestPriceReaching(final long quantity) {
+        if (quantity <= 0 || quantity > getTotal()) {
+            return 0;
+        }
+        long remaining = quantity;
+        int t = root;
+        while (true) {
+            final long upper = sums[right[t]];
+            if (upper >= remaining) {
+                t = right[t];
+            } else if (upper + sizes[t] >= remaining) {
+                return prices[t];
+            } else {
+                remaining -= upper + sizes[t];
+                t = left[t];
+            }
+        }
+    }
+
+    long getTotal() {
+        return sums[root];
+    }
+
+    void clear() {
+        root = NIL;
+        unused = 1;
+        free = NIL;
+    }
+
+    private int find(final int price) {
+        int t = root;
+        while (t != NIL && prices[t] != price) {
+            t = price < prices[t] ? left[t] : right[t];
+        }
+        return t;
+    }
+
+    private int insert(final int t, final int node) {
+        if (t == NIL) {
+            return node;
+        }
+        if (priorities[node] > priorities[t]) {
+            split(t, prices[node]);
+            left[node] = splitLower;
+            right[node] = splitUpper;
+            pull(node);
+            return node;
+        }
+        if (prices[node] < prices[t]) {
+            left[t] = insert(left[t], node);
+        } else {
+            right[t] = insert(right[t], node);
+        }
+        sums[t] += sizes[node];
+        return t;
+    }
+
+    private int remove(final int t, final int price) {
+        if (prices[t] == price) {
+            final int merged = merge(left[t], right[t]);
+            release(t);
+            return merged;
+        }
+        if (price < prices[t]) {
+            left[t] = remove(left[t], price);
+        } else {
+            right[t] = remove(right[t], price);
+        }
+        pull(t);
+        return t;
+    }
+
+    /**
+     * Splits subtree *t* into {@link #splitLower} with prices below *price* and {@link #splitUpper} with the rest.
+     */
+    private void split(final int t, final int price) {
+        if (t == NIL) {
+            splitLower = NIL;
+            splitUpper = NIL;
+            return;
+        }
+        if (prices[t] < price) {
+            split(right[t], price);
+            right[t] = splitLower;
+            splitLower = t;
+        } else {
+            split(left[t], price);
+            left[t] = splitUpper;
+            splitUpper = t;
+        }
+        pull(t);
+    }
+
+    /**
+     * @return root of subtrees *lower* and *upper* joined, all prices of *lower* are below prices of *upper*
+     */
+    private int merge(final int lower, final int upper) {
+        if (lower == NIL) {
+            return upper;
+        }
+        if (upper == NIL) {
+            return lower;
+        }
+        if (priorities[lower] > priorities[upper]) {
+            right[lower] = merge(right[lower], upper);
+            pull(lower);
+            return lower;
+        }
+        left[upper] = merge(lower, left[upper]);
+        pull(upper);
+        return upper;
+    }
+
+    private void pull(final int t) {
+        sums[t] = sums[left[t]] + sums[right[t]] + sizes[t];
+    }
+
+    private int newNode(final int price, final int size) {
+        final int node;
+        if (free != NIL) {
+            node = free;
+            free = left[node];
+        } else {
+            if (unused == prices.length) {
+                grow();
+            }
+            node = unused++;
+        }
+        prices[node] = price;
+        sizes[node] = size;
+        sums[node] = size;
+        left[node] = NIL;
+        right[node] = NIL;
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        priorities[node] = seed;
+        return node;
+    }
+
+    private void release(final int node) {
+        left[node] = free;
+        free = node;
+    }
+
+    private void grow() {
+        final int capacity = prices.length * 2;
+        prices = Arrays.copyOf(prices, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What {@link BookTreeSetImpl} does with levels whose size dropped to zero.
+ * Chosen by system property orderbook.pruning, lazy by default.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public enum PruningPolicy {
+
+    /** empty levels stay in the book forever. */
+    NONE("none"),
+    /** empty levels are removed right when they become empty. */
+    EAGER("eager"),
+    /** empty levels are removed in one pass when there are more of them than live levels. */
+    LAZY("lazy");
+
+    public static final String PROPERTY = "orderbook.pruning";
+
+    private String alias;
+
+    private static final Map<String, PruningPolicy> aliasMap = new HashMap<>();
+
+    static {
+        for (PruningPolicy pruningPolicy : PruningPolicy.values()) {
+            aliasMap.put(pruningPolicy.alias, pruningPolicy);
+        }
+    }
+
+    private PruningPolicy(String alias) {
+        this.alias = alias;
+    }
+
+    public static PruningPolicy valueOfByAlias(String alias) {
+        PruningPolicy pruningPolicy = aliasMap.get(alias);
+        if (pruningPolicy == null) {
+            throw new IllegalArgumentException(
+                    "No enum alias " + PruningPolicy.class.getCanonicalName() + "." + alias);
+        }
+        return pruningPolicy;
+    }
+
+    /**
+     * @return policy set by system property orderbook.pruning, LAZY if it is not set
+     */
+    public static PruningPolicy configured() {
+        return valueOfByAlias(System.getProperty(PROPERTY, LAZY.alias));
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.List;
+
+/**
+ * OrderBook decorator that publishes top of book after every change,
+ * so other threads can read it through {@link TopOfBookPublisher} without locks.
+ *
+ * Book itself is still single threaded, all calls must come from one writer thread.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class PublishingOrderBook implements OrderBook {
+
+    private final OrderBook book;
+
+    private final TopOfBookPublisher publisher;
+
+    /**
+     * @param book - decorated book
+     * @param publisher - where top of book is published
+     */
+    public PublishingOrderBook(final OrderBook book, final TopOfBookPublisher publisher) {
+        this.book = book;
+        this.publisher = publisher;
+        publisher.publish(book);
+    }
+
+    public TopOfBookPublisher getPublisher() {
+        return publisher;
+    }
+
+    @Override
+    public void update(final BookEntry bookEntry) {
+        book.update(bookEntry);
+        publisher.publish(book);
+    }
+
+    @Override
+    public void update(final int price, final int size, final EntryType type) {
+        book.update(price, size, type);
+        publisher.publish(book);
+    }
+
+    @Override
+    public BookEntry bestBid() {
+        return book.bestBid();
+    }
+
+    @Override
+    public BookEntry bestAsk() {
+        return book.bestAsk();
+    }
+
+    @Override
+    public int bestBidPrice() {
+        return book.bestBidPrice();
+    }
+
+    @Override
+    public int bestBidSize() {
+        return book.bestBidSize();
+    }
+
+    @Override
+    public int bestAskPrice() {
+        return book.bestAskPrice();
+    }
+
+    @Override
+    public int bestAskSize() {
+        return book.bestAskSize();
+    }
+
+    @Override
+    public BookEntry getEntryByPrice(final int price) {
+        return book.getEntryByPrice(price);
+    }
+
+    @Override
+    public int getSizeByPrice(final int price) {
+        return book.getSizeByPrice(price);
+    }
+
+    @Override
+    public int getSize(final EntryType side, final int price) {
+        return book.getSize(side, price);
+    }
+
+    @Override
+    public int getDepth(final EntryType side, final int levels, final int[] buffer, final int offset) {
+        return book.getDepth(side, levels, buffer, offset);
+    }
+
+    @Override
+    public void orderBuy(final int size) {
+        try {
+            book.orderBuy(size);
+        } finally {
+            publisher.publish(book);
+        }
+    }
+
+    @Override
+    public void orderSell(final int size) {
+        try {
+            book.orderSell(size);
+        } finally {
+            publisher.publish(book);
+        }
+    }
+
+    @Override
+    public FillResult sweepBuy(final int size, final FillResult fill) {
+        try {
+            return book.sweepBuy(size, fill);
+        } finally {
+            publisher.publish(book);
+        }
+    }
+
+    @Override
+    public FillResult sweepSell(final int size, final FillResult fill) {
+        try {
+            return book.sweepSell(size, fill);
+        } finally {
+            publisher.publish(book);
+        }
+    }
+
+    @Override
+    public long getTotalSize(final EntryType side) {
+        return book.getTotalSize(side);
+    }
+
+    @Override
+    public long getCumulativeSize(final EntryType side, final int price) {
+        return book.getCumulativeSize(side, price);
+    }
+
+    @Override
+    public int getSweepPrice(final EntryType side, final long quantity) {
+        return book.getSweepPrice(side, quantity);
+    }
+
+    @Override
+    public long getLevelsConsumed() {
+        return book.getLevelsConsumed();
+    }
+
+    @Override
+    public int getLiveLevels() {
+        return book.getLiveLevels();
+    }
+
+    @Override
+    public int getDeadLevels() {
+        return book.getDeadLevels();
+    }
+
+    @Override
+    public void clear() {
+        book.clear();
+        publisher.publish(book);
+    }
+
+    @Override
+    public List<BookEntry> getEntries() {
+        return book.getEntries();
+    }
+
+    @Override
+    public void addAll(final List<BookEntry> entries) {
+        book.addAll(entries);
+        publisher.publish(book);
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.juniorproject.orderbook.repository;
+
+/**
+ * Sorted map of price to size over primitive arrays, for the few levels kept far from the touch.
+ *
+ * Prices are kept in ascending order next to their sizes, lookups are binary searches,
+ * inserts and removals shift the tail of the arrays. Zero size means no level, so it is never stored.
+ * Arrays grow with the number of levels and are reused after removals and {@link #clear()}.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+final class SparseLevels {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] prices = new int[INITIAL_CAPACITY];
+
+    private int[] sizes = new int[INITIAL_CAPACITY];
+
+    private int count;
+
+    /**
+     * @return number of levels
+     */
+    int size() {
+        return count;
+    }
+
+    int priceAt(final int index) {
+        return prices[index];
+    }
+
+    int sizeAt(final int index) {
+        return sizes[index];
+    }
+
+    /**
+     * @return size at *price*, zero if there is no such level
+     */
+    int get(final int price) {
+        final int index = indexOf(price);
+        return index >= 0 ? sizes[index] : 0;
+    }
+
+    /**
+     * Sets size at *price*, zero removes the level.
+     */
+    void set(final int price, final int size) {
+        final int index = indexOf(price);
+        if (index >= 0) {
+            if (size != 0) {
+                sizes[index] = size;
+            } else {
+                count--;
+                System.arraycopy(prices, index + 1, prices, index, count - index);
+                System.arraycopy(sizes, index + 1, sizes, index, count - index);
+            }
+            return;
+        }
+        if (size == 0) {
+            return;
+        }
+        final int insertion = -index - 1;
+        if (count == prices.length) {
+            grow();
+        }
+        System.arraycopy(prices, insertion, prices, insertion + 1, count - insertion);
+        System.arraycopy(sizes, insertion, sizes, insertion + 1, count - insertion);
+        prices[insertion] = price;
+        sizes[insertion] = size;
+        count++;
+    }
+
+    /**
+     * @return index of first level with price above or equal to *price*, {@link #size()} if there is none
+     */
+    int ceilingIndex(final long price) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (prices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves levels priced from *low* to *high* inclusive into *target* at index price - *targetBase*.
+     * @return number of moved levels
+     */
+    int drainRange(final int low, final int high, final int[] target, final int targetBase) {
+        final int from = ceilingIndex(low);
+        int to = from;
+        while (to < count && prices[to] <= high) {
+            target[prices[to] - targetBase] = sizes[to];
+            to++;
+        }
+        final int moved = to - from;
+        if (moved != 0) {
+            System.arraycopy(prices, to, prices, from, count - to);
+            System.arraycopy(sizes, to, sizes, from, count - to);
+            count -= moved;
+        }
+        return moved;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    private int indexOf(final int price) {
+        final int index = ceilingIndex(price);
+        return index < count && prices[index] == price ? index : -index - 1;
+    }
+
+    private void grow() {
+        final int[] newPrices = new int[prices.length * 2];
+        final int[] newSizes = new int[sizes.length * 2];
+        System.arraycopy(prices, 0, newPrices, 0, count);
+        System.arraycopy(sizes, 0, newSizes, 0, count);
+        prices = newPrices;
+        sizes = newSizes;
+    }
+
+}
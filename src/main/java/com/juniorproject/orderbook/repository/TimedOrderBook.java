@@ -0,0 +1,259 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.List;
+
+/**
+ * OrderBook decorator that times every call of decorated book into {@link BookLatency} histograms.
+ * Timing costs two {@link System#nanoTime()} calls and does not allocate.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class TimedOrderBook implements OrderBook {
+
+    private final OrderBook book;
+
+    private final BookLatency latency;
+
+    /**
+     * @param book - decorated book
+     * @param latency - where latencies are recorded
+     */
+    public TimedOrderBook(final OrderBook book, final BookLatency latency) {
+        this.book = book;
+        this.latency = latency;
+    }
+
+    public BookLatency getLatency() {
+        return latency;
+    }
+
+    @Override
+    public void update(final BookEntry bookEntry) {
+        final long start = System.nanoTime();
+        try {
+            book.update(bookEntry);
+        } finally {
+            latency.record(BookOperation.UPDATE, start);
+        }
+    }
+
+    @Override
+    public void update(final int price, final int size, final EntryType type) {
+        final long start = System.nanoTime();
+        try {
+            book.update(price, size, type);
+        } finally {
+            latency.record(BookOperation.UPDATE, start);
+        }
+    }
+
+    @Override
+    public BookEntry bestBid() {
+        final long start = System.nanoTime();
+        try {
+            return book.bestBid();
+        } finally {
+            latency.record(BookOperation.BEST_BID, start);
+        }
+    }
+
+    @Override
+    public BookEntry bestAsk() {
+        final long start = System.nanoTime();
+        try {
+            return book.bestAsk();
+        } finally {
+            latency.record(BookOperation.BEST_ASK, start);
+        }
+    }
+
+    @Override
+    public int bestBidPrice() {
+        final long start = System.nanoTime();
+        try {
+            return book.bestBidPrice();
+        } finally {
+            latency.record(BookOperation.BEST_BID, start);
+        }
+    }
+
+    @Override
+    public int bestBidSize() {
+        final long start = System.nanoTime();
+        try {
+            return book.bestBidSize();
+        } finally {
+            latency.record(BookOperation.BEST_BID, start);
+        }
+    }
+
+    @Override
+    public int bestAskPrice() {
+        final long start = System.nanoTime();
+        try {
+            return book.bestAskPrice();
+        } finally {
+            latency.record(BookOperation.BEST_ASK, start);
+        }
+    }
+
+    @Override
+    public int bestAskSize() {
+        final long start = System.nanoTime();
+        try {
+            return book.bestAskSize();
+        } finally {
+            latency.record(BookOperation.BEST_ASK, start);
+        }
+    }
+
+    @Override
+    public BookEntry getEntryByPrice(final int price) {
+        final long start = System.nanoTime();
+        try {
+            return book.getEntryByPrice(price);
+        } finally {
+            latency.record(BookOperation.ENTRY_BY_PRICE, start);
+        }
+    }
+
+    @Override
+    public int getSizeByPrice(final int price) {
+        final long start = System.nanoTime();
+        try {
+            return book.getSizeByPrice(price);
+        } finally {
+            latency.record(BookOperation.SIZE_BY_PRICE, start);
+        }
+    }
+
+    @Override
+    public int getSize(final EntryType side, final int price) {
+        final long start = System.nanoTime();
+        try {
+            return book.getSize(side, price);
+        } finally {
+            latency.record(BookOperation.SIZE_BY_PRICE, start);
+        }
+    }
+
+    @Override
+    public int getDepth(final EntryType side, final int levels, final int[] buffer, final int offset) {
+        final long start = System.nanoTime();
+        try {
+            return book.getDepth(side, levels, buffer, offset);
+        } finally {
+            latency.record(BookOperation.DEPTH, start);
+        }
+    }
+
+    @Override
+    public void orderBuy(final int size) {
+        final long start = System.nanoTime();
+        try {
+            book.orderBuy(size);
+        } finally {
+            latency.record(BookOperation.ORDER_BUY, start);
+        }
+    }
+
+    @Override
+    public void orderSell(final int size) {
+        final long start = System.nanoTime();
+        try {
+            book.orderSell(size);
+        } finally {
+            latency.record(BookOperation.ORDER_SELL, start);
+        }
+    }
+
+    @Override
+    public FillResult sweepBuy(final int size, final FillResult fill) {
+        final long start = System.nanoTime();
+        try {
+            return book.sweepBuy(size, fill);
+        } finally {
+            latency.record(BookOperation.SWEEP_BUY, start);
+        }
+    }
+
+    @Override
+    public FillResult sweepSell(final int size, final FillResult fill) {
+        final long start = System.nanoTime();
+        try {
+            return book.sweepSell(size, fill);
+        } finally {
+            latency.record(BookOperation.SWEEP_SELL, start);
+        }
+    }
+
+    @Override
+    public long getTotalSize(final EntryType side) {
+        final long start = System.nanoTime();
+        try {
+            return book.getTotalSize(side);
+        } finally {
+            latency.record(BookOperation.TOTAL_SIZE, start);
+        }
+    }
+
+    @Override
+    public long getCumulativeSize(final EntryType side, final int price) {
+        final long start = System.nanoTime();
+        try {
+            return book.getCumulativeSize(side, price);
+        } finally {
+            latency.record(BookOperation.CUMULATIVE_SIZE, start);
+        }
+    }
+
+    @Override
+    public int getSweepPrice(final EntryType side, final long quantity) {
+        final long start = System.nanoTime();
+        try {
+            return book.getSweepPrice(side, quantity);
+        } finally {
+            latency.record(BookOperation.SWEEP_PRICE, start);
+        }
+    }
+
+    @Override
+    public long getLevelsConsumed() {
+        return book.getLevelsConsumed();
+    }
+
+    @Override
+    public int getLiveLevels() {
+        return book.getLiveLevels();
+    }
+
+    @Override
+    public int getDeadLevels() {
+        return book.getDeadLevels();
+    }
+
+    @Override
+    public void clear() {
+        final long start = System.nanoTime();
+        try {
+            book.clear();
+        } finally {
+            latency.record(BookOperation.CLEAR, start);
+        }
+    }
+
+    @Override
+    public List<BookEntry> getEntries() {
+        return book.getEntries();
+    }
+
+    @Override
+    public void addAll(final List<BookEntry> entries) {
+        book.addAll(entries);
+    }
+
+}
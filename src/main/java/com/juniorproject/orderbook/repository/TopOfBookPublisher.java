@@ -0,0 +1,83 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.TopOfBook;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Single writer / many readers holder of best bid and best ask, based on sequence lock.
+ *
+ * Writer thread calls {@link #publish(int, int, int, int)}, it never blocks and does not allocate.
+ * Any number of reader threads call {@link #read()}, they never block the writer,
+ * a reader retries if it raced with publishing, so every snapshot it gets is consistent.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class TopOfBookPublisher {
+
+    /** odd while writer is in the middle of publishing. */
+    private volatile long version;
+
+    private int bidPrice;
+
+    private int bidSize;
+
+    private int askPrice;
+
+    private int askSize;
+
+    /**
+     * Publishes new top of book, does nothing if it has not changed.
+     * Must be called from one thread only.
+     */
+    public void publish(final int newBidPrice, final int newBidSize, final int newAskPrice, final int newAskSize) {
+        if (newBidPrice == bidPrice && newBidSize == bidSize && newAskPrice == askPrice && newAskSize == askSize) {
+            return;
+        }
+        final long current = version;
+        version = current + 1;
+        VarHandle.storeStoreFence();
+        bidPrice = newBidPrice;
+        bidSize = newBidSize;
+        askPrice = newAskPrice;
+        askSize = newAskSize;
+        version = current + 2;
+    }
+
+    /**
+     * Publishes top of *book*.
+     * Must be called from the thread that changes book.
+     */
+    public void publish(final OrderBook book) {
+        publish(book.bestBidPrice(), book.bestBidSize(), book.bestAskPrice(), book.bestAskSize());
+    }
+
+    /**
+     * @return last published top of book, can be called from any thread
+     */
+    public TopOfBook read() {
+        while (true) {
+            final long before = version;
+            if ((before & 1) == 0) {
+                final int currentBidPrice = bidPrice;
+                final int currentBidSize = bidSize;
+                final int currentAskPrice = askPrice;
+                final int currentAskSize = askSize;
+                VarHandle.loadLoadFence();
+                if (before == version) {
+                    return new TopOfBook(currentBidPrice, currentBidSize, currentAskPrice, currentAskSize,
+                            before >>> 1);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return number of published changes
+     */
+    public long getSequence() {
+        return version >>> 1;
+    }
+
+}
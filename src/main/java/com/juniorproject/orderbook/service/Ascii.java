@@ -0,0 +1,96 @@
+package com.juniorproject.orderbook.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Formats numbers as ASCII text into reusable buffers.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+final class Ascii {
+
+    /** longest decimal int: sign and ten digits. */
+    static final int MAX_INT_LENGTH = 11;
+
+    private Ascii() {
+    }
+
+    /**
+     * Writes *count* ints of *values* starting at *from* as comma separated list,
+     * *buffer* must have room for count * (MAX_INT_LENGTH + 1) chars after *position*.
+     * @return position after last written char
+     */
+    static int putInts(final char[] buffer, final int position, final int[] values, final int from,
+            final int count) {
+        int pos = position;
+        for (int i = 0; i < count; i++) {
+            if (i != 0) {
+                buffer[pos++] = ',';
+            }
+            pos = putInt(buffer, pos, values[from + i]);
+        }
+        return pos;
+    }
+
+    /**
+     * Writes decimal representation of *value* into *buffer* starting at *position*.
+     * @return position after last written char
+     */
+    static int putInt(final char[] buffer, final int position, final int value) {
+        return putLong(buffer, position, value);
+    }
+
+    /**
+     * Writes decimal representation of *value* (anything but Long.MIN_VALUE) into *buffer* starting at *position*.
+     * @return position after last written char
+     */
+    static int putLong(final char[] buffer, final int position, final long value) {
+        int pos = position;
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[pos++] = '-';
+            remaining = -remaining;
+        }
+        final int length = digits(remaining);
+        for (int i = pos + length - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return pos + length;
+    }
+
+    /**
+     * Puts decimal representation of *value* into *buffer* at its position.
+     */
+    static void putInt(final ByteBuffer buffer, final int value) {
+        putLong(buffer, value);
+    }
+
+    /**
+     * Puts decimal representation of *value* (anything but Long.MIN_VALUE) into *buffer* at its position.
+     */
+    static void putLong(final ByteBuffer buffer, final long value) {
+        long remaining = value;
+        if (remaining < 0) {
+            buffer.put((byte) '-');
+            remaining = -remaining;
+        }
+        final int start = buffer.position();
+        final int length = digits(remaining);
+        for (int i = start + length - 1; i >= start; i--) {
+            buffer.put(i, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        buffer.position(start + length);
+    }
+
+    static int digits(final long value) {
+        int length = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.repository.BookType;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays many independent input files at once.
+ *
+ * Every file gets its own book, CommandHandler and output file of the same name in output directory,
+ * written exactly as single file run writes it. Files are handled on ForkJoinPool of *parallelism* threads,
+ * results are reported in input order whatever order files finish in.
+ * Failure of one file is reported and does not stop the others.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class BatchReplay {
+
+    private static Logger log = LoggerFactory.getLogger(BatchReplay.class.getName());
+
+    private final BookType bookType;
+
+    private final String inputMode;
+
+    private final int parallelism;
+
+    /**
+     * @param bookType - implementation of books
+     * @param inputMode - lines, mmap or binary
+     * @param parallelism - number of files handled at once
+     */
+    public BatchReplay(final BookType bookType, final String inputMode, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.bookType = bookType;
+        this.inputMode = inputMode;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param source - directory, all its regular files are taken in name order,
+     * or text file with one input path per line, relative paths are resolved against its directory
+     * @return input files
+     * @throws IOException if source can not be read
+     */
+    public static List<Path> listInputs(final Path source) throws IOException {
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> files = Files.list(source)) {
+                return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        }
+        final Path directory = source.toAbsolutePath().getParent();
+        try (Stream<String> lines = Files.lines(source)) {
+            return lines.map(String::trim).filter(line -> !line.isEmpty()).map(directory::resolve)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Replays *inputs* into files of the same names in *outputDirectory*, which is created if needed.
+     * @return results in order of *inputs*
+     * @throws IOException if output directory can not be created
+     * @throws IllegalArgumentException if output directory is directory of inputs
+     */
+    public Report run(final List<Path> inputs, final Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        final List<Path> outputs = new ArrayList<>(inputs.size());
+        for (final Path input : inputs) {
+            final Path output = outputDirectory.resolve(input.getFileName());
+            if (Files.exists(output) && Files.isSameFile(input, output)) {
+                throw new IllegalArgumentException("output would overwrite input " + input);
+            }
+            outputs.add(output);
+        }
+        final long start = System.nanoTime();
+        final List<ForkJoinTask<FileResult>> tasks = new ArrayList<>(inputs.size());
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int i = 0; i < inputs.size(); i++) {
+                final Path input = inputs.get(i);
+                final Path output = outputs.get(i);
+                tasks.add(pool.submit(() -> replay(input, output)));
+            }
+            final List<FileResult> results = new ArrayList<>(tasks.size());
+            for (final ForkJoinTask<FileResult> task : tasks) {
+                results.add(task.join());
+            }
+            return new Report(results, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Replays one file into its own book, never throws.
+     */
+    FileResult replay(final Path input, final Path output) {
+        final long start = System.nanoTime();
+        CommandHandler commandHandler = null;
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            commandHandler = new CommandHandler(bookType.newBook(), new MyWriter(writer));
+            read(input, commandHandler);
+        } catch (IOException | RuntimeException e) {
+            log.error("replay of {} failed", input, e);
+            return new FileResult(input, output, commandHandler, System.nanoTime() - start, e);
+        }
+        return new FileResult(input, output, commandHandler, System.nanoTime() - start, null);
+    }
+
+    private void read(final Path input, final CommandHandler commandHandler) throws IOException {
+        if ("binary".equals(inputMode)) {
+            new MappedFileReader().readRecords(input, BinaryCommandCodec.RECORD_BYTES, commandHandler::handleBinary,
+                    0);
+        } else if ("lines".equals(inputMode)) {
+            try (Stream<String> stream = Files.lines(input)) {
+                stream.forEach(line -> commandHandler.handle(line, 0, line.length()));
+            }
+        } else {
+            new MappedFileReader().read(input, commandHandler::handle);
+        }
+    }
+
+    /**
+     * Outcome of one input file.
+     */
+    public static final class FileResult {
+
+        private final Path input;
+
+        private final Path output;
+
+        private final long lines;
+
+        private final long commands;
+
+        private final long nanos;
+
+        private final Exception failure;
+
+        FileResult(final Path input, final Path output, final CommandHandler commandHandler, final long nanos,
+                final Exception failure) {
+            this.input = input;
+            this.output = output;
+            this.lines = commandHandler == null ? 0 : commandHandler.getLine();
+            this.commands = commandHandler == null ? 0 : commandHandler.getStats().getTotal();
+            this.nanos = nanos;
+            this.failure = failure;
+        }
+
+        public Path getInput() {
+            return input;
+        }
+
+        public Path getOutput() {
+            return output;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getCommands() {
+            return commands;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return why replay stopped, null if whole file was replayed
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: lines=%d, commands=%d, time=%d ms%s", input.getFileName(), lines, commands,
+                    nanos / 1_000_000, failure == null ? "" : ", failed: " + failure.getMessage());
+        }
+    }
+
+    /**
+     * Results of all files and aggregated throughput.
+     */
+    public static final class Report {
+
+        private final List<FileResult> results;
+
+        private final long wallNanos;
+
+        Report(final List<FileResult> results, final long wallNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.wallNanos = wallNanos;
+        }
+
+        /**
+         * @return results in input order
+         */
+        public List<FileResult> getResults() {
+            return results;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getFailures() {
+            return results.stream().filter(result -> result.getFailure() != null).count();
+        }
+
+        public long getCommands() {
+            return results.stream().mapToLong(FileResult::getCommands).sum();
+        }
+
+        /**
+         * @return commands per second of wall time
+         */
+        public long getThroughput() {
+            return wallNanos == 0 ? 0 : (long) (getCommands() * 1e9 / wallNanos);
+        }
+
+        @Override
+        public String toString() {
+            final long busyNanos = results.stream().mapToLong(FileResult::getNanos).sum();
+            final StringBuilder result = new StringBuilder();
+            results.forEach(file -> result.append(file).append(System.lineSeparator()));
+            return result.append(String.format("files=%d, failed=%d, lines=%d, commands=%d, wall time=%d ms, "
+                    + "throughput=%d commands/s, average concurrency=%.2f",
+                    results.size(), getFailures(), results.stream().mapToLong(FileResult::getLines).sum(),
+                    getCommands(), wallNanos / 1_000_000, getThroughput(),
+                    wallNanos == 0 ? 0 : (double) busyNanos / wallNanos)).toString();
+        }
+    }
+
+}
@@ -0,0 +1,282 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.Command;
+import com.juniorproject.orderbook.entity.CommandType;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.OrderType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed-width binary form of input commands, decoded without any text parsing.
+ * <p>
+ * Every command takes {@link #RECORD_BYTES} bytes, numbers are big endian: <br>
+ * opcode (byte), argument (byte), 2 spare bytes, price (int), size (int), 4 spare bytes, order id (long)
+ * </p>
+ * Argument is side of <code>u</code> and of liquidity queries (0 bid, 1 ask, 2 spread),
+ * execution mode of market orders (0 none, 1 fok, 2 ioc) or side of limit order (0 buy, 1 sell).
+ * Depth query keeps number of levels in size, sweep price query keeps quantity in size.
+ * Zero opcode marks empty record. Snapshot command has a path and can not be encoded.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public final class BinaryCommandCodec {
+
+    public static final int RECORD_BYTES = 24;
+
+    private static Logger log = LoggerFactory.getLogger(BinaryCommandCodec.class.getName());
+
+    private static final byte UPDATE = 1;
+
+    private static final byte BUY = 2;
+
+    private static final byte SELL = 3;
+
+    private static final byte LIMIT = 4;
+
+    private static final byte CANCEL = 5;
+
+    private static final byte MODIFY = 6;
+
+    private static final byte BEST_BID = 7;
+
+    private static final byte BEST_ASK = 8;
+
+    private static final byte SIZE = 9;
+
+    private static final byte DEPTH = 10;
+
+    private static final byte CUMULATIVE_SIZE = 11;
+
+    private static final byte SWEEP_PRICE = 12;
+
+    private static final int PRICE_OFFSET = 4;
+
+    private static final int SIZE_OFFSET = 8;
+
+    private static final int ORDER_ID_OFFSET = 16;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private BinaryCommandCodec() {
+    }
+
+    /**
+     * @return true if command of *type* changes the book
+     */
+    public static boolean changesBook(final CommandType type) {
+        switch (type) {
+        case UPDATE:
+        case BUY:
+        case SELL:
+        case LIMIT:
+        case CANCEL:
+        case MODIFY:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Writes *command* at *position* of *buffer*, absolute positions are used
+     * so buffer position and limit are not changed.
+     * @throws IllegalArgumentException if command can not be encoded
+     */
+    public static void encode(final Command command, final ByteBuffer buffer, final int position) {
+        final byte opcode = opcode(command.getType());
+        buffer.put(position + 1, argument(command));
+        buffer.put(position + 2, (byte) 0);
+        buffer.put(position + 3, (byte) 0);
+        buffer.putInt(position + PRICE_OFFSET, command.getPrice());
+        buffer.putInt(position + SIZE_OFFSET, command.getSize());
+        buffer.putInt(position + SIZE_OFFSET + Integer.BYTES, 0);
+        buffer.putLong(position + ORDER_ID_OFFSET, command.getOrderId());
+        // opcode goes last, so reader of shared memory never sees half written record as complete
+        buffer.put(position, opcode);
+    }
+
+    /**
+     * Fills *command* from record at *position* of *buffer*, buffer position and limit are not changed.
+     * @return false if record is empty
+     * @throws IllegalArgumentException if opcode is unknown
+     */
+    public static boolean decode(final ByteBuffer buffer, final int position, final Command command) {
+        final byte opcode = buffer.get(position);
+        if (opcode == 0) {
+            return false;
+        }
+        final byte argument = buffer.get(position + 1);
+        command.setPrice(buffer.getInt(position + PRICE_OFFSET));
+        command.setSize(buffer.getInt(position + SIZE_OFFSET));
+        command.setOrderId(buffer.getLong(position + ORDER_ID_OFFSET));
+        command.setExecutionMode(null);
+        switch (opcode) {
+        case UPDATE:
+            command.setType(CommandType.UPDATE);
+            command.setEntryType(entryType(argument));
+            break;
+        case BUY:
+        case SELL:
+            command.setType(opcode == BUY ? CommandType.BUY : CommandType.SELL);
+            command.setExecutionMode(executionMode(argument));
+            break;
+        case LIMIT:
+            command.setType(CommandType.LIMIT);
+            command.setOrderType(argument == 0 ? OrderType.BUY : OrderType.SELL);
+            break;
+        case CANCEL:
+            command.setType(CommandType.CANCEL);
+            break;
+        case MODIFY:
+            command.setType(CommandType.MODIFY);
+            break;
+        case BEST_BID:
+            command.setType(CommandType.BEST_BID);
+            break;
+        case BEST_ASK:
+            command.setType(CommandType.BEST_ASK);
+            break;
+        case SIZE:
+            command.setType(CommandType.SIZE);
+            break;
+        case DEPTH:
+            command.setType(CommandType.DEPTH);
+            break;
+        case CUMULATIVE_SIZE:
+            command.setType(CommandType.CUMULATIVE_SIZE);
+            command.setEntryType(entryType(argument));
+            break;
+        case SWEEP_PRICE:
+            command.setType(CommandType.SWEEP_PRICE);
+            command.setEntryType(entryType(argument));
+            break;
+        default:
+            throw new IllegalArgumentException(String.format("unknown opcode %s at %s", opcode, position));
+        }
+        return true;
+    }
+
+    /**
+     * Converts text commands of *input* into binary records of *output*,
+     * empty lines and lines with unknown commands are dropped.
+     * @return number of records written
+     * @throws IOException if files can not be read or written
+     * @throws IllegalArgumentException if command is malformed or can not be encoded
+     */
+    public static long convert(final Path input, final Path output) throws IOException {
+        final CommandParser parser = new CommandParser();
+        final Command command = new Command();
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE - BUFFER_SIZE % RECORD_BYTES);
+        final long[] records = new long[1];
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final IOException[] failure = new IOException[1];
+            new MappedFileReader().read(input, (bytes, from, to) -> {
+                if (failure[0] != null || !parser.parse(bytes, from, to, command)) {
+                    return;
+                }
+                if (buffer.remaining() < RECORD_BYTES) {
+                    try {
+                        drain(channel, buffer);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                        return;
+                    }
+                }
+                encode(command, buffer, buffer.position());
+                buffer.position(buffer.position() + RECORD_BYTES);
+                records[0]++;
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            drain(channel, buffer);
+        }
+        log.info("{} commands of {} converted into {}", records[0], input, output);
+        return records[0];
+    }
+
+    private static void drain(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte opcode(final CommandType type) {
+        switch (type) {
+        case UPDATE:
+            return UPDATE;
+        case BUY:
+            return BUY;
+        case SELL:
+            return SELL;
+        case LIMIT:
+            return LIMIT;
+        case CANCEL:
+            return CANCEL;
+        case MODIFY:
+            return MODIFY;
+        case BEST_BID:
+            return BEST_BID;
+        case BEST_ASK:
+            return BEST_ASK;
+        case SIZE:
+            return SIZE;
+        case DEPTH:
+            return DEPTH;
+        case CUMULATIVE_SIZE:
+            return CUMULATIVE_SIZE;
+        case SWEEP_PRICE:
+            return SWEEP_PRICE;
+        default:
+            throw new IllegalArgumentException("command can not be encoded: " + type);
+        }
+    }
+
+    private static byte argument(final Command command) {
+        switch (command.getType()) {
+        case UPDATE:
+        case CUMULATIVE_SIZE:
+        case SWEEP_PRICE:
+            if (command.getEntryType() == EntryType.BID) {
+                return 0;
+            }
+            return (byte) (command.getEntryType() == EntryType.ASK ? 1 : 2);
+        case BUY:
+        case SELL:
+            if (command.getExecutionMode() == null) {
+                return 0;
+            }
+            return (byte) (command.getExecutionMode() == ExecutionMode.FILL_OR_KILL ? 1 : 2);
+        case LIMIT:
+            return (byte) (command.getOrderType() == OrderType.BUY ? 0 : 1);
+        default:
+            return 0;
+        }
+    }
+
+    private static EntryType entryType(final byte argument) {
+        if (argument == 0) {
+            return EntryType.BID;
+        }
+        return argument == 1 ? EntryType.ASK : EntryType.SPREAD;
+    }
+
+    private static ExecutionMode executionMode(final byte argument) {
+        if (argument == 0) {
+            return null;
+        }
+        return argument == 1 ? ExecutionMode.FILL_OR_KILL : ExecutionMode.IMMEDIATE_OR_CANCEL;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.juniorproject.orderbook.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives lines of ASCII input as byte ranges.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+@FunctionalInterface
+public interface ByteLineHandler {
+
+    /**
+     * @param buffer - bytes of input, position and limit must not be changed
+     * @param from - index of first byte of line
+     * @param to - index after last byte of line, line separator excluded
+     */
+    void handle(ByteBuffer buffer, int from, int to);
+
+}
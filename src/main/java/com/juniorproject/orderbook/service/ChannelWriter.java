@@ -0,0 +1,159 @@
+package com.juniorproject.orderbook.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MyWriter variant that formats numbers straight into direct ByteBuffer
+ * and writes it to channel in big blocks, according to {@link FlushPolicy}.
+ * Output is ASCII, nothing is logged per record.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class ChannelWriter extends MyWriter implements Closeable {
+
+    private static Logger log = LoggerFactory.getLogger(ChannelWriter.class.getName());
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /** two ints with signs, delimiter and line separator. */
+    private static final int MAX_RECORD_SIZE = 32;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+
+    private final FlushPolicy flushPolicy;
+
+    private final int threshold;
+
+    private final ByteBuffer buffer;
+
+    private int records;
+
+    /**
+     * @param channel - output channel, closed by {@link #close()}
+     * @param flushPolicy - when buffer is written to channel
+     * @param threshold - buffer size in bytes for SIZE policy,
+     *                    number of records for COMMANDS policy, ignored for END_OF_INPUT
+     */
+    public ChannelWriter(final WritableByteChannel channel, final FlushPolicy flushPolicy, final int threshold) {
+        if (flushPolicy != FlushPolicy.END_OF_INPUT && threshold <= 0) {
+            throw new IllegalArgumentException("flush threshold must be positive: " + threshold);
+        }
+        this.channel = channel;
+        this.flushPolicy = flushPolicy;
+        this.threshold = threshold;
+        final int bufferSize = flushPolicy == FlushPolicy.SIZE
+                ? Math.max(threshold, MAX_RECORD_SIZE) : DEFAULT_BUFFER_SIZE;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    public void write(final String output) {
+        for (int i = 0; i < output.length(); i++) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            final char c = output.charAt(i);
+            buffer.put(c < 128 ? (byte) c : (byte) '?');
+        }
+        recordWritten();
+    }
+
+    @Override
+    public void write(final int value) {
+        ensureRecordFits();
+        Ascii.putInt(buffer, value);
+        buffer.put(LINE_SEPARATOR);
+        recordWritten();
+    }
+
+    @Override
+    public void write(final long value) {
+        ensureRecordFits();
+        Ascii.putLong(buffer, value);
+        buffer.put(LINE_SEPARATOR);
+        recordWritten();
+    }
+
+    @Override
+    public void write(final int first, final int second) {
+        ensureRecordFits();
+        Ascii.putInt(buffer, first);
+        buffer.put((byte) ',');
+        Ascii.putInt(buffer, second);
+        buffer.put(LINE_SEPARATOR);
+        recordWritten();
+    }
+
+    @Override
+    public void write(final int[] values, final int from, final int count) {
+        for (int i = 0; i < count; i++) {
+            ensureRecordFits();
+            if (i != 0) {
+                buffer.put((byte) ',');
+            }
+            Ascii.putInt(buffer, values[from + i]);
+        }
+        ensureRecordFits();
+        buffer.put(LINE_SEPARATOR);
+        recordWritten();
+    }
+
+    /**
+     * Writes everything buffered to channel.
+     */
+    @Override
+    public void flush() {
+        buffer.flip();
+        if (log.isDebugEnabled()) {
+            log.debug("flushing {} bytes, {} records", buffer.remaining(), records);
+        }
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            log.error("Error, writing to file", e);
+            throw new MyWriterException("Error, writing to file", e);
+        } finally {
+            buffer.clear();
+        }
+        records = 0;
+    }
+
+    /**
+     * Flushes rest of output and closes channel.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureRecordFits() {
+        if (buffer.remaining() < MAX_RECORD_SIZE) {
+            flush();
+        }
+    }
+
+    private void recordWritten() {
+        records++;
+        if (flushPolicy == FlushPolicy.COMMANDS && records >= threshold) {
+            flush();
+        } else if (flushPolicy == FlushPolicy.SIZE && buffer.remaining() < MAX_RECORD_SIZE) {
+            flush();
+        }
+    }
+
+}
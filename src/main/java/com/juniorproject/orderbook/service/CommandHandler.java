@@ -1,15 +1,28 @@
 package com.juniorproject.orderbook.service;
 
-import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.QuietMode;
+import com.juniorproject.orderbook.entity.Command;
 import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.FillStatus;
+import com.juniorproject.orderbook.entity.OrderType;
+import com.juniorproject.orderbook.repository.BookSnapshot;
+import com.juniorproject.orderbook.repository.BookException;
+import com.juniorproject.orderbook.repository.DeltaOrderBook;
+import com.juniorproject.orderbook.repository.LimitOrderBook;
 import com.juniorproject.orderbook.repository.OrderBook;
-import java.util.regex.Pattern;
+import com.juniorproject.orderbook.repository.TopOfBookPublisher;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Parses strings and executes commands.
- * Calls OrderBook and  writes output to MyWriter.
+ * Every input form is parsed by {@link CommandParser} or {@link BinaryCommandCodec} into {@link Command},
+ * which is applied to OrderBook and whose results are written to MyWriter.
  * 
  * @author Slava Shishkanu
  *
@@ -17,9 +30,8 @@ import org.slf4j.LoggerFactory;
 
 public class CommandHandler {
     
-    private static final String TWO_COMMA_SEPARATED_VALUES_PATTERN = "%d,%d%n";
-
-    private static final String DELIMETER = ",";
+    /** biggest number of levels per side for depth query. */
+    private static final int MAX_DEPTH = 1 << 16;
     
     private static Logger log = LoggerFactory.getLogger(CommandHandler.class.getName());
 
@@ -27,7 +39,26 @@ public class CommandHandler {
 
     private MyWriter myWriter;
 
-    private Pattern pattern = Pattern.compile(DELIMETER);
+    private final CommandParser parser = new CommandParser();
+
+    private final Command command = new Command();
+
+    private final FillResult fill = new FillResult();
+
+    private final CommandStats stats;
+
+    /** number of input lines handled, including empty and unknown ones. */
+    private long line;
+
+    private CommandJournal journal;
+
+    private DeltaOrderBook deltaBook;
+
+    private int deltaBatch;
+
+    private int commandsSinceDeltas;
+
+    private TopOfBookPublisher publisher;
 
     /**
      * @param book - OrderBook implementation
@@ -36,6 +67,75 @@ public class CommandHandler {
     public CommandHandler(final OrderBook book, final MyWriter myWriter) {
         this.book = book;
         this.myWriter = myWriter;
+        this.stats = new CommandStats(book);
+    }
+
+    /**
+     * @return number of input lines handled so far
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Sets number of input lines already applied to the book, like after restoring it from snapshot.
+     */
+    public void setLine(final long line) {
+        this.line = line;
+    }
+
+    /**
+     * Commands that change the book are appended to *journal* before they are applied.
+     * @param journal - write-ahead journal, null turns journaling off
+     */
+    public void setJournal(final CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Flushes market data deltas of *deltaBook* every *batch* applied commands.
+     * @param deltaBook - decorator somewhere below the book of this handler, null turns flushing off
+     * @param batch - number of commands whose changes are coalesced into one batch of deltas
+     */
+    public void setDeltas(final DeltaOrderBook deltaBook, final int batch) {
+        if (batch <= 0) {
+            throw new IllegalArgumentException("delta batch must be positive: " + batch);
+        }
+        this.deltaBook = deltaBook;
+        this.deltaBatch = batch;
+        this.commandsSinceDeltas = 0;
+    }
+
+    /**
+     * @param publisher - publisher of a {@link com.juniorproject.orderbook.repository.PublishingOrderBook}
+     * somewhere below the book of this handler, null if top of book is not published
+     */
+    public void setPublisher(final TopOfBookPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * @return where reader threads get top of book while commands are handled, null if it is not published
+     */
+    public TopOfBookPublisher getPublisher() {
+        return publisher;
+    }
+
+    /**
+     * Delivers deltas of commands applied since previous batch, like at the end of input.
+     */
+    public void flushDeltas() {
+        if (deltaBook != null) {
+            deltaBook.flush();
+            commandsSinceDeltas = 0;
+        }
+    }
+
+    /**
+     * @return counters of handled commands
+     */
+    public CommandStats getStats() {
+        return stats;
     }
 
     /**
@@ -44,86 +144,319 @@ public class CommandHandler {
      * <p>
      * <code> u,*price*,*size*,bid  </code> - set bid size at *price* to *size* <br>
      * <code> u,*price*,*size*,ask  </code> - set ask size at *price* to *size* <br>
+     * <code> u,*price*,*size*,spread </code> - remove bid and ask levels at *price*, set spread size to *size* <br>
      * <code> q,best_bid              </code> - print best bid price and size     <br>
      * <code> q,best_ask              </code> - print best ask price and size     <br>
      * <code> q,size,*price*          </code> - print size at specified price     <br>
+     * <code> q,cum_size,bid|ask,*price* </code> - print how much can be sold down to / bought up to *price* <br>
+     * <code> q,sweep_price,bid|ask,*size* </code> - print price of the last level touched by selling / buying
+     * *size* shares, zero if there are not enough <br>
+     * <code> q,depth,*levels*        </code> - print price,size pairs of best *levels* bid levels,
+     * then of best *levels* ask levels on the next line <br>
      * <code> o,buy,*size*            </code> - remove *size* shares out of asks, most cheap ones
      * <br>
      * <code> o,sell,*size*          </code> -removes *size* shares out of bids, most expensive ones.
+     * <br>
+     * <code> o,buy|sell,*size*,fok  </code> - fill-or-kill order, book is untouched if it can not be filled
+     * <br>
+     * <code> o,buy|sell,*size*,ioc  </code> - immediate-or-cancel order, part that can not be filled is dropped
+     * <br>
+     * <code> l,*id*,buy|sell,*price*,*size* </code> - limit order, crossing part is filled right away,
+     * the rest waits behind earlier orders of the same price <br>
+     * <code> c,*id*                  </code> - cancel limit order <br>
+     * <code> m,*id*,*price*,*size*   </code> - modify limit order, size decrease at the same price keeps priority
+     * <br>
+     * <code> s,*file*                </code> - write snapshot of the book and number of handled lines to *file*
      * </p>
      * @param command
      */
     public void handle(final String command) {
-        log.info("received string:{}", command);
-        final String[] splittedCommand = pattern.split(command.strip());
-        final String commandAlias = splittedCommand[0];
-        if ("u".equals(commandAlias)) {
-            update(splittedCommand);
-            return;
+        handle(command, 0, command.length());
+    }
+
+    /**
+     * Allocation free version of {@link #handle(String)}.
+     * Parses command out of chars between *from* (inclusive) and *to* (exclusive)
+     * and calls primitive OrderBook methods.
+     * @param line - chars of input
+     * @param from - index of first char of command
+     * @param to - index after last char of command
+     */
+    public void handle(final CharSequence line, final int from, final int to) {
+        this.line++;
+        final boolean parsed;
+        try {
+            parsed = parser.parse(line, from, to, command);
+        } catch (RuntimeException e) {
+            stats.commandFailed();
+            throw e;
         }
+        if (parsed) {
+            command.setLine(this.line);
+            execute(command);
+        }
+    }
 
-        if ("q".equals(commandAlias)) {
-            query(splittedCommand);
-            return;
+    /**
+     * Allocation free version of {@link #handle(String)} for ASCII input.
+     * Parses command out of bytes between *from* (inclusive) and *to* (exclusive),
+     * buffer position and limit are not changed.
+     * @param buffer - bytes of input
+     * @param from - index of first byte of command
+     * @param to - index after last byte of command
+     */
+    public void handle(final ByteBuffer buffer, final int from, final int to) {
+        line++;
+        final boolean parsed;
+        try {
+            parsed = parser.parse(buffer, from, to, command);
+        } catch (RuntimeException e) {
+            stats.commandFailed();
+            throw e;
+        }
+        if (parsed) {
+            command.setLine(line);
+            execute(command);
         }
+    }
 
-        if ("o".equals(commandAlias)) {
-            order(splittedCommand);
+    /**
+     * Binary counterpart of {@link #handle(ByteBuffer, int, int)}, decodes {@link BinaryCommandCodec} record
+     * without any text parsing, buffer position and limit are not changed.
+     * @param buffer - records of input
+     * @param from - index of first byte of record
+     * @param to - index after last byte of record
+     */
+    public void handleBinary(final ByteBuffer buffer, final int from, final int to) {
+        line++;
+        final boolean decoded;
+        try {
+            decoded = BinaryCommandCodec.decode(buffer, from, command);
+        } catch (RuntimeException e) {
+            stats.commandFailed();
+            throw e;
         }
+        if (decoded) {
+            command.setLine(line);
+            execute(command);
+        }
+    }
 
+    /**
+     * Executes already parsed command.
+     * @param parsedCommand
+     */
+    public void execute(final Command parsedCommand) {
+        apply(parsedCommand);
+        writeResult(parsedCommand);
     }
 
-    private void order(final String[] splittedCommand) {
-        final int size = Integer.parseInt(splittedCommand[2]);
-        if (splittedCommand[1].equals("buy")) {
-            log.info("order, buy {} shares", size);
-            book.orderBuy(size);
-            return;
+    /**
+     * Applies parsed command to OrderBook, query results are stored in command
+     * and written later by {@link #writeResult(Command)}.
+     * @param parsedCommand
+     */
+    public void apply(final Command parsedCommand) {
+        if (!QuietMode.ENABLED && log.isInfoEnabled()) {
+            log.info("received command:{}", parsedCommand);
         }
-        if (splittedCommand[1].equals("sell")) {
-            log.info("order, sell {} shares", size);
-            book.orderSell(size);
+        final long start = stats.isLatencyRecorded() ? System.nanoTime() : 0;
+        try {
+            if (journal != null) {
+                journal.append(parsedCommand);
+            }
+            applyToBook(parsedCommand);
+        } catch (RuntimeException e) {
+            stats.commandFailed();
+            throw e;
         }
+        stats.commandTimed(parsedCommand.getType(), start);
+        stats.commandHandled(parsedCommand.getType());
+        if (deltaBook != null && ++commandsSinceDeltas == deltaBatch) {
+            flushDeltas();
+        }
+    }
 
+    /**
+     * Writes query results of applied command, does nothing for other commands.
+     * @param appliedCommand
+     */
+    public void writeResult(final Command appliedCommand) {
+        switch (appliedCommand.getType()) {
+        case BEST_BID:
+        case BEST_ASK:
+            myWriter.write(appliedCommand.getResultPrice(), appliedCommand.getResultSize());
+            break;
+        case SIZE:
+            myWriter.write(appliedCommand.getResultSize());
+            break;
+        case CUMULATIVE_SIZE:
+            myWriter.write(appliedCommand.getResultTotal());
+            break;
+        case SWEEP_PRICE:
+            myWriter.write(appliedCommand.getResultPrice());
+            break;
+        case DEPTH:
+            final int[] depth = appliedCommand.getDepth();
+            myWriter.write(depth, 0, 2 * appliedCommand.getBidLevels());
+            myWriter.write(depth, 2 * appliedCommand.getBidLevels(), 2 * appliedCommand.getAskLevels());
+            break;
+        default:
+            break;
+        }
     }
 
-    private void query(final String[] splittedCommand) {
-        BookEntry bookEntry;
-        if (splittedCommand[1].equals("best_bid")) {
-            log.info("query, get best bid");
-            bookEntry = book.bestBid();
-            bookEntry.getPrice();
-            bookEntry.getSize();
-            myWriter.write(String.format(TWO_COMMA_SEPARATED_VALUES_PATTERN,
-                    bookEntry.getPrice(), bookEntry.getSize()));
-            return;
+    /**
+     * @return true if command produces output
+     */
+    public static boolean hasResult(final Command command) {
+        switch (command.getType()) {
+        case BEST_BID:
+        case BEST_ASK:
+        case SIZE:
+        case CUMULATIVE_SIZE:
+        case SWEEP_PRICE:
+        case DEPTH:
+            return true;
+        default:
+            return false;
         }
-        if (splittedCommand[1].equals("best_ask")) {
-            log.info("query, get best ask%");
-            bookEntry = book.bestAsk();
+    }
 
-            myWriter.write(String.format(TWO_COMMA_SEPARATED_VALUES_PATTERN,
-                    bookEntry.getPrice(), bookEntry.getSize()));
+    private void applyToBook(final Command parsedCommand) {
+        switch (parsedCommand.getType()) {
+        case UPDATE:
+            book.update(parsedCommand.getPrice(), parsedCommand.getSize(), parsedCommand.getEntryType());
+            break;
+        case BEST_BID:
+            parsedCommand.setResultPrice(book.bestBidPrice());
+            parsedCommand.setResultSize(book.bestBidSize());
+            break;
+        case BEST_ASK:
+            parsedCommand.setResultPrice(book.bestAskPrice());
+            parsedCommand.setResultSize(book.bestAskSize());
+            break;
+        case SIZE:
+            parsedCommand.setResultSize(book.getSizeByPrice(parsedCommand.getPrice()));
+            break;
+        case CUMULATIVE_SIZE:
+            parsedCommand.setResultTotal(
+                    book.getCumulativeSize(checkSide(parsedCommand.getEntryType()), parsedCommand.getPrice()));
+            break;
+        case SWEEP_PRICE:
+            parsedCommand.setResultPrice(
+                    book.getSweepPrice(checkSide(parsedCommand.getEntryType()), parsedCommand.getSize()));
+            break;
+        case DEPTH:
+            queryDepth(parsedCommand);
+            break;
+        case BUY:
+            if (parsedCommand.getExecutionMode() == null) {
+                book.orderBuy(parsedCommand.getSize());
+            } else {
+                parsedCommand.setFillStatus(
+                        marketOrder(OrderType.BUY, parsedCommand.getSize(), parsedCommand.getExecutionMode()));
+            }
+            break;
+        case SELL:
+            if (parsedCommand.getExecutionMode() == null) {
+                book.orderSell(parsedCommand.getSize());
+            } else {
+                parsedCommand.setFillStatus(
+                        marketOrder(OrderType.SELL, parsedCommand.getSize(), parsedCommand.getExecutionMode()));
+            }
+            break;
+        case LIMIT:
+            placeLimit(parsedCommand.getOrderId(), parsedCommand.getOrderType(), parsedCommand.getPrice(),
+                    parsedCommand.getSize());
+            break;
+        case CANCEL:
+            cancel(parsedCommand.getOrderId());
+            break;
+        case MODIFY:
+            modify(parsedCommand.getOrderId(), parsedCommand.getPrice(), parsedCommand.getSize());
+            break;
+        case SNAPSHOT:
+            snapshot(parsedCommand.getPath(), parsedCommand.getLine());
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static EntryType checkSide(final EntryType side) {
+        if (side != EntryType.BID && side != EntryType.ASK) {
+            throw new IllegalArgumentException("side must be bid or ask: " + side);
+        }
+        return side;
+    }
+
+    /**
+     * Copies best levels of both sides into depth buffer of command, asks right after bids.
+     */
+    private void queryDepth(final Command depthCommand) {
+        final int levels = depthCommand.getSize();
+        if (levels <= 0 || levels > MAX_DEPTH) {
+            throw new IllegalArgumentException(String.format("depth must be between 1 and %s: %s", MAX_DEPTH, levels));
+        }
+        final int[] depth = depthCommand.depthBuffer(levels);
+        final int bidLevels = book.getDepth(EntryType.BID, levels, depth, 0);
+        depthCommand.setBidLevels(bidLevels);
+        depthCommand.setAskLevels(book.getDepth(EntryType.ASK, levels, depth, 2 * bidLevels));
+    }
 
-            return;
+    /**
+     * Executes order that does not throw when it can not be filled and counts its outcome.
+     */
+    private FillStatus marketOrder(final OrderType type, final int size, final ExecutionMode mode) {
+        final FillStatus status = book.marketOrder(type, size, mode, fill);
+        if (!QuietMode.ENABLED) {
+            log.info("{} {} order {}, {}", mode, type, status, fill);
         }
-        if (splittedCommand[1].equals("size")) {
-            final int price = Integer.parseInt(splittedCommand[2]);
-            log.info("query, get size at price={}", price);
-            bookEntry = book.getEntryByPrice(price);
-            myWriter.write(String.format("%d%n", bookEntry.getSize()));
+        stats.orderExecuted(status);
+        return status;
+    }
+
+    private void placeLimit(final long id, final OrderType type, final int price, final int size) {
+        limitBook().placeLimit(id, type, price, size, fill);
+        if (!QuietMode.ENABLED) {
+            log.info("limit order {}, {} {} at {}, {}", id, type, size, price, fill);
         }
+    }
 
+    private void cancel(final long id) {
+        if (!limitBook().cancel(id) && !QuietMode.ENABLED) {
+            log.info("order {} not found, nothing to cancel", id);
+        }
     }
 
-    private void update(final String[] splittedCommand) {
-        final int price = Integer.parseInt(splittedCommand[1]);
-        final int size = Integer.parseInt(splittedCommand[2]);
-        final EntryType entryType = EntryType.valueOfByAlias(splittedCommand[3]);
+    private void modify(final long id, final int price, final int size) {
+        if (!limitBook().modify(id, price, size) && !QuietMode.ENABLED) {
+            log.info("order {} not found, nothing to modify", id);
+        }
+    }
 
-        final BookEntry bookEntry = new BookEntry(price, size, entryType);
-        log.info("update, new BookEntry={}", bookEntry);
-        book.update(bookEntry);
+    /**
+     * @return book of this handler, if it takes limit orders
+     * @throws BookException if the book has no limit orders
+     */
+    private LimitOrderBook limitBook() {
+        if (!(book instanceof LimitOrderBook)) {
+            throw new BookException("limit orders need " + LimitOrderBook.class.getSimpleName() + ", book is "
+                    + book.getClass().getSimpleName());
+        }
+        return (LimitOrderBook) book;
+    }
 
+    /**
+     * Writes book state, *handledLines* tells where to continue reading input after restore.
+     */
+    private void snapshot(final String path, final long handledLines) {
+        try {
+            BookSnapshot.write(book, handledLines, Paths.get(path));
+        } catch (IOException e) {
+            log.error("cannot write snapshot to {}", path, e);
+            throw new MyWriterException("cannot write snapshot to " + path, e);
+        }
     }
 }
@@ -0,0 +1,289 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.Command;
+import com.juniorproject.orderbook.repository.BookException;
+import com.juniorproject.orderbook.repository.OrderBook;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-ahead journal of commands that change the book.
+ *
+ * Every update, market order and limit order command is appended as fixed-width record of {@link #RECORD_BYTES}
+ * bytes into memory-mapped file, preallocated in segments of *segmentSize* bytes:
+ * command in {@link BinaryCommandCodec} form followed by its input line (long).
+ * Record with zero opcode marks the end of journal, so zeroed tail of preallocated segment needs no length field.
+ * Appending only copies bytes into page cache, which survives crash of the process;
+ * mapped pages are forced to disk once per *batchSize* records or *interval* nanoseconds,
+ * whichever comes first, so one fsync covers a whole group of commands.
+ * Interval commits are done by a timer thread, so records are forced in time even when input stalls
+ * and nothing is appended, and {@link #close()} forces whatever is left at the end of input.
+ *
+ * Append from one thread only, the thread that applies commands; commits may come from any thread.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class CommandJournal implements AutoCloseable {
+
+    public static final int RECORD_BYTES = BinaryCommandCodec.RECORD_BYTES + Long.BYTES;
+
+    private static Logger log = LoggerFactory.getLogger(CommandJournal.class.getName());
+
+    private static final int LINE_OFFSET = BinaryCommandCodec.RECORD_BYTES;
+
+    private final FileChannel channel;
+
+    private final long segmentSize;
+
+    private final int batchSize;
+
+    private final long intervalNanos;
+
+    /** published after previous segment is forced, so forcing it covers every appended record. */
+    private volatile MappedByteBuffer segment;
+
+    /** file position of current segment. */
+    private long segmentStart;
+
+    /** position of next record in current segment. */
+    private int position;
+
+    /** written by appending thread only. */
+    private volatile long records;
+
+    private volatile long committedRecords;
+
+    private volatile long commits;
+
+    /** forces records every *interval*, null if commits go by batch size only. */
+    private final Thread timer;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens journal for appending, new records go after records already in file.
+     * @param file - journal file, created if it does not exist
+     * @param segmentSize - bytes preallocated and mapped at once, multiple of {@link #RECORD_BYTES}
+     * @param batchSize - records per commit
+     * @param intervalNanos - longest time between commits, zero to commit by batch size only
+     * @throws IOException if file can not be opened or mapped
+     */
+    public CommandJournal(final Path file, final long segmentSize, final int batchSize, final long intervalNanos)
+            throws IOException {
+        if (segmentSize <= 0 || segmentSize % RECORD_BYTES != 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segment size must be positive multiple of " + RECORD_BYTES
+                    + ": " + segmentSize);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+        }
+        this.segmentSize = segmentSize;
+        this.batchSize = batchSize;
+        this.intervalNanos = intervalNanos;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        final long end = findEnd(channel);
+        segmentStart = end - end % segmentSize;
+        position = (int) (end - segmentStart);
+        segment = map(segmentStart);
+        records = end / RECORD_BYTES;
+        committedRecords = records;
+        if (intervalNanos > 0) {
+            timer = new Thread(this::commitOnTime, "journal-commit");
+            timer.setDaemon(true);
+            timer.start();
+        } else {
+            timer = null;
+        }
+        log.info("journal {} opened, {} records, commit every {} records", file, records, batchSize);
+    }
+
+    /**
+     * Appends record of *command* if it changes the book, commits if batch is full.
+     * @throws MyWriterException if journal can not grow
+     */
+    public void append(final Command command) {
+        if (!BinaryCommandCodec.changesBook(command.getType())) {
+            return;
+        }
+        if (position == segmentSize) {
+            nextSegment();
+        }
+        segment.putLong(position + LINE_OFFSET, command.getLine());
+        // opcode is written last, record becomes visible to recovery only when it is complete
+        BinaryCommandCodec.encode(command, segment, position);
+        position += RECORD_BYTES;
+        records++;
+        if (records - committedRecords >= batchSize) {
+            commit();
+        }
+    }
+
+    /**
+     * Forces appended records to disk.
+     */
+    public synchronized void commit() {
+        // records are read before segment, records of earlier segments were forced before it was published
+        final long appended = records;
+        if (appended == committedRecords) {
+            return;
+        }
+        segment.force();
+        committedRecords = appended;
+        commits++;
+    }
+
+    /**
+     * @return number of records in journal
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return number of forces done by this instance
+     */
+    public long getCommits() {
+        return commits;
+    }
+
+    /**
+     * Stops the timer, commits what is left and closes file.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (timer != null) {
+            LockSupport.unpark(timer);
+            try {
+                timer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        commit();
+        channel.close();
+        log.info("journal closed, {} records, {} commits", records, commits);
+    }
+
+    /**
+     * Applies journaled commands to book of *commandHandler*, commands of lines already handled by it
+     * (restored from snapshot) are skipped. Commands that failed when journaled, like orders
+     * the book had not enough shares for, fail the same way again and do not stop recovery.
+     * @param file - journal
+     * @param commandHandler - handler of the book to rebuild, its line is moved to the last journaled line
+     * @return number of records applied
+     * @throws IOException if file can not be read
+     */
+    public static long replay(final Path file, final CommandHandler commandHandler) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        final Command command = new Command();
+        long applied = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size() - channel.size() % RECORD_BYTES;
+            long start = 0;
+            while (start < size) {
+                final int length = (int) Math.min(size - start, Integer.MAX_VALUE / RECORD_BYTES * RECORD_BYTES);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                for (int i = 0; i < length; i += RECORD_BYTES) {
+                    if (!BinaryCommandCodec.decode(buffer, i, command)) {
+                        log.info("{} journaled commands replayed from {}", applied, file);
+                        return applied;
+                    }
+                    command.setLine(buffer.getLong(i + LINE_OFFSET));
+                    if (command.getLine() > commandHandler.getLine()) {
+                        apply(commandHandler, command);
+                        commandHandler.setLine(command.getLine());
+                        applied++;
+                    }
+                }
+                start += length;
+            }
+        }
+        log.info("{} journaled commands replayed from {}", applied, file);
+        return applied;
+    }
+
+    /**
+     * Rebuilds *book* from journal, nothing is written anywhere.
+     * @return number of records applied
+     */
+    public static long replay(final Path file, final OrderBook book)
+            throws IOException {
+        return replay(file, new CommandHandler(book, new MyWriter(Writer.nullWriter())));
+    }
+
+    private static void apply(final CommandHandler commandHandler, final Command command) {
+        try {
+            commandHandler.apply(command);
+        } catch (BookException e) {
+            log.debug("journaled command {} failed again", command, e);
+        }
+    }
+
+    private void commitOnTime() {
+        while (!closed) {
+            LockSupport.parkNanos(this, intervalNanos);
+            try {
+                commit();
+            } catch (RuntimeException e) {
+                log.error("timed journal commit failed", e);
+            }
+        }
+    }
+
+    private void nextSegment() {
+        commit();
+        segmentStart += segmentSize;
+        position = 0;
+        try {
+            segment = map(segmentStart);
+        } catch (IOException e) {
+            log.error("cannot grow journal to {} bytes", segmentStart + segmentSize, e);
+            throw new MyWriterException("cannot grow journal", e);
+        }
+        log.debug("journal grown to {} bytes", segmentStart + segmentSize);
+    }
+
+    /**
+     * Maps segment starting at *start*, file is extended with zeros if it is shorter.
+     */
+    private MappedByteBuffer map(final long start) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, start, segmentSize);
+    }
+
+    /**
+     * @return file position right after last record
+     */
+    private static long findEnd(final FileChannel channel) throws IOException {
+        final long size = channel.size() - channel.size() % RECORD_BYTES;
+        final ByteBuffer type = ByteBuffer.allocate(1);
+        long low = 0;
+        long high = size / RECORD_BYTES;
+        // records are written one after another, so the first empty slot can be found by binary search
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            type.clear();
+            channel.read(type, middle * RECORD_BYTES);
+            if (type.get(0) != 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low * RECORD_BYTES;
+    }
+
+}
@@ -0,0 +1,269 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.Command;
+import com.juniorproject.orderbook.entity.CommandType;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.OrderType;
+import java.nio.ByteBuffer;
+
+/**
+ * Hand-written scanner for input commands.
+ * Reads characters straight from CharSequence or from ASCII bytes of ByteBuffer
+ * and fills reusable {@link Command}, no Strings or arrays are created.
+ *
+ * Not thread safe, use one parser per thread.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class CommandParser {
+
+    private static final char DELIMETER = ',';
+
+    private CharSequence chars;
+
+    private ByteBuffer bytes;
+
+    private int position;
+
+    private int end;
+
+    /**
+     * Parses command out of chars between *from* (inclusive) and *to* (exclusive).
+     * @return false if line is empty or command is not recognized
+     */
+    public boolean parse(final CharSequence line, final int from, final int to, final Command command) {
+        chars = line;
+        bytes = null;
+        return parse(from, to, command);
+    }
+
+    /**
+     * Parses command out of ASCII bytes between *from* (inclusive) and *to* (exclusive),
+     * absolute positions are used so buffer position and limit are not changed.
+     * @return false if line is empty or command is not recognized
+     */
+    public boolean parse(final ByteBuffer buffer, final int from, final int to, final Command command) {
+        chars = null;
+        bytes = buffer;
+        return parse(from, to, command);
+    }
+
+    private boolean parse(final int from, final int to, final Command command) {
+        position = from;
+        end = to;
+        while (position < end && charAt(position) <= ' ') {
+            position++;
+        }
+        while (end > position && charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (position == end) {
+            return false;
+        }
+        final char alias = charAt(position);
+        if (position + 1 < end && charAt(position + 1) != DELIMETER) {
+            return false;
+        }
+        position += 2;
+        switch (alias) {
+        case 'u':
+            command.setType(CommandType.UPDATE);
+            command.setPrice(nextInt());
+            command.setSize(nextInt());
+            command.setEntryType(nextEntryType());
+            return true;
+        case 'q':
+            return parseQuery(command);
+        case 'o':
+            return parseOrder(command);
+        case 'l':
+            command.setType(CommandType.LIMIT);
+            command.setOrderId(nextLong());
+            command.setOrderType(nextOrderType());
+            command.setPrice(nextInt());
+            command.setSize(nextInt());
+            return true;
+        case 'c':
+            command.setType(CommandType.CANCEL);
+            command.setOrderId(nextLong());
+            return true;
+        case 's':
+            command.setType(CommandType.SNAPSHOT);
+            command.setPath(nextToken());
+            return true;
+        case 'm':
+            command.setType(CommandType.MODIFY);
+            command.setOrderId(nextLong());
+            command.setPrice(nextInt());
+            command.setSize(nextInt());
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private boolean parseQuery(final Command command) {
+        if (nextTokenIs("best_bid")) {
+            command.setType(CommandType.BEST_BID);
+            return true;
+        }
+        if (nextTokenIs("best_ask")) {
+            command.setType(CommandType.BEST_ASK);
+            return true;
+        }
+        if (nextTokenIs("size")) {
+            command.setType(CommandType.SIZE);
+            command.setPrice(nextInt());
+            return true;
+        }
+        if (nextTokenIs("cum_size")) {
+            command.setType(CommandType.CUMULATIVE_SIZE);
+            command.setEntryType(nextEntryType());
+            command.setPrice(nextInt());
+            return true;
+        }
+        if (nextTokenIs("sweep_price")) {
+            command.setType(CommandType.SWEEP_PRICE);
+            command.setEntryType(nextEntryType());
+            command.setSize(nextInt());
+            return true;
+        }
+        if (nextTokenIs("depth")) {
+            command.setType(CommandType.DEPTH);
+            command.setSize(nextInt());
+            return true;
+        }
+        return false;
+    }
+
+    private boolean parseOrder(final Command command) {
+        if (nextTokenIs("buy")) {
+            command.setType(CommandType.BUY);
+        } else if (nextTokenIs("sell")) {
+            command.setType(CommandType.SELL);
+        } else {
+            return false;
+        }
+        command.setSize(nextInt());
+        command.setExecutionMode(position < end ? nextExecutionMode() : null);
+        return true;
+    }
+
+    private ExecutionMode nextExecutionMode() {
+        if (nextTokenIs("fok")) {
+            return ExecutionMode.FILL_OR_KILL;
+        }
+        if (nextTokenIs("ioc")) {
+            return ExecutionMode.IMMEDIATE_OR_CANCEL;
+        }
+        return ExecutionMode.valueOfByAlias(nextToken());
+    }
+
+    private OrderType nextOrderType() {
+        if (nextTokenIs("buy")) {
+            return OrderType.BUY;
+        }
+        if (nextTokenIs("sell")) {
+            return OrderType.SELL;
+        }
+        throw new IllegalArgumentException("order side must be buy or sell: " + nextToken());
+    }
+
+    private EntryType nextEntryType() {
+        if (nextTokenIs("bid")) {
+            return EntryType.BID;
+        }
+        if (nextTokenIs("ask")) {
+            return EntryType.ASK;
+        }
+        if (nextTokenIs("spread")) {
+            return EntryType.SPREAD;
+        }
+        return EntryType.valueOfByAlias(nextToken());
+    }
+
+    /**
+     * Consumes next field if it is equal to *token*.
+     */
+    private boolean nextTokenIs(final String token) {
+        final int tokenEnd = tokenEnd();
+        if (tokenEnd - position != token.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (charAt(position + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        position = tokenEnd + 1;
+        return true;
+    }
+
+    /**
+     * Consumes next field and returns it as String, used only for rare commands and to report errors.
+     */
+    private String nextToken() {
+        final int tokenEnd = tokenEnd();
+        final StringBuilder token = new StringBuilder();
+        for (int i = position; i < tokenEnd; i++) {
+            token.append(charAt(i));
+        }
+        position = tokenEnd + 1;
+        return token.toString();
+    }
+
+    private int nextInt() {
+        return (int) nextNumber(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private long nextLong() {
+        return nextNumber(-Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Consumes next field as decimal number between *min* and *max*.
+     */
+    private long nextNumber(final long min, final long max) {
+        final int tokenEnd = tokenEnd();
+        int i = position;
+        final boolean negative = i < tokenEnd && charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == tokenEnd) {
+            throw new NumberFormatException("For input string: \"" + nextToken() + "\"");
+        }
+        long value = 0;
+        for (; i < tokenEnd; i++) {
+            final int digit = charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                throw new NumberFormatException("For input string: \"" + nextToken() + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < min || value > max) {
+            throw new NumberFormatException("For input string: \"" + nextToken() + "\"");
+        }
+        position = tokenEnd + 1;
+        return value;
+    }
+
+    private int tokenEnd() {
+        int i = position;
+        while (i < end && charAt(i) != DELIMETER) {
+            i++;
+        }
+        return i;
+    }
+
+    private char charAt(final int index) {
+        if (bytes != null) {
+            return (char) (bytes.get(index) & 0xff);
+        }
+        return chars.charAt(index);
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.Command;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs command handling as three stages on three threads:
+ * <p>
+ * decoding - caller thread maps input file and parses lines into slots of first ring <br>
+ * matching - applies commands to OrderBook, passes query results into slots of second ring <br>
+ * writing - formats query results and writes them through MyWriter
+ * </p>
+ * Stages are connected by {@link SpscRingBuffer}s of preallocated {@link Command}s,
+ * so steady state processing does not allocate.
+ * Every stage counts its busy time, see {@link #getStageNanos(int)}.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class CommandPipeline {
+
+    public static final int DECODING = 0;
+
+    public static final int MATCHING = 1;
+
+    public static final int WRITING = 2;
+
+    private static final String[] STAGE_NAMES = {"decoding", "matching", "writing"};
+
+    private static Logger log = LoggerFactory.getLogger(CommandPipeline.class.getName());
+
+    private final CommandHandler commandHandler;
+
+    private final MappedFileReader reader;
+
+    private final SpscRingBuffer<Command> commands;
+
+    private final SpscRingBuffer<Command> results;
+
+    private final CommandParser parser = new CommandParser();
+
+    private final long[] stageNanos = new long[STAGE_NAMES.length];
+
+    private final long[] stageItems = new long[STAGE_NAMES.length];
+
+    /** number of input lines decoded, including empty and skipped ones. */
+    private long decodedLines;
+
+    private long totalLatencyNanos;
+
+    private long maxLatencyNanos;
+
+    private volatile RuntimeException failure;
+
+    /**
+     * @param commandHandler - applies commands and writes results
+     * @param reader - reads input file
+     * @param ringSize - slots in each ring, power of two
+     */
+    public CommandPipeline(final CommandHandler commandHandler, final MappedFileReader reader, final int ringSize) {
+        this.commandHandler = commandHandler;
+        this.reader = reader;
+        this.commands = new SpscRingBuffer<>(ringSize, Command::new);
+        this.results = new SpscRingBuffer<>(ringSize, Command::new);
+    }
+
+    /**
+     * Handles all commands of input file, returns when last result is written.
+     * First {@link CommandHandler#getLine()} lines are skipped, they are already applied to the book.
+     * @param inputFile - ASCII input
+     * @return number of lines read
+     * @throws IOException if file can not be read
+     * @throws RuntimeException first failure of matching or writing stage
+     */
+    public long run(final Path inputFile) throws IOException {
+        final Thread matcher = new Thread(this::match, "pipeline-matching");
+        final Thread writer = new Thread(this::write, "pipeline-writing");
+        matcher.start();
+        writer.start();
+        long lines = 0;
+        decodedLines = commandHandler.getLine();
+        RuntimeException decodingFailure = null;
+        try {
+            lines = reader.read(inputFile, this::decode, decodedLines);
+        } catch (RuntimeException e) {
+            commands.halt();
+            results.halt();
+            decodingFailure = e;
+        } finally {
+            commands.close();
+            join(matcher);
+            join(writer);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (decodingFailure != null) {
+            throw decodingFailure;
+        }
+        commandHandler.setLine(decodedLines);
+        report();
+        return lines;
+    }
+
+    /**
+     * @param stage - {@link #DECODING}, {@link #MATCHING} or {@link #WRITING}
+     * @return nanoseconds stage spent handling commands
+     */
+    public long getStageNanos(final int stage) {
+        return stageNanos[stage];
+    }
+
+    /**
+     * @param stage - {@link #DECODING}, {@link #MATCHING} or {@link #WRITING}
+     * @return number of commands passed through stage
+     */
+    public long getStageItems(final int stage) {
+        return stageItems[stage];
+    }
+
+    private void decode(final ByteBuffer buffer, final int from, final int to) {
+        final long start = System.nanoTime();
+        decodedLines++;
+        final Command slot = commands.claim();
+        if (slot == null) {
+            throw new IllegalStateException("pipeline halted");
+        }
+        final boolean parsed;
+        try {
+            parsed = parser.parse(buffer, from, to, slot);
+        } catch (RuntimeException e) {
+            commandHandler.getStats().commandFailed();
+            throw e;
+        }
+        if (parsed) {
+            slot.setTimestamp(start);
+            slot.setLine(decodedLines);
+            commands.publish();
+            stageItems[DECODING]++;
+        }
+        stageNanos[DECODING] += System.nanoTime() - start;
+    }
+
+    private void match() {
+        try {
+            for (Command command = commands.take(); command != null; command = commands.take()) {
+                final long start = System.nanoTime();
+                commandHandler.apply(command);
+                if (CommandHandler.hasResult(command)) {
+                    final Command result = results.claim();
+                    if (result == null) {
+                        return;
+                    }
+                    result.copyFrom(command);
+                    results.publish();
+                }
+                commands.release();
+                stageItems[MATCHING]++;
+                stageNanos[MATCHING] += System.nanoTime() - start;
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        } finally {
+            results.close();
+        }
+    }
+
+    private void write() {
+        try {
+            for (Command result = results.take(); result != null; result = results.take()) {
+                final long start = System.nanoTime();
+                commandHandler.writeResult(result);
+                results.release();
+                final long end = System.nanoTime();
+                stageItems[WRITING]++;
+                stageNanos[WRITING] += end - start;
+                totalLatencyNanos += end - result.getTimestamp();
+                maxLatencyNanos = Math.max(maxLatencyNanos, end - result.getTimestamp());
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(final RuntimeException e) {
+        log.error("pipeline stage {} failed", Thread.currentThread().getName(), e);
+        if (failure == null) {
+            failure = e;
+        }
+        commands.halt();
+        results.halt();
+    }
+
+    private void join(final Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for " + thread.getName(), e);
+        }
+    }
+
+    private void report() {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+            log.info("{} stage: {} commands, {} ns per command", STAGE_NAMES[stage], stageItems[stage],
+                    stageItems[stage] == 0 ? 0 : stageNanos[stage] / stageItems[stage]);
+        }
+        log.info("read to written latency: {} ns average, {} ns max",
+                stageItems[WRITING] == 0 ? 0 : totalLatencyNanos / stageItems[WRITING], maxLatencyNanos);
+    }
+
+}
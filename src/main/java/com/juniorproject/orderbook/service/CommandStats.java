@@ -0,0 +1,198 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.CommandType;
+import com.juniorproject.orderbook.entity.FillStatus;
+import com.juniorproject.orderbook.entity.LatencyHistogram;
+import com.juniorproject.orderbook.repository.OrderBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregated counters of handled commands.
+ * Logged at DEBUG every *reportInterval* commands (system property orderbook.stats.interval)
+ * and at INFO by {@link #report()}.
+ * With system property orderbook.latency=true latency of every command type is recorded
+ * into {@link LatencyHistogram}, logged together with counters.
+ *
+ * Not thread safe, one instance per CommandHandler. Counters are plain fields and {@link #report()}
+ * asks the book for its live and dead levels, so getters, {@link #report()} and {@link #toString()}
+ * are called from the thread handling commands or after it has stopped (joined).
+ * Only latency histograms may be read from other threads while commands are handled.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class CommandStats {
+
+    private static Logger log = LoggerFactory.getLogger(CommandStats.class.getName());
+
+    private static final long DEFAULT_REPORT_INTERVAL = 1_000_000;
+
+    public static final String LATENCY_PROPERTY = "orderbook.latency";
+
+    private static final CommandType[] COMMAND_TYPES = CommandType.values();
+
+    private static final FillStatus[] FILL_STATUSES = FillStatus.values();
+
+    private final OrderBook book;
+
+    private final long reportInterval;
+
+    private final long[] commands = new long[COMMAND_TYPES.length];
+
+    private final long[] orders = new long[FILL_STATUSES.length];
+
+    /** null if latency is not recorded. */
+    private final LatencyHistogram[] latencies;
+
+    private long total;
+
+    private long failures;
+
+    /**
+     * @param book - book to take number of consumed levels from
+     */
+    public CommandStats(final OrderBook book) {
+        this(book, Long.getLong("orderbook.stats.interval", DEFAULT_REPORT_INTERVAL),
+                Boolean.getBoolean(LATENCY_PROPERTY));
+    }
+
+    /**
+     * @param book - book to take number of consumed levels from
+     * @param reportInterval - number of commands between DEBUG reports
+     */
+    public CommandStats(final OrderBook book, final long reportInterval) {
+        this(book, reportInterval, false);
+    }
+
+    /**
+     * @param book - book to take number of consumed levels from
+     * @param reportInterval - number of commands between DEBUG reports
+     * @param latency - true to record latency of every command type
+     */
+    public CommandStats(final OrderBook book, final long reportInterval, final boolean latency) {
+        if (reportInterval <= 0) {
+            throw new IllegalArgumentException("report interval must be positive: " + reportInterval);
+        }
+        this.book = book;
+        this.reportInterval = reportInterval;
+        if (latency) {
+            latencies = new LatencyHistogram[COMMAND_TYPES.length];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+        } else {
+            latencies = null;
+        }
+    }
+
+    public void commandHandled(final CommandType type) {
+        commands[type.ordinal()]++;
+        total++;
+        if (total % reportInterval == 0 && log.isDebugEnabled()) {
+            log.debug("{}", this);
+            logLatencies(true);
+        }
+    }
+
+    public boolean isLatencyRecorded() {
+        return latencies != null;
+    }
+
+    /**
+     * Records time since *startNanos* taken from {@link System#nanoTime()} as latency of command of *type*,
+     * does nothing if latency is not recorded.
+     */
+    public void commandTimed(final CommandType type, final long startNanos) {
+        if (latencies != null) {
+            latencies[type.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * @return latencies of commands of *type*, null if latency is not recorded
+     */
+    public LatencyHistogram getLatency(final CommandType type) {
+        return latencies == null ? null : latencies[type.ordinal()];
+    }
+
+    /**
+     * Counts outcome of fill-or-kill or immediate-or-cancel order.
+     */
+    public void orderExecuted(final FillStatus status) {
+        orders[status.ordinal()]++;
+    }
+
+    public long getOrders(final FillStatus status) {
+        return orders[status.ordinal()];
+    }
+
+    public void commandFailed() {
+        failures++;
+    }
+
+    public long getCommands(final CommandType type) {
+        return commands[type.ordinal()];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getLevelsConsumed() {
+        return book.getLevelsConsumed();
+    }
+
+    /**
+     * Logs counters at INFO.
+     */
+    public void report() {
+        if (log.isInfoEnabled()) {
+            log.info("{}", this);
+            logLatencies(false);
+        }
+    }
+
+    private void logLatencies(final boolean debug) {
+        if (latencies == null) {
+            return;
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            if (latencies[i].getCount() == 0) {
+                continue;
+            }
+            if (debug) {
+                log.debug("{} latency: {}", COMMAND_TYPES[i], latencies[i]);
+            } else {
+                log.info("{} latency: {}", COMMAND_TYPES[i], latencies[i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder("commands=").append(total).append(" [");
+        for (int i = 0; i < COMMAND_TYPES.length; i++) {
+            if (i != 0) {
+                result.append(", ");
+            }
+            result.append(COMMAND_TYPES[i]).append('=').append(commands[i]);
+        }
+        result.append("], orders [");
+        for (int i = 0; i < FILL_STATUSES.length; i++) {
+            if (i != 0) {
+                result.append(", ");
+            }
+            result.append(FILL_STATUSES[i]).append('=').append(orders[i]);
+        }
+        return result.append("], levels consumed=").append(getLevelsConsumed())
+                .append(", live levels=").append(book.getLiveLevels())
+                .append(", dead levels=").append(book.getDeadLevels())
+                .append(", failures=").append(failures).toString();
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.repository.BookDeltaListener;
+import com.juniorproject.orderbook.repository.BookDeltas;
+import java.io.IOException;
+import java.io.Writer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes batches of book deltas as text, one line per changed level and one for changed top of book:
+ * <p>
+ * <code> u,*price*,*size*,bid|ask|spread </code> - new size of the level, in the same form as input updates,
+ * so delta stream can be replayed into another book <br>
+ * <code> t,*bid price*,*bid size*,*ask price*,*ask size* </code> - new top of book, ignored by input parser
+ * </p>
+ * Bid and ask levels of the same price are independent, so their lines are written in the order levels changed.
+ * Spread update clears both sides of its price and bid or ask update clears spread level of its price,
+ * so removed spread levels are written before bid and ask levels and spread levels with size after them,
+ * which replays into the same book whatever order levels changed in within the batch.
+ * Lines are formatted into reusable buffer, no Strings are created.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class DeltaWriter implements BookDeltaListener {
+
+    private static Logger log = LoggerFactory.getLogger(DeltaWriter.class.getName());
+
+    private static final char[] BID = ",bid".toCharArray();
+
+    private static final char[] ASK = ",ask".toCharArray();
+
+    private static final char[] SPREAD = ",spread".toCharArray();
+
+    /** groups of level lines, in the order they are written. */
+    private static final int REMOVED_SPREADS = 0;
+
+    private static final int SIDES = 1;
+
+    private static final int SPREADS = 2;
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    private final char[] buffer = new char[4 * (Ascii.MAX_INT_LENGTH + 1) + 2 + LINE_SEPARATOR.length];
+
+    private final Writer writer;
+
+    private long batches;
+
+    /**
+     * @param writer - where deltas go, not flushed by this class
+     */
+    public DeltaWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void onDeltas(final BookDeltas deltas) {
+        try {
+            writeLevels(deltas, REMOVED_SPREADS);
+            writeLevels(deltas, SIDES);
+            writeLevels(deltas, SPREADS);
+            if (deltas.isTopOfBookChanged()) {
+                buffer[0] = 't';
+                buffer[1] = ',';
+                int length = Ascii.putInt(buffer, 2, deltas.getBidPrice());
+                buffer[length++] = ',';
+                length = Ascii.putInt(buffer, length, deltas.getBidSize());
+                buffer[length++] = ',';
+                length = Ascii.putInt(buffer, length, deltas.getAskPrice());
+                buffer[length++] = ',';
+                length = Ascii.putInt(buffer, length, deltas.getAskSize());
+                writeLine(length);
+            }
+        } catch (IOException e) {
+            log.error("Error, writing deltas", e);
+            throw new MyWriterException("Error, writing deltas", e);
+        }
+        batches++;
+    }
+
+    /**
+     * @return number of batches written
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    private void writeLevels(final BookDeltas deltas, final int group) throws IOException {
+        for (int i = 0; i < deltas.size(); i++) {
+            if (groupOf(deltas.getSide(i), deltas.getSize(i)) != group) {
+                continue;
+            }
+            buffer[0] = 'u';
+            buffer[1] = ',';
+            int length = Ascii.putInt(buffer, 2, deltas.getPrice(i));
+            buffer[length++] = ',';
+            length = Ascii.putInt(buffer, length, deltas.getSize(i));
+            final char[] side = sideOf(deltas.getSide(i));
+            System.arraycopy(side, 0, buffer, length, side.length);
+            writeLine(length + side.length);
+        }
+    }
+
+    private static int groupOf(final EntryType side, final int size) {
+        if (side != EntryType.SPREAD) {
+            return SIDES;
+        }
+        return size == 0 ? REMOVED_SPREADS : SPREADS;
+    }
+
+    private static char[] sideOf(final EntryType side) {
+        if (side == EntryType.BID) {
+            return BID;
+        }
+        return side == EntryType.ASK ? ASK : SPREAD;
+    }
+
+    private void writeLine(final int length) throws IOException {
+        System.arraycopy(LINE_SEPARATOR, 0, buffer, length, LINE_SEPARATOR.length);
+        writer.write(buffer, 0, length + LINE_SEPARATOR.length);
+    }
+
+}
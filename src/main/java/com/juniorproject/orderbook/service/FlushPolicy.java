@@ -0,0 +1,44 @@
+package com.juniorproject.orderbook.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * When {@link ChannelWriter} flushes its buffer.
+ * 
+ * @author Slava Shishkanu
+ *
+ */
+public enum FlushPolicy {
+
+    /** when buffer of *threshold* bytes is full. */
+    SIZE("size"),
+    /** after every *threshold* written records (one record per query command). */
+    COMMANDS("commands"),
+    /** at the end of input only (and when buffer is full). */
+    END_OF_INPUT("end");
+
+    private String alias;
+
+    private static final Map<String, FlushPolicy> aliasMap = new HashMap<>();
+
+    static {
+        for (FlushPolicy flushPolicy : FlushPolicy.values()) {
+            aliasMap.put(flushPolicy.alias, flushPolicy);
+        }
+    }
+
+    private FlushPolicy(String alias) {
+        this.alias = alias;
+    }
+
+    public static FlushPolicy valueOfByAlias(String alias) {
+        FlushPolicy flushPolicy = aliasMap.get(alias);
+        if (flushPolicy == null) {
+            throw new IllegalArgumentException(
+                    "No enum alias " + FlushPolicy.class.getCanonicalName() + "." + alias);
+        }
+        return flushPolicy;
+    }
+
+}
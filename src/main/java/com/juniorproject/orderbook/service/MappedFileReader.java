@@ -0,0 +1,137 @@
+package com.juniorproject.orderbook.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads ASCII input file through memory mapping.
+ * File is mapped in big chunks, lines are split right in mapped bytes
+ * and passed to {@link ByteLineHandler}, like byte oriented {@link CommandHandler} entry point,
+ * so no charset decoding and no Strings are involved.
+ * Binary input of fixed-width records is read the same way, record by record.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class MappedFileReader {
+
+    private static Logger log = LoggerFactory.getLogger(MappedFileReader.class.getName());
+
+    private static final long DEFAULT_CHUNK_SIZE = 64L << 20;
+
+    private final long chunkSize;
+
+    public MappedFileReader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize - size of one mapping in bytes, must be bigger than longest line
+     */
+    public MappedFileReader(final long chunkSize) {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chunk size out of range: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Passes every line of file to *lineHandler*,
+     * usually {@link CommandHandler#handle(java.nio.ByteBuffer, int, int)}.
+     * @param path - input file
+     * @param lineHandler
+     * @return number of lines read
+     * @throws IOException if file can not be read or line is longer than chunk
+     */
+    public long read(final Path path, final ByteLineHandler lineHandler) throws IOException {
+        return read(path, lineHandler, 0);
+    }
+
+    /**
+     * Same as {@link #read(Path, ByteLineHandler)}, but first *skippedLines* lines are only counted,
+     * like lines already covered by a snapshot.
+     * @return number of lines read, skipped ones included
+     */
+    public long read(final Path path, final ByteLineHandler lineHandler, final long skippedLines)
+            throws IOException {
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            long chunkStart = 0;
+            while (chunkStart < fileSize) {
+                final int length = (int) Math.min(chunkSize, fileSize - chunkStart);
+                final boolean lastChunk = chunkStart + length == fileSize;
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, length);
+                log.debug("mapped {} bytes at {}", length, chunkStart);
+
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(i) == '\n') {
+                        if (++lines > skippedLines) {
+                            lineHandler.handle(buffer, lineStart, i);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastChunk) {
+                    if (lineStart < length && ++lines > skippedLines) {
+                        lineHandler.handle(buffer, lineStart, length);
+                    }
+                    break;
+                }
+                if (lineStart == 0) {
+                    throw new IOException(String.format("line at %s is longer than chunk of %s bytes",
+                            chunkStart, chunkSize));
+                }
+                chunkStart += lineStart;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Passes every fixed-width record of binary file to *recordHandler*,
+     * usually {@link CommandHandler#handleBinary(java.nio.ByteBuffer, int, int)}.
+     * Chunks are cut at record boundaries, so records are never split.
+     * @param path - input file of {@link BinaryCommandCodec} records
+     * @param recordSize - bytes per record
+     * @param recordHandler - gets buffer, index of first byte of record and index after its last byte
+     * @param skippedRecords - number of first records that are only counted
+     * @return number of records read, skipped ones included
+     * @throws IOException if file can not be read or does not hold whole records
+     */
+    public long readRecords(final Path path, final int recordSize, final ByteLineHandler recordHandler,
+            final long skippedRecords) throws IOException {
+        if (recordSize <= 0 || recordSize > chunkSize) {
+            throw new IllegalArgumentException("record size out of range: " + recordSize);
+        }
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize % recordSize != 0) {
+                throw new IOException(String.format("%s of %s bytes does not hold whole records of %s bytes",
+                        path, fileSize, recordSize));
+            }
+            final long recordsPerChunk = chunkSize / recordSize;
+            long chunkStart = Math.min(fileSize, skippedRecords * recordSize);
+            records = chunkStart / recordSize;
+            while (chunkStart < fileSize) {
+                final int length = (int) Math.min(recordsPerChunk * recordSize, fileSize - chunkStart);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, length);
+                log.debug("mapped {} bytes at {}", length, chunkStart);
+                for (int i = 0; i < length; i += recordSize) {
+                    recordHandler.handle(buffer, i, i + recordSize);
+                }
+                records += length / recordSize;
+                chunkStart += length;
+            }
+        }
+        return records;
+    }
+
+}
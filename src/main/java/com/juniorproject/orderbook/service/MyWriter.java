@@ -4,7 +4,7 @@ import java.io.IOException;
 import java.io.Writer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.juniorproject.orderbook.OrderBookMain;
+import com.juniorproject.orderbook.QuietMode;
 
 /**
  * Just a wrapper around Writer
@@ -14,6 +14,11 @@ import com.juniorproject.orderbook.OrderBookMain;
  */
 public class MyWriter {
     private static Logger log = LoggerFactory.getLogger(MyWriter.class.getName());
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    /** enough for two ints, delimiter and line separator, grows for longer records. */
+    private char[] buffer = new char[32];
     
     private Writer fileWriter;
     
@@ -21,8 +26,17 @@ public class MyWriter {
         this.fileWriter = fileWriter;
     }
 
+    /**
+     * For variants that do not write through Writer.
+     */
+    protected MyWriter() {
+        this(null);
+    }
+
     public void write(String output) {
-        log.info("writing to file:{}", output);
+        if (!QuietMode.ENABLED) {
+            log.info("writing to file:{}", output);
+        }
         try {
             fileWriter.write(output);
         } catch (IOException e) {
@@ -30,5 +44,80 @@ public class MyWriter {
             throw new MyWriterException("Error, writing to file", e);
         }
     }
+
+    /**
+     * Writes *value* and line separator, same as String.format("%d%n", value)
+     * but without creating Strings.
+     */
+    public void write(int value) {
+        int length = Ascii.putInt(buffer, 0, value);
+        length = putLineSeparator(length);
+        write(buffer, length);
+    }
+
+    /**
+     * Writes *value* and line separator, same as String.format("%d%n", value)
+     * but without creating Strings.
+     */
+    public void write(long value) {
+        int length = Ascii.putLong(buffer, 0, value);
+        length = putLineSeparator(length);
+        write(buffer, length);
+    }
+
+    /**
+     * Writes two comma separated values and line separator,
+     * same as String.format("%d,%d%n", first, second) but without creating Strings.
+     */
+    public void write(int first, int second) {
+        int length = Ascii.putInt(buffer, 0, first);
+        buffer[length++] = ',';
+        length = Ascii.putInt(buffer, length, second);
+        length = putLineSeparator(length);
+        write(buffer, length);
+    }
+
+    /**
+     * Writes *count* ints of *values* starting at *from* as comma separated list and line separator,
+     * just line separator if *count* is zero.
+     */
+    public void write(int[] values, int from, int count) {
+        final int capacity = count * (Ascii.MAX_INT_LENGTH + 1) + LINE_SEPARATOR.length;
+        if (buffer.length < capacity) {
+            buffer = new char[capacity];
+        }
+        int length = Ascii.putInts(buffer, 0, values, from, count);
+        length = putLineSeparator(length);
+        write(buffer, length);
+    }
+
+    /**
+     * Flushes underlying Writer.
+     */
+    public void flush() {
+        try {
+            fileWriter.flush();
+        } catch (IOException e) {
+            log.error("Error, flushing file", e);
+            throw new MyWriterException("Error, flushing file", e);
+        }
+    }
+
+    private int putLineSeparator(final int position) {
+        System.arraycopy(LINE_SEPARATOR, 0, buffer, position, LINE_SEPARATOR.length);
+        return position + LINE_SEPARATOR.length;
+    }
+
+    private void write(final char[] chars, final int length) {
+        if (!QuietMode.ENABLED && log.isInfoEnabled()) {
+            log.info("writing to file:{}", new String(chars, 0, length));
+        }
+        try {
+            fileWriter.write(chars, 0, length);
+        } catch (IOException e) {
+            log.error("Error, writing to file", e);
+            throw new MyWriterException("Error, writing to file", e);
+        }
+    }
     
 }
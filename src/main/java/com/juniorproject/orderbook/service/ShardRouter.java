@@ -0,0 +1,206 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.repository.BookRegistry;
+import com.juniorproject.orderbook.repository.BookType;
+import com.juniorproject.orderbook.repository.OrderBook;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes commands of many instruments to single threaded shards.
+ *
+ * Every input line starts with instrument symbol: <code>*symbol*,*command*</code>,
+ * for example <code>AAPL,u,9,1,bid</code>. Symbol is pinned to a shard by its hash,
+ * every shard owns its books and handles its commands in one thread,
+ * so books need no locks and commands of one symbol keep their order.
+ * Query results are written to shared output prefixed with symbol,
+ * order between different symbols is not defined.
+ * Like single book run, routing stops at the first failed command: shards drop commands
+ * left in their queues and {@link #route(String)} rethrows the failure.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class ShardRouter implements AutoCloseable {
+
+    private static Logger log = LoggerFactory.getLogger(ShardRouter.class.getName());
+
+    private static final int QUEUE_CAPACITY = 1 << 14;
+
+    /** tells shard to stop, compared by reference. */
+    private static final String STOP = new String("");
+
+    private final Shard[] shards;
+
+    /** first failure of any shard, once it is set no more commands are handled. */
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    /**
+     * @param shardCount - number of worker threads
+     * @param bookType - implementation of books
+     * @param output - shared output, must be safe for concurrent writes (like BufferedWriter)
+     */
+    public ShardRouter(final int shardCount, final BookType bookType, final Writer output) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shard count must be positive: " + shardCount);
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, new BookRegistry(bookType), output, failure);
+        }
+        for (final Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Passes line to shard of its symbol, blocks if shard queue is full.
+     * @param line - <code>*symbol*,*command*</code>
+     * @throws RuntimeException first failure of any shard
+     */
+    public void route(final String line) {
+        final RuntimeException shardFailure = failure.get();
+        if (shardFailure != null) {
+            throw shardFailure;
+        }
+        final int delimiter = line.indexOf(',');
+        if (delimiter <= 0) {
+            if (line.isBlank()) {
+                return;
+            }
+            throw new IllegalArgumentException("no symbol in command: " + line);
+        }
+        int hash = 0;
+        for (int i = 0; i < delimiter; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        shardOf(hash).put(line);
+    }
+
+    /**
+     * @return book of symbol, call it after {@link #close()} only
+     */
+    public OrderBook getBook(final String symbol) {
+        return shardOf(symbol.hashCode()).registry.getBook(symbol);
+    }
+
+    /**
+     * @return total number of commands handled by all shards
+     */
+    public long getTotalCommands() {
+        long total = 0;
+        for (final Shard shard : shards) {
+            for (final CommandHandler handler : shard.handlers.values()) {
+                total += handler.getStats().getTotal();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lets shards handle all routed commands and stops them.
+     * @throws RuntimeException first failure of any shard
+     */
+    @Override
+    public void close() {
+        for (final Shard shard : shards) {
+            shard.put(STOP);
+        }
+        for (final Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for shards", e);
+            }
+            for (final CommandHandler handler : shard.handlers.values()) {
+                handler.getStats().report();
+            }
+        }
+        final RuntimeException shardFailure = failure.get();
+        if (shardFailure != null) {
+            throw shardFailure;
+        }
+    }
+
+    private Shard shardOf(final int hash) {
+        return shards[Math.floorMod(hash, shards.length)];
+    }
+
+    /**
+     * Worker thread with its own books.
+     */
+    private static final class Shard implements Runnable {
+
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private final BookRegistry registry;
+
+        private final Map<String, CommandHandler> handlers = new HashMap<>();
+
+        private final Writer output;
+
+        private final Thread thread;
+
+        private final AtomicReference<RuntimeException> failure;
+
+        private Shard(final int index, final BookRegistry registry, final Writer output,
+                final AtomicReference<RuntimeException> failure) {
+            this.registry = registry;
+            this.output = output;
+            this.failure = failure;
+            this.thread = new Thread(this, "shard-" + index);
+        }
+
+        private void put(final String line) {
+            try {
+                queue.put(line);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while routing command", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (String line = queue.take(); line != STOP; line = queue.take()) {
+                    handle(line);
+                }
+            } catch (InterruptedException e) {
+                log.error("shard {} interrupted", thread.getName());
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Handles line, or drops it if some shard has already failed,
+         * queue is still drained so routing never blocks on stopped shard.
+         */
+        private void handle(final String line) {
+            if (failure.get() != null) {
+                return;
+            }
+            final int delimiter = line.indexOf(',');
+            final String symbol = line.substring(0, delimiter);
+            try {
+                handlers.computeIfAbsent(symbol, this::newHandler).handle(line, delimiter + 1, line.length());
+            } catch (RuntimeException e) {
+                log.error("{} failed to handle {}, shards stop handling commands", thread.getName(), line, e);
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        private CommandHandler newHandler(final String symbol) {
+            return new CommandHandler(registry.getBook(symbol), new SymbolWriter(output, symbol));
+        }
+
+    }
+
+}
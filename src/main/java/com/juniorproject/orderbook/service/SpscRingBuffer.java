@@ -0,0 +1,142 @@
+package com.juniorproject.orderbook.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded lock-free single producer / single consumer ring of preallocated mutable slots.
+ *
+ * Producer: {@link #claim()} slot, fill it, {@link #publish()}; {@link #close()} after last slot.
+ * Consumer: {@link #take()} slot, read it, {@link #release()}.
+ * Both sides spin while ring is full or empty, then yield the CPU,
+ * so ring also works when there are fewer cores than stages. {@link #halt()} makes them give up.
+ *
+ * @author Slava Shishkanu
+ *
+ * @param <T> - type of slot
+ */
+public class SpscRingBuffer<T> {
+
+    /** busy spins before waiting side starts yielding. */
+    private static final int SPIN_LIMIT = 100;
+
+    private final T[] slots;
+
+    private final int mask;
+
+    /** number of slots published by producer. */
+    private final AtomicLong published = new AtomicLong();
+
+    /** number of slots released by consumer. */
+    private final AtomicLong released = new AtomicLong();
+
+    private volatile boolean closed;
+
+    private volatile boolean halted;
+
+    /** producer side copy of released. */
+    private long releasedCache;
+
+    /** consumer side copy of published. */
+    private long publishedCache;
+
+    /**
+     * @param capacity - number of slots, power of two
+     * @param slotFactory - creates slots once, they are reused afterwards
+     */
+    @SuppressWarnings("unchecked")
+    public SpscRingBuffer(final int capacity, final Supplier<T> slotFactory) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        slots = (T[]) new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = slotFactory.get();
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Producer side, waits for free slot.
+     * Same slot is returned until it is published.
+     * @return slot to fill, null if ring was halted
+     */
+    public T claim() {
+        final long sequence = published.get();
+        int idle = 0;
+        while (sequence - releasedCache >= slots.length) {
+            releasedCache = released.get();
+            if (sequence - releasedCache < slots.length) {
+                break;
+            }
+            if (halted) {
+                return null;
+            }
+            idle = idle(idle);
+        }
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Producer side, makes claimed slot visible to consumer.
+     */
+    public void publish() {
+        published.lazySet(published.get() + 1);
+    }
+
+    /**
+     * Producer side, tells consumer that nothing more will be published.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Consumer side, waits for published slot.
+     * @return next slot, null if ring is closed and drained or ring was halted
+     */
+    public T take() {
+        final long sequence = released.get();
+        int idle = 0;
+        while (sequence >= publishedCache) {
+            final boolean wasClosed = closed;
+            publishedCache = published.get();
+            if (sequence < publishedCache) {
+                break;
+            }
+            if (wasClosed || halted) {
+                return null;
+            }
+            idle = idle(idle);
+        }
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Consumer side, gives taken slot back to producer.
+     */
+    public void release() {
+        released.lazySet(released.get() + 1);
+    }
+
+    /**
+     * Makes both sides stop waiting, called when one of them fails.
+     */
+    public void halt() {
+        halted = true;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    private static int idle(final int idle) {
+        if (idle < SPIN_LIMIT) {
+            Thread.onSpinWait();
+            return idle + 1;
+        }
+        Thread.yield();
+        return idle;
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.juniorproject.orderbook.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MyWriter variant that prefixes every record with instrument symbol.
+ * Whole record goes to Writer in one call, so several SymbolWriters can share
+ * one synchronized Writer (like BufferedWriter) without mixing records.
+ *
+ * @author Slava Shishkanu
+ *
+ */
+public class SymbolWriter extends MyWriter {
+
+    private static Logger log = LoggerFactory.getLogger(SymbolWriter.class.getName());
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    private final Writer sharedWriter;
+
+    private final int prefixLength;
+
+    private char[] buffer;
+
+    /**
+     * @param sharedWriter - output shared by all symbols
+     * @param symbol - instrument, written before every record
+     */
+    public SymbolWriter(final Writer sharedWriter, final String symbol) {
+        this.sharedWriter = sharedWriter;
+        this.prefixLength = symbol.length() + 1;
+        this.buffer = new char[prefixLength + 32];
+        symbol.getChars(0, symbol.length(), buffer, 0);
+        buffer[symbol.length()] = ',';
+    }
+
+    @Override
+    public void write(final String output) {
+        ensureCapacity(prefixLength + output.length());
+        output.getChars(0, output.length(), buffer, prefixLength);
+        writeBuffer(prefixLength + output.length());
+    }
+
+    @Override
+    public void write(final int value) {
+        int length = Ascii.putInt(buffer, prefixLength, value);
+        length = putLineSeparator(length);
+        writeBuffer(length);
+    }
+
+    @Override
+    public void write(final long value) {
+        int length = Ascii.putLong(buffer, prefixLength, value);
+        length = putLineSeparator(length);
+        writeBuffer(length);
+    }
+
+    @Override
+    public void write(final int first, final int second) {
+        int length = Ascii.putInt(buffer, prefixLength, first);
+        buffer[length++] = ',';
+        length = Ascii.putInt(buffer, length, second);
+        length = putLineSeparator(length);
+        writeBuffer(length);
+    }
+
+    @Override
+    public void write(final int[] values, final int from, final int count) {
+        ensureCapacity(prefixLength + count * (Ascii.MAX_INT_LENGTH + 1) + LINE_SEPARATOR.length);
+        int length = Ascii.putInts(buffer, prefixLength, values, from, count);
+        length = putLineSeparator(length);
+        writeBuffer(length);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            sharedWriter.flush();
+        } catch (IOException e) {
+            log.error("Error, flushing file", e);
+            throw new MyWriterException("Error, flushing file", e);
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (buffer.length < capacity) {
+            final char[] bigger = new char[capacity];
+            System.arraycopy(buffer, 0, bigger, 0, prefixLength);
+            buffer = bigger;
+        }
+    }
+
+    private int putLineSeparator(final int position) {
+        System.arraycopy(LINE_SEPARATOR, 0, buffer, position, LINE_SEPARATOR.length);
+        return position + LINE_SEPARATOR.length;
+    }
+
+    private void writeBuffer(final int length) {
+        try {
+            sharedWriter.write(buffer, 0, length);
+        } catch (IOException e) {
+            log.error("Error, writing to file", e);
+            throw new MyWriterException("Error, writing to file", e);
+        }
+    }
+
+}
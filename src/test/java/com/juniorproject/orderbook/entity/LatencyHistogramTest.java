@@ -0,0 +1,65 @@
+package com.juniorproject.orderbook.entity;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketOf_shouldKeepValueWithinPrecision() {
+        int previous = -1;
+        for (long value = 0; value < LatencyHistogram.HIGHEST_TRACKABLE; value = value * 9 / 8 + 1) {
+            final int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= previous, "buckets must grow with values at " + value);
+            final long highest = LatencyHistogram.highestValueOf(bucket);
+            assertTrue(highest >= value, "value " + value + " above its bucket " + highest);
+            assertTrue(highest - value <= value / (LatencyHistogram.SUB_BUCKETS / 2),
+                    "value " + value + " too far from " + highest);
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.bucketOf(63) + 1, LatencyHistogram.bucketOf(64));
+        assertEquals(LatencyHistogram.bucketOf(127) + 1, LatencyHistogram.bucketOf(128));
+    }
+
+    @Test
+    public void getValueAtPercentile_shouldFollowRecordedDistribution() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Random random = new Random(3);
+        final long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100 + random.nextInt(10_000);
+            histogram.record(values[i]);
+        }
+        histogram.record(5_000_000);
+        Arrays.sort(values);
+
+        assertEquals(values.length + 1, histogram.getCount());
+        assertEquals(5_000_000, histogram.getMax());
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            final long exact = values[(int) Math.ceil(percentile / 100 * (values.length + 1)) - 1];
+            final long estimate = histogram.getValueAtPercentile(percentile);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 32,
+                    "p" + percentile + " is " + estimate + ", exact " + exact);
+        }
+        assertEquals(5_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void record_shouldPutHugeValuesIntoLastBucket_andResetShouldForgetThem() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99.99));
+    }
+
+}
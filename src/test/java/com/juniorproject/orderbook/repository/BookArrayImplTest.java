@@ -0,0 +1,287 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.BaseTest;
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.FillStatus;
+import com.juniorproject.orderbook.entity.OrderType;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookArrayImplTest extends BaseTest {
+
+    private OrderBook book;
+
+    @BeforeEach
+    public void setUp() {
+        super.setUp();
+        book = new BookArrayImpl(4);
+        book.addAll(entries);
+    }
+
+    @Test
+    public void update_ShouldAddNewEntry_whenEntryNotExist() {
+        final BookEntry bookEntry = new BookEntry(50, 20, EntryType.ASK);
+        book.update(bookEntry);
+        assertTrue(book.getEntries().stream().anyMatch(el -> el.equals(bookEntry)));
+    }
+
+    @Test
+    public void update_ShouldNotCreateDuplicate_whenEntryAlreadyExists() {
+        book.update(new BookEntry(99, 20, EntryType.ASK));
+        assertEquals(1,
+                book.getEntries().stream().filter(entry -> entry.getPrice() == 99)
+                    .count());
+    }
+
+    @Test
+    public void update_ShouldKeepOtherSide_whenSamePriceArrives() {
+        book.update(new BookEntry(95, 7, EntryType.ASK));
+        assertEquals(new BookEntry(95, 7, EntryType.ASK), book.bestAsk());
+        assertEquals(new BookEntry(95, 40, EntryType.BID), book.bestBid());
+        assertEquals(7, book.getSize(EntryType.ASK, 95));
+        assertEquals(40, book.getSize(EntryType.BID, 95));
+        assertEquals(47, book.getSizeByPrice(95));
+    }
+
+    @Test
+    public void update_ShouldKeepSpreadSize_whenSpreadHasSize() {
+        book.update(new BookEntry(95, 5, EntryType.SPREAD));
+        assertEquals(5, book.getSizeByPrice(95));
+        assertEquals(5, book.getSize(EntryType.SPREAD, 95));
+        assertEquals(new BookEntry(95, 5, EntryType.SPREAD), book.getEntryByPrice(95));
+        assertEquals(107, book.getTotalSize(EntryType.BID));
+
+        book.update(new BookEntry(95, 10, EntryType.BID));
+        assertEquals(0, book.getSize(EntryType.SPREAD, 95));
+        assertEquals(new BookEntry(95, 10, EntryType.BID), book.getEntryByPrice(95));
+    }
+
+    @Test
+    public void update_ShouldRemoveLevel_whenSpreadHasNoSize() {
+        book.update(new BookEntry(95, 0, EntryType.SPREAD));
+        book.update(new BookEntry(98, 0, EntryType.SPREAD));
+        assertEquals(0, book.getSizeByPrice(95));
+        assertEquals(new BookEntry(94, 30, EntryType.BID), book.bestBid());
+        assertEquals(new BookEntry(0, 0, null), book.bestAsk());
+    }
+
+    @Test
+    public void update_ShouldKeepLevels_whenLadderGrows() {
+        book.update(new BookEntry(10, 3, EntryType.BID));
+        book.update(new BookEntry(100500, 4, EntryType.ASK));
+        assertEquals(new BookEntry(95, 40, EntryType.BID), book.bestBid());
+        assertEquals(new BookEntry(98, 50, EntryType.ASK), book.bestAsk());
+        assertEquals(3, book.getEntryByPrice(10).getSize());
+        assertEquals(4, book.getEntryByPrice(100500).getSize());
+    }
+
+    @Test
+    public void bestBid_shouldReturnValidBid() {
+        assertEquals(new BookEntry(95, 40, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void bestBid_shouldReturnNextBid_whenBestBidRemoved() {
+        book.update(new BookEntry(95, 0, EntryType.BID));
+        assertEquals(new BookEntry(94, 30, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void bestBid_shouldReturnZeroPrice_whenNoBids() {
+        book.clear();
+        assertEquals(0, book.bestBid().getPrice());
+        assertEquals(0, book.bestBid().getSize());
+    }
+
+    @Test
+    public void bestBid_shouldReturnNewHighestBid_whenBiggerBidInserted() {
+        book.update(new BookEntry(96, 1, EntryType.BID));
+        assertEquals(new BookEntry(96, 1, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void bestAsk_shouldReturnValidBestAsk() {
+        assertEquals(new BookEntry(98, 50, EntryType.ASK), book.bestAsk());
+    }
+
+    @Test
+    public void bestAsk_shouldReturnNextAsk_whenBestAskRemoved() {
+        book.update(new BookEntry(99, 10, EntryType.ASK));
+        book.update(new BookEntry(98, 0, EntryType.ASK));
+        assertEquals(new BookEntry(99, 10, EntryType.ASK), book.bestAsk());
+    }
+
+    @Test
+    public void bestAsk_shouldUpdateAsk_whenNonZeroAskInserted() {
+        book.update(new BookEntry(97, 1, EntryType.ASK));
+        assertEquals(new BookEntry(97, 1, EntryType.ASK), book.bestAsk());
+    }
+
+    @Test
+    public void getSize_shouldReturnSizeOfGivenSideOnly() {
+        assertEquals(40, book.getSize(EntryType.BID, 95));
+        assertEquals(0, book.getSize(EntryType.ASK, 95));
+        assertEquals(50, book.getSize(EntryType.ASK, 98));
+        assertEquals(0, book.getSize(EntryType.SPREAD, 98));
+    }
+
+    @Test
+    public void getEntryByPrice_shouldReturnValidEntry() {
+        assertEquals(new BookEntry(95, 40, EntryType.BID), book.getEntryByPrice(95));
+    }
+
+    @Test
+    public void getEntryByPrice_shouldReturnZeroSizeEntry_whenEntryNotExist() {
+        assertEquals(100500, book.getEntryByPrice(100500).getPrice());
+        assertEquals(0, book.getEntryByPrice(100500).getSize());
+    }
+
+    @Test
+    public void orderSell_shouldRemoveFiveItemsFromBids() {
+        book.orderSell(5);
+        assertEquals(142, sizeOf(EntryType.BID));
+        assertEquals(new BookEntry(95, 35, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void orderSell_shouldMoveBestBid_whenLevelConsumed() {
+        book.orderSell(50);
+        assertEquals(new BookEntry(94, 20, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void orderSell_shouldRemoveAllBids() {
+        book.orderSell(147);
+        assertEquals(0, sizeOf(EntryType.BID));
+        assertEquals(0, book.bestBid().getPrice());
+    }
+
+    @Test
+    public void orderSell_shouldThrowException_whenOrderIsTooBig() {
+        assertThrows(BookException.class, () -> book.orderSell(149));
+    }
+
+    @Test
+    public void orderBuy_ShouldNotChangeAsk_whenAmountIzZero() {
+        book.orderBuy(0);
+        assertEquals(50, sizeOf(EntryType.ASK));
+    }
+
+    @Test
+    public void orderBuy_BestAskShouldChange_whenAmountIzGreaterThanInBestAsk() {
+        book.update(new BookEntry(99, 10, EntryType.ASK));
+        book.orderBuy(55);
+        assertEquals(new BookEntry(99, 5, EntryType.ASK), book.bestAsk());
+    }
+
+    @Test
+    public void orderBuy_shouldThrowException_whenOrderIsTooBig() {
+        assertThrows(BookException.class, () -> book.orderBuy(51));
+    }
+
+    @Test
+    public void sweepSell_shouldReportLevelsAndAveragePrice() {
+        final FillResult fill = book.sweepSell(50, new FillResult());
+        assertEquals(50, fill.getFilled());
+        assertEquals(2, fill.getLevelsTouched());
+        assertEquals(95 * 40 + 94 * 10, fill.getNotional());
+        assertEquals((95 * 40 + 94 * 10) / 50.0, fill.getAveragePrice());
+        assertEquals(new BookEntry(94, 20, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void sweepBuy_shouldFillWhatIsAvailable_withoutException() {
+        final FillResult fill = book.sweepBuy(60, new FillResult());
+        assertEquals(50, fill.getFilled());
+        assertEquals(10, fill.getRemaining());
+        assertFalse(fill.isComplete());
+        assertEquals(0, book.bestAskPrice());
+    }
+
+    @Test
+    public void marketOrder_shouldLeaveBookUntouched_whenFillOrKillCanNotBeFilled() {
+        final List<BookEntry> before = book.getEntries();
+        final FillResult fill = new FillResult();
+        assertEquals(FillStatus.KILLED, book.marketOrder(OrderType.SELL, 148, ExecutionMode.FILL_OR_KILL, fill));
+        assertEquals(0, fill.getFilled());
+        assertEquals(before, book.getEntries());
+        assertEquals(147, book.getTotalSize(EntryType.BID));
+    }
+
+    @Test
+    public void marketOrder_shouldFillWholeOrder_whenFillOrKillCanBeFilled() {
+        final FillResult fill = new FillResult();
+        assertEquals(FillStatus.FILLED, book.marketOrder(OrderType.SELL, 147, ExecutionMode.FILL_OR_KILL, fill));
+        assertEquals(3, fill.getLevelsTouched());
+        assertEquals(0, book.getTotalSize(EntryType.BID));
+    }
+
+    @Test
+    public void marketOrder_shouldCancelRest_whenImmediateOrCancelIsTooBig() {
+        final FillResult fill = new FillResult();
+        assertEquals(FillStatus.PARTIALLY_FILLED,
+                book.marketOrder(OrderType.BUY, 60, ExecutionMode.IMMEDIATE_OR_CANCEL, fill));
+        assertEquals(50, fill.getFilled());
+        assertEquals(FillStatus.KILLED, book.marketOrder(OrderType.BUY, 1, ExecutionMode.IMMEDIATE_OR_CANCEL, fill));
+        assertEquals(0, book.getTotalSize(EntryType.ASK));
+    }
+
+    @Test
+    public void getTotalSize_shouldFollowUpdates() {
+        book.update(new BookEntry(95, 10, EntryType.BID));
+        book.update(new BookEntry(98, 5, EntryType.BID));
+        assertEquals(147 - 40 + 10 + 5, book.getTotalSize(EntryType.BID));
+        assertEquals(50, book.getTotalSize(EntryType.ASK));
+    }
+
+    @Test
+    public void getCumulativeSize_shouldSumLevelsUpToPrice() {
+        assertEquals(70, book.getCumulativeSize(EntryType.BID, 94));
+        assertEquals(147, book.getCumulativeSize(EntryType.BID, 1));
+        assertEquals(0, book.getCumulativeSize(EntryType.ASK, 97));
+        assertEquals(50, book.getCumulativeSize(EntryType.ASK, 98));
+    }
+
+    @Test
+    public void getSweepPrice_shouldReturnPriceOfLastTouchedLevel() {
+        book.orderSell(10);
+        assertEquals(95, book.getSweepPrice(EntryType.BID, 30));
+        assertEquals(94, book.getSweepPrice(EntryType.BID, 31));
+        assertEquals(92, book.getSweepPrice(EntryType.BID, 137));
+        assertEquals(0, book.getSweepPrice(EntryType.BID, 138));
+        assertEquals(98, book.getSweepPrice(EntryType.ASK, 50));
+    }
+
+    @Test
+    public void getDepth_shouldCopyBestNonEmptyBids() {
+        final int[] buffer = new int[8];
+        assertEquals(3, book.getDepth(EntryType.BID, 4, buffer, 0));
+        assertArrayEquals(new int[] {95, 40, 94, 30, 92, 77, 0, 0}, buffer);
+    }
+
+    @Test
+    public void getDepth_shouldCopyBestAsksFirst_whenLevelsAreLimited() {
+        book.update(new BookEntry(100, 5, EntryType.ASK));
+        final int[] buffer = new int[4];
+        assertEquals(1, book.getDepth(EntryType.ASK, 1, buffer, 2));
+        assertArrayEquals(new int[] {0, 0, 98, 50}, buffer);
+    }
+
+    private long sizeOf(final EntryType type) {
+        return book.getEntries().stream()
+                .filter(entry -> entry.getType() == type)
+                .mapToLong(BookEntry::getSize)
+                .sum();
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.BaseTest;
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookHybridImplTest extends BaseTest {
+
+    private BookHybridImpl book;
+
+    @BeforeEach
+    public void setUp() {
+        super.setUp();
+        book = new BookHybridImpl(8);
+        book.addAll(entries);
+    }
+
+    @Test
+    public void book_shouldAnswerLikeArrayBook_whileMarketMovesAndOutliersArrive() {
+        final Random random = new Random(23);
+        final OrderBook expected = new BookArrayImpl(4);
+        expected.addAll(entries);
+        final FillResult expectedFill = new FillResult();
+        final FillResult fill = new FillResult();
+        int middle = 97;
+        for (int i = 0; i < 50_000; i++) {
+            middle += random.nextInt(5) - 2;
+            final int price = random.nextInt(50) == 0 ? middle + random.nextInt(200_000) - 100_000
+                    : middle + random.nextInt(40) - 20;
+            final int action = random.nextInt(10);
+            if (action < 6) {
+                final EntryType side = price < middle ? EntryType.BID : EntryType.ASK;
+                final int size = random.nextInt(3) == 0 ? 0 : random.nextInt(50);
+                expected.update(price, size, side);
+                book.update(price, size, side);
+            } else if (action == 6) {
+                final int size = random.nextInt(100) + 1;
+                assertEquals(expected.sweepBuy(size, expectedFill).getNotional(),
+                        book.sweepBuy(size, fill).getNotional());
+            } else if (action == 7) {
+                final int size = random.nextInt(100) + 1;
+                assertEquals(expected.sweepSell(size, expectedFill).getNotional(),
+                        book.sweepSell(size, fill).getNotional());
+            } else {
+                assertEquals(expected.getSizeByPrice(price), book.getSizeByPrice(price));
+                assertEquals(expected.getCumulativeSize(EntryType.ASK, price),
+                        book.getCumulativeSize(EntryType.ASK, price));
+                assertEquals(expected.getCumulativeSize(EntryType.BID, price),
+                        book.getCumulativeSize(EntryType.BID, price));
+                assertEquals(expected.getSweepPrice(EntryType.BID, action), book.getSweepPrice(EntryType.BID, action));
+            }
+            assertEquals(expected.bestBid(), book.bestBid());
+            assertEquals(expected.bestAsk(), book.bestAsk());
+            assertEquals(expected.getTotalSize(EntryType.BID), book.getTotalSize(EntryType.BID));
+        }
+        assertEquals(expected.getEntries(), book.getEntries());
+        assertEquals(expected.getLevelsConsumed(), book.getLevelsConsumed());
+        assertEquals(expected.getLiveLevels(), book.getLiveLevels());
+        final int[] expectedDepth = new int[64];
+        final int[] depth = new int[64];
+        assertEquals(expected.getDepth(EntryType.ASK, 32, expectedDepth, 0), book.getDepth(EntryType.ASK, 32, depth, 0));
+        assertArrayEquals(expectedDepth, depth);
+        assertTrue(book.getRecenters() > 0);
+    }
+
+    @Test
+    public void update_shouldKeepOutliersOutOfWindow() {
+        final int farLevels = book.getFarLevels();
+        final int windowBase = book.getWindowBase();
+        book.update(Integer.MAX_VALUE, 7, EntryType.ASK);
+        book.update(Integer.MIN_VALUE, 3, EntryType.BID);
+        assertEquals(7, book.getSizeByPrice(Integer.MAX_VALUE));
+        assertEquals(3, book.getSizeByPrice(Integer.MIN_VALUE));
+        assertEquals(farLevels + 2, book.getFarLevels());
+        assertEquals(windowBase, book.getWindowBase());
+        assertEquals(new BookEntry(95, 40, EntryType.BID), book.bestBid());
+        assertEquals(new BookEntry(98, 50, EntryType.ASK), book.bestAsk());
+        final int[] buffer = new int[8];
+        assertEquals(4, book.getDepth(EntryType.BID, 4, buffer, 0));
+        assertArrayEquals(new int[] {95, 40, 94, 30, 92, 77, Integer.MIN_VALUE, 3}, buffer);
+    }
+
+    @Test
+    public void sweepBuy_shouldMoveWindow_whenTouchMovesFar() {
+        book.update(1_000, 5, EntryType.ASK);
+        assertTrue(book.getWindowBase() < 98);
+        book.orderBuy(51);
+        assertEquals(new BookEntry(1_000, 4, EntryType.ASK), book.bestAsk());
+        assertEquals(new BookEntry(95, 40, EntryType.BID), book.bestBid());
+        assertTrue(inWindow(book, 95));
+        book.orderSell(147);
+        assertEquals(1_000 - 4, book.getWindowBase());
+        assertEquals(0, book.getFarLevels());
+        assertEquals(0, book.getSizeByPrice(92));
+        assertEquals(new BookEntry(1_000, 4, EntryType.ASK), book.getEntryByPrice(1_000));
+    }
+
+    @Test
+    public void update_shouldKeepOneTouchInWindow_whenSpreadIsWide() {
+        final BookHybridImpl wide = new BookHybridImpl(1024);
+        wide.update(100, 5, EntryType.BID);
+        wide.update(100_000, 5, EntryType.ASK);
+        assertTrue(inWindow(wide, 100) || inWindow(wide, 100_000));
+        assertTrue(inWindow(wide, 100));
+        wide.update(60_000, 9, EntryType.BID);
+        assertTrue(inWindow(wide, 60_000));
+        wide.update(60_000, 0, EntryType.BID);
+        assertTrue(inWindow(wide, 100) || inWindow(wide, 100_000));
+        assertEquals(new BookEntry(100, 5, EntryType.BID), wide.bestBid());
+        assertEquals(new BookEntry(100_000, 5, EntryType.ASK), wide.bestAsk());
+    }
+
+    @Test
+    public void sweepBuy_shouldKeepBidInWindow_whenAsksLeftAreFar() {
+        book.update(1_000, 5, EntryType.ASK);
+        book.orderBuy(51);
+        assertTrue(inWindow(book, book.bestBidPrice()) || inWindow(book, book.bestAskPrice()));
+        assertTrue(inWindow(book, 95));
+    }
+
+    @Test
+    public void constructor_shouldThrowException_whenWindowIsTooSmall() {
+        assertThrows(IllegalArgumentException.class, () -> new BookHybridImpl(2));
+    }
+
+    private static boolean inWindow(final BookHybridImpl book, final int price) {
+        return price >= book.getWindowBase() && price < (long) book.getWindowBase() + book.getWindow();
+    }
+
+}
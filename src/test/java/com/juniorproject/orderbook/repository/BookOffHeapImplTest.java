@@ -0,0 +1,84 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.BaseTest;
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookOffHeapImplTest extends BaseTest {
+
+    private BookOffHeapImpl book;
+
+    @BeforeEach
+    public void setUp() {
+        super.setUp();
+        book = new BookOffHeapImpl(4);
+        book.addAll(entries);
+    }
+
+    @Test
+    public void book_shouldAnswerLikeArrayBook_afterRandomCommands() {
+        final Random random = new Random(17);
+        final OrderBook expected = new BookArrayImpl(4);
+        expected.addAll(entries);
+        final FillResult expectedFill = new FillResult();
+        final FillResult fill = new FillResult();
+        for (int i = 0; i < 20_000; i++) {
+            final int price = 60 + random.nextInt(80);
+            final int action = random.nextInt(10);
+            if (action < 6) {
+                final EntryType side = price < 100 ? EntryType.BID : EntryType.ASK;
+                final int size = random.nextInt(3) == 0 ? 0 : random.nextInt(50);
+                expected.update(price, size, side);
+                book.update(price, size, side);
+            } else if (action == 6) {
+                assertEquals(expected.sweepBuy(price, expectedFill).getNotional(),
+                        book.sweepBuy(price, fill).getNotional());
+            } else if (action == 7) {
+                assertEquals(expected.sweepSell(price, expectedFill).getNotional(),
+                        book.sweepSell(price, fill).getNotional());
+            } else {
+                assertEquals(expected.getSizeByPrice(price), book.getSizeByPrice(price));
+                assertEquals(expected.getCumulativeSize(EntryType.ASK, price),
+                        book.getCumulativeSize(EntryType.ASK, price));
+                assertEquals(expected.getSweepPrice(EntryType.BID, price), book.getSweepPrice(EntryType.BID, price));
+            }
+            assertEquals(expected.bestBid(), book.bestBid());
+            assertEquals(expected.bestAsk(), book.bestAsk());
+        }
+        assertEquals(expected.getEntries(), book.getEntries());
+        assertEquals(expected.getLevelsConsumed(), book.getLevelsConsumed());
+    }
+
+    @Test
+    public void update_shouldKeepLevels_whenLadderGrows() {
+        book.update(1_000_000, 7, EntryType.ASK);
+        book.update(-1_000_000, 3, EntryType.BID);
+        assertEquals(7, book.getSizeByPrice(1_000_000));
+        assertEquals(3, book.getSizeByPrice(-1_000_000));
+        assertEquals(new BookEntry(95, 40, EntryType.BID), book.bestBid());
+        assertEquals(new BookEntry(98, 50, EntryType.ASK), book.bestAsk());
+        assertTrue(book.getOffHeapBytes() > BookOffHeapImpl.LEVEL_BYTES * 2_000_000L);
+    }
+
+    @Test
+    public void getDepth_shouldCopyBestNonEmptyLevels() {
+        final int[] buffer = new int[4];
+        assertEquals(2, book.getDepth(EntryType.BID, 2, buffer, 0));
+        assertArrayEquals(new int[] {95, 40, 94, 30}, buffer);
+    }
+
+    @Test
+    public void update_shouldThrowException_whenPriceIsTooFar() {
+        assertThrows(BookException.class, () -> book.update(Integer.MAX_VALUE, 1, EntryType.ASK));
+    }
+
+}
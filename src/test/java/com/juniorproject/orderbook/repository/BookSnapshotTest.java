@@ -0,0 +1,97 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.BaseTest;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.OrderType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BookSnapshotTest extends BaseTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() {
+        super.setUp();
+        try {
+            file = Files.createTempFile("order-book", ".snapshot");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void restore_shouldRebuildLevelsAndLine() throws IOException {
+        final OrderBook book = BookTreeSetImpl.newInstance(PruningPolicy.NONE);
+        book.addAll(entries);
+        BookSnapshot.write(book, 12345678901L, file);
+        assertEquals(20 + 4 * 9 + 4, Files.size(file));
+
+        final OrderBook restored = new BookOffHeapImpl();
+        restored.update(50, 1, EntryType.BID);
+        assertEquals(12345678901L, BookSnapshot.restore(file, restored));
+        assertEquals(book.getEntries().stream().filter(entry -> entry.getSize() != 0).count(),
+                restored.getEntries().size());
+        assertEquals(book.bestBid(), restored.bestBid());
+        assertEquals(book.bestAsk(), restored.bestAsk());
+        assertEquals(0, restored.getSizeByPrice(50));
+    }
+
+    @Test
+    public void restore_shouldRebuildSpreadLevels() throws IOException {
+        final OrderBook book = new BookArrayImpl();
+        book.addAll(entries);
+        book.update(95, 5, EntryType.SPREAD);
+        book.update(90, 3, EntryType.SPREAD);
+        BookSnapshot.write(book, 7, file);
+
+        final OrderBook restored = BookTreeSetImpl.newInstance(PruningPolicy.NONE);
+        BookSnapshot.restore(file, restored);
+        assertEquals(5, restored.getSize(EntryType.SPREAD, 95));
+        assertEquals(3, restored.getSize(EntryType.SPREAD, 90));
+        assertEquals(0, restored.getSize(EntryType.BID, 95));
+        assertEquals(book.bestBid(), restored.bestBid());
+        assertEquals(book.getTotalSize(EntryType.BID), restored.getTotalSize(EntryType.BID));
+    }
+
+    @Test
+    public void restore_shouldKeepRestingOrdersInTheirQueues() throws IOException {
+        final FillResult fill = new FillResult();
+        final LimitOrderBook book = new LimitOrderBook(new BookArrayImpl());
+        book.update(101, 5, EntryType.ASK);
+        book.placeLimit(1, OrderType.SELL, 101, 3, fill);
+        book.placeLimit(2, OrderType.SELL, 101, 4, fill);
+        book.placeLimit(3, OrderType.BUY, 99, 6, fill);
+        BookSnapshot.write(book, 7, file);
+
+        final LimitOrderBook restored = new LimitOrderBook(new BookArrayImpl());
+        assertEquals(7, BookSnapshot.restore(file, restored));
+        assertEquals(3, restored.getOrderCount());
+        assertEquals(12, restored.getSizeByPrice(101));
+        restored.orderBuy(5);
+        assertEquals(0, restored.getOrderSize(1));
+        assertEquals(2, restored.getOrderSize(2));
+        assertEquals(true, restored.cancel(3));
+        assertEquals(0, restored.bestBidPrice());
+    }
+
+    @Test
+    public void restore_shouldThrowException_whenFileIsNotSnapshot() throws IOException {
+        Files.write(file, "u,9,1,bid\nq,best_bid\n".getBytes());
+        assertThrows(BookException.class, () -> BookSnapshot.restore(file, new BookArrayImpl()));
+    }
+
+}
@@ -3,11 +3,21 @@ package com.juniorproject.orderbook.repository;
 import com.juniorproject.orderbook.BaseTest;
 import com.juniorproject.orderbook.entity.BookEntry;
 import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.FillStatus;
+import com.juniorproject.orderbook.entity.OrderType;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -49,6 +59,38 @@ public class BookTreeSetImplTest extends BaseTest {
                     .count());
     }
 
+    @Test
+    public void update_shouldAcceptPricesFarApart() {
+        bookTreeSet.update(1, 5, EntryType.BID);
+        bookTreeSet.update(100_000_000, 5, EntryType.BID);
+        bookTreeSet.update(Integer.MIN_VALUE, 2, EntryType.BID);
+        assertEquals(new BookEntry(100_000_000, 5, EntryType.BID), bookTreeSet.bestBid());
+        assertEquals(159, bookTreeSet.getTotalSize(EntryType.BID));
+        assertEquals(157, bookTreeSet.getCumulativeSize(EntryType.BID, 1));
+        assertEquals(Integer.MIN_VALUE, bookTreeSet.getSweepPrice(EntryType.BID, 159));
+    }
+
+    @Test
+    public void update_ShouldKeepSpreadSize_whenSpreadHasSize() {
+        bookTreeSet.update(new BookEntry(95, 5, EntryType.SPREAD));
+        assertEquals(5, bookTreeSet.getSizeByPrice(95));
+        assertEquals(5, bookTreeSet.getSize(EntryType.SPREAD, 95));
+        assertEquals(new BookEntry(95, 5, EntryType.SPREAD), bookTreeSet.getEntryByPrice(95));
+        assertEquals(107, bookTreeSet.getTotalSize(EntryType.BID));
+
+        bookTreeSet.update(new BookEntry(95, 10, EntryType.BID));
+        assertEquals(0, bookTreeSet.getSize(EntryType.SPREAD, 95));
+        assertEquals(new BookEntry(95, 10, EntryType.BID), bookTreeSet.getEntryByPrice(95));
+    }
+
+    @Test
+    public void update_ShouldRemoveLevel_whenSpreadHasNoSize() {
+        bookTreeSet.update(new BookEntry(95, 0, EntryType.SPREAD));
+        assertEquals(0, bookTreeSet.getSizeByPrice(95));
+        assertEquals(new BookEntry(94, 30, EntryType.BID), bookTreeSet.bestBid());
+        assertEquals(107, bookTreeSet.getTotalSize(EntryType.BID));
+    }
+
     @Test
     public void bestBid_shouldReturnValidBid() {
         assertEquals(new BookEntry(95, 40, EntryType.BID), bookTreeSet.bestBid());
@@ -91,6 +133,14 @@ public class BookTreeSetImplTest extends BaseTest {
         assertEquals(new BookEntry(97, 1, EntryType.ASK), bookTreeSet.bestAsk());
     }
     
+    @Test
+    public void getSize_shouldReturnSizeOfGivenSideOnly() {
+        assertEquals(40, bookTreeSet.getSize(EntryType.BID, 95));
+        assertEquals(0, bookTreeSet.getSize(EntryType.ASK, 95));
+        assertEquals(50, bookTreeSet.getSize(EntryType.ASK, 98));
+        assertEquals(0, bookTreeSet.getSize(EntryType.SPREAD, 98));
+    }
+
     @Test
     public void getEntryByPrice_shouldReturnValidEntry() {
         assertEquals(new BookEntry(95, 40, EntryType.BID), bookTreeSet.getEntryByPrice(95));
@@ -172,4 +222,216 @@ public class BookTreeSetImplTest extends BaseTest {
         assertEquals(bestAskAfterUpdate, bookTreeSet.bestAsk());
     }
 
+    @Test
+    public void sweepSell_shouldReportLevelsAndAveragePrice() {
+        final FillResult fill = bookTreeSet.sweepSell(50, new FillResult());
+        assertEquals(50, fill.getFilled());
+        assertEquals(2, fill.getLevelsTouched());
+        assertEquals(95 * 40 + 94 * 10, fill.getNotional());
+        assertEquals((95 * 40 + 94 * 10) / 50.0, fill.getAveragePrice());
+        assertEquals(new BookEntry(94, 20, EntryType.BID), bookTreeSet.bestBid());
+    }
+
+    @Test
+    public void sweepBuy_shouldFillWhatIsAvailable_withoutException() {
+        final FillResult fill = bookTreeSet.sweepBuy(60, new FillResult());
+        assertEquals(50, fill.getFilled());
+        assertEquals(10, fill.getRemaining());
+        assertFalse(fill.isComplete());
+        assertEquals(0, bookTreeSet.bestAskPrice());
+    }
+
+    @Test
+    public void marketOrder_shouldLeaveBookUntouched_whenFillOrKillCanNotBeFilled() {
+        final List<BookEntry> before = bookTreeSet.getEntries();
+        final FillResult fill = new FillResult();
+        assertEquals(FillStatus.KILLED, bookTreeSet.marketOrder(OrderType.SELL, 148, ExecutionMode.FILL_OR_KILL, fill));
+        assertEquals(0, fill.getFilled());
+        assertEquals(before, bookTreeSet.getEntries());
+        assertEquals(147, bookTreeSet.getTotalSize(EntryType.BID));
+    }
+
+    @Test
+    public void marketOrder_shouldFillWholeOrder_whenFillOrKillCanBeFilled() {
+        final FillResult fill = new FillResult();
+        assertEquals(FillStatus.FILLED, bookTreeSet.marketOrder(OrderType.SELL, 147, ExecutionMode.FILL_OR_KILL, fill));
+        assertEquals(3, fill.getLevelsTouched());
+        assertEquals(0, bookTreeSet.getTotalSize(EntryType.BID));
+    }
+
+    @Test
+    public void marketOrder_shouldCancelRest_whenImmediateOrCancelIsTooBig() {
+        final FillResult fill = new FillResult();
+        assertEquals(FillStatus.PARTIALLY_FILLED,
+                bookTreeSet.marketOrder(OrderType.BUY, 60, ExecutionMode.IMMEDIATE_OR_CANCEL, fill));
+        assertEquals(50, fill.getFilled());
+        assertEquals(FillStatus.KILLED, bookTreeSet.marketOrder(OrderType.BUY, 1, ExecutionMode.IMMEDIATE_OR_CANCEL, fill));
+        assertEquals(0, bookTreeSet.getTotalSize(EntryType.ASK));
+    }
+
+    @Test
+    public void getTotalSize_shouldFollowUpdates() {
+        bookTreeSet.update(new BookEntry(95, 10, EntryType.BID));
+        bookTreeSet.update(new BookEntry(98, 5, EntryType.BID));
+        assertEquals(147 - 40 + 10 + 5, bookTreeSet.getTotalSize(EntryType.BID));
+        assertEquals(50, bookTreeSet.getTotalSize(EntryType.ASK));
+    }
+
+    @Test
+    public void getCumulativeSize_shouldSumLevelsUpToPrice() {
+        assertEquals(70, bookTreeSet.getCumulativeSize(EntryType.BID, 94));
+        assertEquals(147, bookTreeSet.getCumulativeSize(EntryType.BID, 1));
+        assertEquals(0, bookTreeSet.getCumulativeSize(EntryType.ASK, 97));
+        assertEquals(50, bookTreeSet.getCumulativeSize(EntryType.ASK, 98));
+    }
+
+    @Test
+    public void getSweepPrice_shouldReturnPriceOfLastTouchedLevel() {
+        bookTreeSet.orderSell(10);
+        assertEquals(95, bookTreeSet.getSweepPrice(EntryType.BID, 30));
+        assertEquals(94, bookTreeSet.getSweepPrice(EntryType.BID, 31));
+        assertEquals(92, bookTreeSet.getSweepPrice(EntryType.BID, 137));
+        assertEquals(0, bookTreeSet.getSweepPrice(EntryType.BID, 138));
+        assertEquals(98, bookTreeSet.getSweepPrice(EntryType.ASK, 50));
+    }
+
+    @Test
+    public void getDepth_shouldCopyBestNonEmptyBids() {
+        final int[] buffer = new int[8];
+        assertEquals(3, bookTreeSet.getDepth(EntryType.BID, 4, buffer, 0));
+        assertArrayEquals(new int[] {95, 40, 94, 30, 92, 77, 0, 0}, buffer);
+    }
+
+    @Test
+    public void getDepth_shouldCopyBestAsksFirst_whenLevelsAreLimited() {
+        bookTreeSet.update(new BookEntry(100, 5, EntryType.ASK));
+        final int[] buffer = new int[4];
+        assertEquals(1, bookTreeSet.getDepth(EntryType.ASK, 1, buffer, 2));
+        assertArrayEquals(new int[] {0, 0, 98, 50}, buffer);
+    }
+
+    @Test
+    public void getDeadLevels_shouldCountZeroSizeLevels_whenPruningIsOff() {
+        final OrderBook book = BookTreeSetImpl.newInstance(PruningPolicy.NONE);
+        book.addAll(entries);
+        book.orderSell(70);
+        assertEquals(2, book.getLiveLevels());
+        assertEquals(4, book.getDeadLevels());
+        assertEquals(new BookEntry(92, 77, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void update_shouldRemoveEmptiedLevels_whenPruningIsEager() {
+        final OrderBook book = BookTreeSetImpl.newInstance(PruningPolicy.EAGER);
+        book.addAll(entries);
+        book.orderSell(70);
+        book.update(new BookEntry(98, 0, EntryType.ASK));
+        assertEquals(1, book.getEntries().size());
+        assertEquals(0, book.getDeadLevels());
+        assertEquals(new BookEntry(92, 77, EntryType.BID), book.bestBid());
+        assertEquals(0, book.bestAskPrice());
+    }
+
+    @Test
+    public void orderBuy_shouldThrowException_whenEagerPruningEmptiedBook() {
+        final OrderBook book = BookTreeSetImpl.newInstance(PruningPolicy.EAGER);
+        book.update(new BookEntry(98, 5, EntryType.ASK));
+        book.orderBuy(5);
+        assertThrows(BookException.class, () -> book.orderBuy(1));
+    }
+
+    @Test
+    public void update_shouldCompactBook_whenDeadLevelsOutnumberLiveOnes() {
+        final OrderBook book = BookTreeSetImpl.newInstance(PruningPolicy.LAZY);
+        book.update(new BookEntry(1, 5, EntryType.BID));
+        for (int price = 2; price < 5000; price++) {
+            book.update(new BookEntry(price, 1, EntryType.ASK));
+            book.orderBuy(1);
+        }
+        assertTrue(book.getDeadLevels() <= book.getLiveLevels() || book.getDeadLevels() < 1024);
+        assertTrue(book.getEntries().size() < 2048);
+        assertEquals(1, book.getLiveLevels());
+        assertEquals(new BookEntry(1, 5, EntryType.BID), book.bestBid());
+    }
+
+    @Test
+    public void bestAsk_shouldReturnReusableView_thatDoesNotChangeBook() {
+        final OrderBook book = BookTreeSetImpl.newInstance(PruningPolicy.EAGER);
+        book.update(98, 5, EntryType.ASK);
+        final BookEntry level = book.bestAsk();
+        level.set(1, 0, EntryType.BID);
+        book.getEntryByPrice(98).setPrice(1);
+        book.getEntries().get(0).setSize(0);
+        assertEquals(5, book.getSize(EntryType.ASK, 98));
+        assertEquals(0, book.getSize(EntryType.BID, 1));
+        book.update(97, 3, EntryType.ASK);
+        assertSame(level, book.bestAsk());
+        assertEquals(new BookEntry(97, 3, EntryType.ASK), level);
+        assertEquals(new BookEntry(98, 5, EntryType.ASK), book.getEntryByPrice(98));
+    }
+
+    @Test
+    public void update_shouldKeepBothSides_whenBidAndAskShareAPrice() {
+        bookTreeSet.update(100, 3, EntryType.ASK);
+        bookTreeSet.update(100, 5, EntryType.BID);
+        assertEquals(3, bookTreeSet.getSize(EntryType.ASK, 100));
+        assertEquals(5, bookTreeSet.getSize(EntryType.BID, 100));
+        assertEquals(8, bookTreeSet.getSizeByPrice(100));
+        assertEquals(new BookEntry(100, 5, EntryType.BID), bookTreeSet.bestBid());
+        assertEquals(new BookEntry(98, 50, EntryType.ASK), bookTreeSet.bestAsk());
+        assertEquals(152, bookTreeSet.getTotalSize(EntryType.BID));
+        assertEquals(53, bookTreeSet.getTotalSize(EntryType.ASK));
+        final int[] buffer = new int[4];
+        assertEquals(2, bookTreeSet.getDepth(EntryType.ASK, 2, buffer, 0));
+        assertArrayEquals(new int[] {98, 50, 100, 3}, buffer);
+        bookTreeSet.update(100, 0, EntryType.BID);
+        assertEquals(3, bookTreeSet.getSize(EntryType.ASK, 100));
+        bookTreeSet.update(100, 0, EntryType.SPREAD);
+        assertEquals(0, bookTreeSet.getSizeByPrice(100));
+    }
+
+    @Test
+    public void book_shouldAnswerLikeArrayBook_afterRandomCommands_withEveryPruningPolicy() {
+        for (PruningPolicy pruningPolicy : PruningPolicy.values()) {
+            final Random random = new Random(31);
+            final OrderBook expected = new BookArrayImpl(4);
+            final OrderBook book = BookTreeSetImpl.newInstance(pruningPolicy);
+            expected.addAll(entries);
+            book.addAll(entries);
+            final FillResult expectedFill = new FillResult();
+            final FillResult fill = new FillResult();
+            for (int i = 0; i < 20_000; i++) {
+                final int price = 60 + random.nextInt(80);
+                final int action = random.nextInt(10);
+                if (action < 6) {
+                    final EntryType side = random.nextInt(20) == 0 ? EntryType.SPREAD
+                            : price < 100 ^ random.nextInt(10) == 0 ? EntryType.BID : EntryType.ASK;
+                    final int size = random.nextInt(3) == 0 || side == EntryType.SPREAD ? 0 : random.nextInt(50);
+                    expected.update(price, size, side);
+                    book.update(price, size, side);
+                } else if (action == 6) {
+                    assertEquals(expected.sweepBuy(price, expectedFill).getNotional(),
+                            book.sweepBuy(price, fill).getNotional());
+                } else if (action == 7) {
+                    assertEquals(expected.sweepSell(price, expectedFill).getNotional(),
+                            book.sweepSell(price, fill).getNotional());
+                } else {
+                    assertEquals(expected.getSizeByPrice(price), book.getSizeByPrice(price));
+                    assertEquals(expected.getSweepPrice(EntryType.ASK, price),
+                            book.getSweepPrice(EntryType.ASK, price));
+                }
+                assertEquals(expected.bestBid(), book.bestBid(), pruningPolicy.toString());
+                assertEquals(expected.bestAsk(), book.bestAsk(), pruningPolicy.toString());
+            }
+            assertEquals(expected.getEntries(), book.getEntries().stream().filter(entry -> entry.getSize() != 0)
+                    .collect(Collectors.toList()));
+            assertEquals(expected.getLiveLevels(), book.getLiveLevels());
+            final int[] expectedDepth = new int[40];
+            final int[] depth = new int[40];
+            assertEquals(expected.getDepth(EntryType.BID, 20, expectedDepth, 0),
+                    book.getDepth(EntryType.BID, 20, depth, 0));
+            assertArrayEquals(expectedDepth, depth);
+        }
+    }
+
 }
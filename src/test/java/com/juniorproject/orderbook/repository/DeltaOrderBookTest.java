@@ -0,0 +1,142 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.BaseTest;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeltaOrderBookTest extends BaseTest {
+
+    private final List<String> levels = new ArrayList<>();
+
+    private final List<String> tops = new ArrayList<>();
+
+    private DeltaOrderBook book;
+
+    @BeforeEach
+    public void setUp() {
+        super.setUp();
+        book = new DeltaOrderBook(new BookArrayImpl(), this::collect);
+        book.addAll(entries);
+        book.flush();
+        levels.clear();
+        tops.clear();
+    }
+
+    @Test
+    public void flush_shouldDeliverLastSizeOnce_whenLevelChangesManyTimes() {
+        book.update(95, 10, EntryType.BID);
+        book.update(92, 1, EntryType.BID);
+        book.update(95, 20, EntryType.BID);
+        book.flush();
+        assertEquals(Arrays.asList("BID,95,20", "BID,92,1"), levels);
+        assertEquals(Collections.singletonList("95,20,98,50"), tops);
+    }
+
+    @Test
+    public void update_shouldKeepOtherSideLevel_whenSamePriceArrives() {
+        book.update(98, 5, EntryType.BID);
+        book.flush();
+        assertEquals(Collections.singletonList("BID,98,5"), levels);
+        assertEquals(Collections.singletonList("98,5,98,50"), tops);
+    }
+
+    @Test
+    public void update_shouldRemoveBothSides_whenSpreadArrives() {
+        book.update(98, 5, EntryType.BID);
+        book.update(98, 0, EntryType.SPREAD);
+        book.flush();
+        assertEquals(Arrays.asList("BID,98,0", "ASK,98,0"), levels);
+        assertEquals(Collections.singletonList("95,40,0,0"), tops);
+    }
+
+    @Test
+    public void orderSell_shouldDeliverEveryLevelItTouches() {
+        book.orderSell(50);
+        book.flush();
+        assertEquals(Arrays.asList("BID,95,0", "BID,94,20"), levels);
+        assertEquals(Collections.singletonList("94,20,98,50"), tops);
+    }
+
+    @Test
+    public void orderBuy_shouldDeliverConsumedLevels_whenOrderFails() {
+        assertThrows(BookException.class, () -> book.orderBuy(51));
+        book.flush();
+        assertEquals(Collections.singletonList("ASK,98,0"), levels);
+        assertEquals(Collections.singletonList("95,40,0,0"), tops);
+    }
+
+    @Test
+    public void sweepBuy_shouldDeliverLevelsOfFill_whenOrderTouchesManyLevels() {
+        for (int price = 100; price < 140; price++) {
+            book.update(price, 2, EntryType.ASK);
+        }
+        book.flush();
+        levels.clear();
+        final FillResult fill = book.sweepBuy(50 + 39 * 2 + 1, new FillResult());
+        assertEquals(41, fill.getLevelsTouched());
+        assertEquals(139, fill.getLevelPrice(40));
+        assertEquals(1, fill.getLevelQuantity(40));
+        book.flush();
+        assertEquals(41, levels.size());
+        assertEquals("ASK,98,0", levels.get(0));
+        assertEquals("ASK,138,0", levels.get(39));
+        assertEquals("ASK,139,1", levels.get(40));
+    }
+
+    @Test
+    public void flush_shouldNotCallListener_whenNothingChanged() {
+        book.flush();
+        book.update(95, 40, EntryType.BID);
+        book.flush();
+        assertEquals(Collections.singletonList("BID,95,40"), levels);
+        assertTrue(tops.isEmpty());
+        levels.clear();
+        book.getSizeByPrice(95);
+        book.flush();
+        assertTrue(levels.isEmpty());
+    }
+
+    @Test
+    public void clear_shouldDeliverRemovalOfEveryLevel() {
+        book.clear();
+        book.flush();
+        assertEquals(Arrays.asList("ASK,98,0", "BID,95,0", "BID,94,0", "BID,92,0"), levels);
+        assertEquals(Collections.singletonList("0,0,0,0"), tops);
+    }
+
+    @Test
+    public void flush_shouldDeliverAllLevels_whenBatchOutgrowsInitialCapacity() {
+        for (int price = 1000; price < 1300; price++) {
+            book.update(price, price, EntryType.ASK);
+        }
+        book.update(1000, 1, EntryType.ASK);
+        book.flush();
+        assertEquals(300, levels.size());
+        assertEquals("ASK,1000,1", levels.get(0));
+        assertEquals("ASK,1299,1299", levels.get(299));
+        assertTrue(tops.isEmpty());
+    }
+
+    private void collect(final BookDeltas deltas) {
+        assertFalse(deltas.isEmpty());
+        for (int i = 0; i < deltas.size(); i++) {
+            levels.add(deltas.getSide(i) + "," + deltas.getPrice(i) + "," + deltas.getSize(i));
+        }
+        if (deltas.isTopOfBookChanged()) {
+            tops.add(deltas.getBidPrice() + "," + deltas.getBidSize() + "," + deltas.getAskPrice() + ","
+                    + deltas.getAskSize());
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.FillStatus;
+import com.juniorproject.orderbook.entity.OrderType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LimitOrderBookTest {
+
+    private LimitOrderBook book;
+
+    private final FillResult fill = new FillResult();
+
+    @BeforeEach
+    public void setUp() {
+        book = new LimitOrderBook(new BookArrayImpl());
+    }
+
+    @Test
+    public void placeLimit_shouldRestOnItsSide_whenNotCrossing() {
+        book.placeLimit(1, OrderType.BUY, 99, 10, fill);
+        book.placeLimit(2, OrderType.SELL, 101, 4, fill);
+        assertEquals(0, fill.getFilled());
+        assertEquals(99, book.bestBidPrice());
+        assertEquals(10, book.bestBidSize());
+        assertEquals(101, book.bestAskPrice());
+        assertEquals(4, book.bestAskSize());
+        assertEquals(2, book.getOrderCount());
+    }
+
+    @Test
+    public void sweep_shouldFillOrdersOldestFirst_andUpdatesAfterThem() {
+        book.update(101, 5, EntryType.ASK);
+        book.placeLimit(1, OrderType.SELL, 101, 3, fill);
+        book.placeLimit(2, OrderType.SELL, 101, 4, fill);
+        assertEquals(12, book.getSizeByPrice(101));
+
+        book.orderBuy(5);
+        assertEquals(0, book.getOrderSize(1));
+        assertEquals(2, book.getOrderSize(2));
+        assertEquals(7, book.getSizeByPrice(101));
+
+        book.orderBuy(4);
+        assertEquals(0, book.getOrderCount());
+        assertEquals(3, book.getSizeByPrice(101));
+    }
+
+    @Test
+    public void placeLimit_shouldFillCrossingPart_andRestTheRest() {
+        book.update(101, 2, EntryType.ASK);
+        book.placeLimit(1, OrderType.SELL, 102, 3, fill);
+        book.placeLimit(2, OrderType.BUY, 102, 8, fill);
+        assertEquals(5, fill.getFilled());
+        assertEquals(0, book.getOrderSize(1));
+        assertEquals(3, book.getOrderSize(2));
+        assertEquals(102, book.bestBidPrice());
+        assertEquals(3, book.bestBidSize());
+        assertEquals(0, book.bestAskSize());
+    }
+
+    @Test
+    public void cancel_shouldRemoveRemainingSize() {
+        book.update(99, 5, EntryType.BID);
+        book.placeLimit(1, OrderType.BUY, 99, 10, fill);
+        assertTrue(book.cancel(1));
+        assertFalse(book.cancel(1));
+        assertEquals(5, book.getSizeByPrice(99));
+        assertEquals(0, book.getOrderCount());
+    }
+
+    @Test
+    public void modify_shouldKeepPriority_onlyWhenSizeDecreasesAtSamePrice() {
+        book.placeLimit(1, OrderType.BUY, 99, 10, fill);
+        book.placeLimit(2, OrderType.BUY, 99, 10, fill);
+        assertTrue(book.modify(1, 99, 6));
+        book.orderSell(6);
+        assertEquals(0, book.getOrderSize(1));
+        assertEquals(10, book.getOrderSize(2));
+
+        book.placeLimit(3, OrderType.BUY, 99, 10, fill);
+        assertTrue(book.modify(2, 99, 11));
+        book.orderSell(10);
+        assertEquals(0, book.getOrderSize(3));
+        assertEquals(11, book.getOrderSize(2));
+        assertFalse(book.modify(3, 99, 1));
+    }
+
+    @Test
+    public void update_shouldKeepOrders_andCancelThemOnSpread() {
+        book.placeLimit(1, OrderType.BUY, 99, 10, fill);
+        book.update(99, 4, EntryType.BID);
+        assertEquals(14, book.getSizeByPrice(99));
+        book.update(99, 2, EntryType.ASK);
+        assertEquals(1, book.getOrderCount());
+        assertEquals(14, book.getSize(EntryType.BID, 99));
+        assertEquals(2, book.getSize(EntryType.ASK, 99));
+        book.update(99, 0, EntryType.SPREAD);
+        assertEquals(0, book.getOrderCount());
+        assertEquals(0, book.getSizeByPrice(99));
+    }
+
+    @Test
+    public void marketOrder_shouldKillFillOrKill_whenOrdersAreNotEnough() {
+        book.placeLimit(1, OrderType.SELL, 101, 3, fill);
+        assertEquals(FillStatus.KILLED, book.marketOrder(OrderType.BUY, 4, ExecutionMode.FILL_OR_KILL, fill));
+        assertEquals(3, book.getOrderSize(1));
+        assertThrows(BookException.class, () -> book.orderBuy(4));
+    }
+
+    @Test
+    public void placeLimit_shouldThrowException_whenIdIsTaken() {
+        book.placeLimit(1, OrderType.BUY, 99, 10, fill);
+        assertThrows(BookException.class, () -> book.placeLimit(1, OrderType.SELL, 101, 1, fill));
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void map_shouldMatchHashMap_afterRandomPutsAndRemoves() {
+        final Random random = new Random(5);
+        final LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        final Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            final long key = random.nextInt(3000) - 1000L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                final Long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = -1000; key < 2000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void clear_shouldRemoveAllKeys() {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(0, "zero");
+        map.put(Long.MAX_VALUE, "max");
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(0));
+        assertNull(map.get(Long.MAX_VALUE));
+    }
+
+}
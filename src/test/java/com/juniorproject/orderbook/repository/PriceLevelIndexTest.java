@@ -0,0 +1,69 @@
+package com.juniorproject.orderbook.repository;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PriceLevelIndexTest {
+
+    @Test
+    public void sums_shouldMatchPlainArray_afterRandomChanges() {
+        final Random random = new Random(11);
+        final PriceLevelIndex index = new PriceLevelIndex();
+        final int low = -3000;
+        final int[] sizes = new int[6000];
+        for (int i = 0; i < 20_000; i++) {
+            final int price = low + random.nextInt(sizes.length);
+            final int size = random.nextInt(4) == 0 ? 0 : random.nextInt(100);
+            index.set(price, size);
+            sizes[price - low] = size;
+        }
+        long total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            total += sizes[i];
+            assertEquals(total, index.sumUpTo(low + i));
+            assertEquals(index.getTotal() - total + sizes[i], index.sumFrom(low + i));
+        }
+        assertEquals(total, index.getTotal());
+        for (long quantity = 1; quantity <= total; quantity += 997) {
+            final int lowest = index.lowestPriceReaching(quantity);
+            assertEquals(true, index.sumUpTo(lowest) >= quantity && index.sumUpTo(lowest - 1) < quantity);
+            final int highest = index.highestPriceReaching(quantity);
+            assertEquals(true, index.sumFrom(highest) >= quantity && index.sumFrom(highest + 1) < quantity);
+        }
+        assertEquals(0, index.lowestPriceReaching(total + 1));
+    }
+
+    @Test
+    public void sums_shouldCoverWholeRange_outsideIndexedPrices() {
+        final PriceLevelIndex index = new PriceLevelIndex();
+        index.set(100, 5);
+        index.set(90, 7);
+        assertEquals(0, index.sumUpTo(Integer.MIN_VALUE));
+        assertEquals(12, index.sumUpTo(Integer.MAX_VALUE));
+        assertEquals(12, index.sumFrom(Integer.MIN_VALUE));
+        assertEquals(100, index.highestPriceReaching(5));
+        assertEquals(90, index.highestPriceReaching(6));
+        assertEquals(90, index.lowestPriceReaching(7));
+        assertEquals(100, index.lowestPriceReaching(8));
+    }
+
+    @Test
+    public void set_shouldIndexPrices_atBothEndsOfIntRange() {
+        final PriceLevelIndex index = new PriceLevelIndex();
+        index.set(1, 1);
+        index.set(Integer.MAX_VALUE, 2);
+        index.set(Integer.MIN_VALUE, 4);
+        assertEquals(7, index.getTotal());
+        assertEquals(5, index.sumUpTo(1));
+        assertEquals(3, index.sumFrom(1));
+        assertEquals(Integer.MAX_VALUE, index.lowestPriceReaching(6));
+        assertEquals(Integer.MIN_VALUE, index.highestPriceReaching(4));
+        index.set(1, 0);
+        index.add(Integer.MAX_VALUE, -2);
+        assertEquals(4, index.getTotal());
+        assertEquals(Integer.MIN_VALUE, index.lowestPriceReaching(4));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.juniorproject.orderbook.repository;
+
+import com.juniorproject.orderbook.BaseTest;
+import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.FillResult;
+import com.juniorproject.orderbook.entity.OrderType;
+import com.juniorproject.orderbook.entity.TopOfBook;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PublishingOrderBookTest extends BaseTest {
+
+    private PublishingOrderBook book;
+
+    @BeforeEach
+    public void setUp() {
+        super.setUp();
+        book = new PublishingOrderBook(new BookArrayImpl(), new TopOfBookPublisher());
+        book.addAll(entries);
+    }
+
+    @Test
+    public void read_shouldReturnTopOfBook_afterUpdate() {
+        book.update(96, 5, EntryType.BID);
+        final TopOfBook top = book.getPublisher().read();
+        assertEquals(96, top.getBidPrice());
+        assertEquals(5, top.getBidSize());
+        assertEquals(98, top.getAskPrice());
+        assertEquals(50, top.getAskSize());
+    }
+
+    @Test
+    public void read_shouldReturnTopOfBook_afterFailedOrder() {
+        assertThrows(BookException.class, () -> book.orderBuy(51));
+        final TopOfBook top = book.getPublisher().read();
+        assertEquals(0, top.getAskPrice());
+        assertEquals(0, top.getAskSize());
+    }
+
+    @Test
+    public void read_shouldReturnTopOfBook_afterRestingOrderChanges_whenUnderLimitOrderBook() {
+        final LimitOrderBook limitBook = new LimitOrderBook(book);
+        limitBook.placeLimit(1, OrderType.BUY, 96, 7, new FillResult());
+        TopOfBook top = book.getPublisher().read();
+        assertEquals(96, top.getBidPrice());
+        assertEquals(7, top.getBidSize());
+
+        limitBook.cancel(1);
+        top = book.getPublisher().read();
+        assertEquals(95, top.getBidPrice());
+        assertEquals(40, top.getBidSize());
+    }
+
+    @Test
+    public void publish_shouldNotChangeSequence_whenTopIsSame() {
+        final long sequence = book.getPublisher().getSequence();
+        book.update(new BookEntry(92, 1, EntryType.BID));
+        assertEquals(sequence, book.getPublisher().getSequence());
+        book.orderSell(1);
+        assertEquals(sequence + 1, book.getPublisher().getSequence());
+    }
+
+    @Test
+    public void read_shouldAlwaysSeeConsistentSnapshot_whileWriterPublishes() throws InterruptedException {
+        final TopOfBookPublisher publisher = new TopOfBookPublisher();
+        final int publications = 1_000_000;
+        final AtomicReference<TopOfBook> broken = new AtomicReference<>();
+        final Thread[] readers = new Thread[2];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                long lastSequence = 0;
+                while (lastSequence < publications) {
+                    final TopOfBook top = publisher.read();
+                    if (top.getSequence() == 0) {
+                        continue;
+                    }
+                    if (top.getBidSize() != top.getBidPrice() || top.getAskPrice() != top.getBidPrice() + 1
+                            || top.getAskSize() != top.getBidPrice() || top.getSequence() < lastSequence) {
+                        broken.compareAndSet(null, top);
+                        return;
+                    }
+                    lastSequence = top.getSequence();
+                }
+            });
+            readers[i].start();
+        }
+        for (int i = 1; i <= publications; i++) {
+            publisher.publish(i, i, i + 1, i);
+        }
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(broken.get());
+        assertEquals(publications, publisher.getSequence());
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.repository.BookException;
+import com.juniorproject.orderbook.repository.BookType;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchReplayTest {
+
+    private static final String[] SESSIONS = {
+        "u,9,1,bid\nu,11,5,ask\nq,best_bid\no,buy,2\nq,best_ask\n",
+        "u,20,7,ask\nq,best_bid\nq,best_ask\nl,1,buy,19,3\nq,best_bid\n",
+        "u,9,1,bid\no,sell,5\nq,best_bid\n",
+        "\nq,size,11\n"
+    };
+
+    private Path directory;
+
+    private Path inputDirectory;
+
+    private Path outputDirectory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("order-book-batch");
+        inputDirectory = Files.createDirectory(directory.resolve("input"));
+        outputDirectory = directory.resolve("output");
+        for (int i = 0; i < SESSIONS.length; i++) {
+            Files.write(inputDirectory.resolve("session" + i + ".txt"), SESSIONS[i].getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void run_shouldReplayEveryFileIntoItsOwnBook_andReportInInputOrder() throws IOException {
+        final List<Path> inputs = BatchReplay.listInputs(inputDirectory);
+        assertEquals(SESSIONS.length, inputs.size());
+
+        final BatchReplay.Report report = new BatchReplay(BookType.TREE_SET, "mmap", 3).run(inputs, outputDirectory);
+
+        assertEquals(SESSIONS.length, report.getResults().size());
+        assertEquals(1, report.getFailures());
+        assertEquals(12, report.getCommands());
+        for (int i = 0; i < SESSIONS.length; i++) {
+            final BatchReplay.FileResult result = report.getResults().get(i);
+            assertEquals(inputs.get(i), result.getInput());
+            assertEquals(outputDirectory.resolve("session" + i + ".txt"), result.getOutput());
+            assertEquals(expectedOutput(SESSIONS[i]), new String(Files.readAllBytes(result.getOutput()),
+                    StandardCharsets.UTF_8));
+            if (i == 2) {
+                assertTrue(result.getFailure() instanceof BookException);
+            } else {
+                assertNull(result.getFailure());
+            }
+        }
+        assertTrue(report.toString().contains("files=4, failed=1, lines=14, commands=12"), report.toString());
+    }
+
+    @Test
+    public void listInputs_shouldResolveListedFilesAgainstListDirectory() throws IOException {
+        final Path list = inputDirectory.resolve("sessions.lst");
+        Files.write(list, Arrays.asList("session3.txt", "", "  session1.txt"));
+        assertEquals(Arrays.asList(inputDirectory.resolve("session3.txt").toAbsolutePath(),
+                inputDirectory.resolve("session1.txt").toAbsolutePath()), BatchReplay.listInputs(list));
+
+        final BatchReplay.Report report = new BatchReplay(BookType.ARRAY, "lines", 1)
+                .run(BatchReplay.listInputs(list), outputDirectory);
+        assertEquals(0, report.getFailures());
+        assertEquals(String.format("0%n"), new String(Files.readAllBytes(outputDirectory.resolve("session3.txt")),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void run_shouldThrowException_whenOutputWouldOverwriteInput() throws IOException {
+        final BatchReplay batchReplay = new BatchReplay(BookType.ARRAY, "mmap", 2);
+        final List<Path> inputs = BatchReplay.listInputs(inputDirectory);
+        assertThrows(IllegalArgumentException.class, () -> batchReplay.run(inputs, inputDirectory));
+    }
+
+    /**
+     * @return output of the same input handled alone, failure included
+     */
+    private static String expectedOutput(final String session) {
+        final StringWriter output = new StringWriter();
+        final CommandHandler commandHandler = new CommandHandler(BookType.TREE_SET.newBook(), new MyWriter(output));
+        try {
+            for (String line : session.split("\n")) {
+                commandHandler.handle(line, 0, line.length());
+            }
+        } catch (BookException e) {
+            // the same file fails in batch too
+        }
+        return output.toString();
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.Command;
+import com.juniorproject.orderbook.repository.BookType;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryCommandCodecTest {
+
+    private static final String INPUT = "u,99,10,bid\n"
+            + "u,101,8,ask\n"
+            + "\n"
+            + "q,best_bid\n"
+            + "q,best_ask\n"
+            + "l,7,sell,102,4\n"
+            + "q,size,102\n"
+            + "q,depth,2\n"
+            + "q,cum_size,ask,102\n"
+            + "q,sweep_price,ask,10\n"
+            + "o,buy,20,ioc\n"
+            + "m,7,103,1\n"
+            + "o,sell,3\n"
+            + "c,7\n"
+            + "q,best_ask\n"
+            + "q,best_bid\n";
+
+    private Path textFile;
+
+    private Path binaryFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        textFile = Files.createTempFile("order-book", ".txt");
+        binaryFile = Files.createTempFile("order-book", ".bin");
+        Files.write(textFile, INPUT.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(textFile);
+        Files.deleteIfExists(binaryFile);
+    }
+
+    @Test
+    public void decode_shouldRestoreEveryEncodedCommand() {
+        final CommandParser parser = new CommandParser();
+        final ByteBuffer buffer = ByteBuffer.allocate(3 * BinaryCommandCodec.RECORD_BYTES);
+        for (String line : INPUT.split("\n")) {
+            final Command parsed = new Command();
+            final Command decoded = new Command();
+            if (!parser.parse(line, 0, line.length(), parsed)) {
+                continue;
+            }
+            BinaryCommandCodec.encode(parsed, buffer, BinaryCommandCodec.RECORD_BYTES);
+            assertTrue(BinaryCommandCodec.decode(buffer, BinaryCommandCodec.RECORD_BYTES, decoded));
+            assertEquals(parsed.toString(), decoded.toString(), line);
+        }
+        assertFalse(BinaryCommandCodec.decode(buffer, 0, new Command()));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void convert_shouldProduceInputGivingSameOutputAsText() throws IOException {
+        assertEquals(15, BinaryCommandCodec.convert(textFile, binaryFile));
+        assertEquals(15 * BinaryCommandCodec.RECORD_BYTES, Files.size(binaryFile));
+
+        final StringWriter textOutput = new StringWriter();
+        final CommandHandler textHandler = new CommandHandler(BookType.TREE_SET.newBook(), new MyWriter(textOutput));
+        new MappedFileReader().read(textFile, textHandler::handle);
+
+        final StringWriter binaryOutput = new StringWriter();
+        final CommandHandler binaryHandler = new CommandHandler(BookType.ARRAY.newBook(),
+                new MyWriter(binaryOutput));
+        assertEquals(15, new MappedFileReader(2 * BinaryCommandCodec.RECORD_BYTES + 1)
+                .readRecords(binaryFile, BinaryCommandCodec.RECORD_BYTES, binaryHandler::handleBinary, 0));
+        assertEquals(textOutput.toString(), binaryOutput.toString());
+        assertEquals(15, binaryHandler.getLine());
+    }
+
+    @Test
+    public void readRecords_shouldSkipRecordsAlreadyHandled() throws IOException {
+        BinaryCommandCodec.convert(textFile, binaryFile);
+        final StringWriter output = new StringWriter();
+        final CommandHandler commandHandler = new CommandHandler(BookType.ARRAY.newBook(), new MyWriter(output));
+        assertEquals(15, new MappedFileReader()
+                .readRecords(binaryFile, BinaryCommandCodec.RECORD_BYTES, commandHandler::handleBinary, 13));
+        final String[] lines = output.toString().split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        assertEquals("0,0", lines[0]);
+        assertEquals("0,0", lines[1]);
+    }
+
+    @Test
+    public void convert_shouldThrowException_whenCommandHasNoBinaryForm() throws IOException {
+        Files.write(textFile, "u,99,10,bid\ns,book.snapshot\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> BinaryCommandCodec.convert(textFile, binaryFile));
+    }
+
+    @Test
+    public void decode_shouldThrowException_whenOpcodeIsUnknown() {
+        final ByteBuffer buffer = ByteBuffer.allocate(BinaryCommandCodec.RECORD_BYTES);
+        buffer.put(0, (byte) 99);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCommandCodec.decode(buffer, 0, new Command()));
+    }
+
+}
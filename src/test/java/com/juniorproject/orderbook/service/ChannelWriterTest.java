@@ -0,0 +1,87 @@
+package com.juniorproject.orderbook.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChannelWriterTest {
+
+    private static final String SEPARATOR = System.lineSeparator();
+
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    public void setUp() {
+        output = new ByteArrayOutputStream();
+    }
+
+    @Test
+    public void write_shouldFormatLikeStringFormat() throws IOException {
+        final ChannelWriter writer = new ChannelWriter(Channels.newChannel(output), FlushPolicy.END_OF_INPUT, 0);
+        writer.write(95, 40);
+        writer.write(-7);
+        writer.write(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        writer.write("text" + SEPARATOR);
+        writer.close();
+        assertEquals(String.format("%d,%d%n%d%n%d,%d%ntext%n", 95, 40, -7, Integer.MIN_VALUE, Integer.MAX_VALUE),
+                output());
+    }
+
+    @Test
+    public void write_shouldNotFlush_beforeEndOfInput() throws IOException {
+        final ChannelWriter writer = new ChannelWriter(Channels.newChannel(output), FlushPolicy.END_OF_INPUT, 0);
+        writer.write(1);
+        writer.write(2);
+        assertEquals("", output());
+        writer.close();
+        assertEquals("1" + SEPARATOR + "2" + SEPARATOR, output());
+    }
+
+    @Test
+    public void write_shouldFlush_afterCommandCount() {
+        final ChannelWriter writer = new ChannelWriter(Channels.newChannel(output), FlushPolicy.COMMANDS, 2);
+        writer.write(1);
+        assertEquals("", output());
+        writer.write(2, 3);
+        assertEquals("1" + SEPARATOR + "2,3" + SEPARATOR, output());
+    }
+
+    @Test
+    public void write_shouldFlush_whenBufferIsFull() {
+        final ChannelWriter writer = new ChannelWriter(Channels.newChannel(output), FlushPolicy.SIZE, 64);
+        for (int i = 0; i < 10; i++) {
+            writer.write(100000, 100000);
+        }
+        final int recordSize = ("100000,100000" + SEPARATOR).length();
+        final int written = output().length();
+        assertEquals(0, written % recordSize);
+        assertTrue(written > 0);
+        assertTrue(10 * recordSize - written < 64);
+    }
+
+    @Test
+    public void write_shouldWriteLongRecord_biggerThanBuffer() throws IOException {
+        final ChannelWriter writer = new ChannelWriter(Channels.newChannel(output), FlushPolicy.SIZE, 32);
+        final int[] values = new int[20];
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000000 + i;
+            expected.append(i == 0 ? "" : ",").append(values[i]);
+        }
+        writer.write(values, 0, values.length);
+        writer.write(values, 0, 0);
+        writer.close();
+        assertEquals(expected + SEPARATOR + SEPARATOR, output());
+    }
+
+    private String output() {
+        return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+}
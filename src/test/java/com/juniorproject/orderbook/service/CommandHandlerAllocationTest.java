@@ -0,0 +1,127 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.CommandType;
+import com.juniorproject.orderbook.repository.BookArrayImpl;
+import com.juniorproject.orderbook.repository.BookLatency;
+import com.juniorproject.orderbook.repository.BookOperation;
+import com.juniorproject.orderbook.repository.BookType;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommandHandlerAllocationTest {
+
+    private static final String[] COMMANDS = {
+        "u,100,10,bid",
+        "u,101,20,ask",
+        "q,best_bid",
+        "q,best_ask",
+        "q,size,100",
+        "o,buy,5",
+        "o,sell,5",
+        "u,101,20,ask",
+        "u,100,10,bid",
+        "u,99,0,spread",
+    };
+
+    private static final int WARM_UP_ROUNDS = 20_000;
+
+    private static final int ROUNDS = 100_000;
+
+    /** getThreadAllocatedBytes itself may allocate a few bytes. */
+    private static final long TOLERANCE_BYTES = 1024;
+
+    private CommandHandler commandHandler;
+
+    @BeforeEach
+    public void setUp() {
+        commandHandler = new CommandHandler(new BookArrayImpl(), new MyWriter(Writer.nullWriter()));
+    }
+
+    @Test
+    public void handleChars_shouldNotAllocate_perCommand() {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            handleAllChars();
+        }
+        final long allocated = allocatedBytes(this::handleAllChars);
+        assertTrue(allocated < TOLERANCE_BYTES,
+                "allocated " + allocated + " bytes for " + ROUNDS * COMMANDS.length + " commands");
+    }
+
+    @Test
+    public void handleBytes_shouldNotAllocate_perCommand() {
+        final ByteBuffer buffer = ByteBuffer.wrap(String.join("\n", COMMANDS).getBytes(StandardCharsets.US_ASCII));
+        final Runnable handleAllBytes = () -> {
+            int from = 0;
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    commandHandler.handle(buffer, from, i);
+                    from = i + 1;
+                }
+            }
+            commandHandler.handle(buffer, from, buffer.limit());
+        };
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            handleAllBytes.run();
+        }
+        final long allocated = allocatedBytes(handleAllBytes);
+        assertTrue(allocated < TOLERANCE_BYTES,
+                "allocated " + allocated + " bytes for " + ROUNDS * COMMANDS.length + " commands");
+    }
+
+    @Test
+    public void handleChars_shouldNotAllocate_withTreeSetBook() {
+        commandHandler = new CommandHandler(BookType.TREE_SET.newBook(), new MyWriter(Writer.nullWriter()));
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            handleAllChars();
+        }
+        final long allocated = allocatedBytes(this::handleAllChars);
+        assertTrue(allocated < TOLERANCE_BYTES,
+                "allocated " + allocated + " bytes for " + ROUNDS * COMMANDS.length + " commands");
+    }
+
+    @Test
+    public void handleChars_shouldNotAllocate_withLatencyRecorded() {
+        final BookLatency bookLatency = new BookLatency();
+        System.setProperty(CommandStats.LATENCY_PROPERTY, "true");
+        try {
+            commandHandler = new CommandHandler(BookType.ARRAY.newBook(bookLatency), new MyWriter(Writer.nullWriter()));
+        } finally {
+            System.clearProperty(CommandStats.LATENCY_PROPERTY);
+        }
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            handleAllChars();
+        }
+        final long allocated = allocatedBytes(this::handleAllChars);
+        assertTrue(allocated < TOLERANCE_BYTES,
+                "allocated " + allocated + " bytes for " + ROUNDS * COMMANDS.length + " commands");
+        final long rounds = WARM_UP_ROUNDS + ROUNDS;
+        assertEquals(5 * rounds, commandHandler.getStats().getLatency(CommandType.UPDATE).getCount());
+        assertEquals(rounds, commandHandler.getStats().getLatency(CommandType.BEST_BID).getCount());
+        assertTrue(bookLatency.getHistogram(BookOperation.UPDATE).getCount() >= 5 * rounds);
+    }
+
+    private void handleAllChars() {
+        for (final String command : COMMANDS) {
+            commandHandler.handle(command, 0, command.length());
+        }
+    }
+
+    private long allocatedBytes(final Runnable round) {
+        final com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+}
@@ -1,8 +1,17 @@
 package com.juniorproject.orderbook.service;
 
-import com.juniorproject.orderbook.entity.BookEntry;
+import com.juniorproject.orderbook.entity.CommandType;
 import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.entity.ExecutionMode;
+import com.juniorproject.orderbook.entity.FillStatus;
+import com.juniorproject.orderbook.entity.OrderType;
+import com.juniorproject.orderbook.repository.BookArrayImpl;
+import com.juniorproject.orderbook.repository.BookException;
+import com.juniorproject.orderbook.repository.LimitOrderBook;
 import com.juniorproject.orderbook.repository.OrderBook;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +19,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +33,9 @@ public class CommandHandlerTest {
     @Mock
     private OrderBook orderBook;
     
+    @Mock
+    private LimitOrderBook limitOrderBook;
+
     @Mock
     private MyWriter myWriter;
     
@@ -31,49 +47,48 @@ public class CommandHandlerTest {
     @Test
     public void handle_update_shouldUpdateOrderBookWithBID() {
         commandHandler.handle("u,9,1,bid");
-        Mockito.verify(orderBook).update(new BookEntry(9, 1, EntryType.BID));
+        Mockito.verify(orderBook).update(9, 1, EntryType.BID);
     }
 
     @Test
     public void handle_update_shouldUpdateOrderBookWithASK() {
         commandHandler.handle("u,11,5,ask");
-        Mockito.verify(orderBook).update(new BookEntry(11, 5, EntryType.ASK));
+        Mockito.verify(orderBook).update(11, 5, EntryType.ASK);
     }
 
     @Test
     public void handle_update_shouldUpdateOrderBookWithSPREAD() {
         commandHandler.handle("u,11,5,spread");
-        Mockito.verify(orderBook).update(new BookEntry(11, 5, EntryType.SPREAD));
+        Mockito.verify(orderBook).update(11, 5, EntryType.SPREAD);
     }
 
     @Test
     public void handle_update_shouldIgnoreTailSpaces() {
         commandHandler.handle("u,11,5,ask  \n");
-        Mockito.verify(orderBook).update(new BookEntry(11, 5, EntryType.ASK));
+        Mockito.verify(orderBook).update(11, 5, EntryType.ASK);
     }
 
     @Test
     public void handle_query_shouldRequestAndWriteBestBid() {
-        when(orderBook.bestBid()).thenReturn(new BookEntry(2, 3, EntryType.BID));
+        when(orderBook.bestBidPrice()).thenReturn(2);
+        when(orderBook.bestBidSize()).thenReturn(3);
         commandHandler.handle("q,best_bid");
-        Mockito.verify(orderBook).bestBid();
-        Mockito.verify(myWriter).write(String.format("%d,%d%n", 2, 3));
+        Mockito.verify(myWriter).write(2, 3);
     }
 
     @Test
     public void handle_query_shouldRequestAndWriteBestAsk() {
-        when(orderBook.bestAsk()).thenReturn(new BookEntry(3, 4, EntryType.ASK));
+        when(orderBook.bestAskPrice()).thenReturn(3);
+        when(orderBook.bestAskSize()).thenReturn(4);
         commandHandler.handle("q,best_ask");
-        Mockito.verify(orderBook).bestAsk();
-        Mockito.verify(myWriter).write(String.format("%d,%d%n", 3, 4));
+        Mockito.verify(myWriter).write(3, 4);
     }
 
     @Test
     public void handle_querySize_shouldRequestAndWriteSize() {
-        when(orderBook.getEntryByPrice(10)).thenReturn(new BookEntry(10, 2, EntryType.ASK));
+        when(orderBook.getSizeByPrice(10)).thenReturn(2);
         commandHandler.handle("q,size,10");
-        Mockito.verify(orderBook).getEntryByPrice(10);
-        Mockito.verify(myWriter).write(String.format("%d%n", 2));
+        Mockito.verify(myWriter).write(2);
     }
 
     @Test
@@ -88,4 +103,173 @@ public class CommandHandlerTest {
         Mockito.verify(orderBook).orderBuy(100500);
     }
 
+    @Test
+    public void handleChars_update_shouldUpdateOrderBookWithPrimitives() {
+        final String command = "u,11,5,ask  \n";
+        commandHandler.handle(command, 0, command.length());
+        Mockito.verify(orderBook).update(11, 5, EntryType.ASK);
+    }
+
+    @Test
+    public void handleChars_shouldParseOnlyGivenRange() {
+        final String input = "u,9,1,bid\nq,best_bid\n";
+        commandHandler.handle(input, 0, 9);
+        Mockito.verify(orderBook).update(9, 1, EntryType.BID);
+        Mockito.verifyNoMoreInteractions(orderBook);
+    }
+
+    @Test
+    public void handleBytes_query_shouldRequestAndWriteBestBid() {
+        when(orderBook.bestBidPrice()).thenReturn(2);
+        when(orderBook.bestBidSize()).thenReturn(3);
+        final ByteBuffer buffer = ByteBuffer.wrap("q,best_bid\n".getBytes(StandardCharsets.US_ASCII));
+        commandHandler.handle(buffer, 0, buffer.limit());
+        Mockito.verify(myWriter).write(2, 3);
+    }
+
+    @Test
+    public void handleBytes_query_shouldRequestAndWriteBestAsk() {
+        when(orderBook.bestAskPrice()).thenReturn(3);
+        when(orderBook.bestAskSize()).thenReturn(4);
+        final ByteBuffer buffer = ByteBuffer.wrap("q,best_ask".getBytes(StandardCharsets.US_ASCII));
+        commandHandler.handle(buffer, 0, buffer.limit());
+        Mockito.verify(myWriter).write(3, 4);
+    }
+
+    @Test
+    public void handleBytes_querySize_shouldRequestAndWriteSize() {
+        when(orderBook.getSizeByPrice(10)).thenReturn(2);
+        final ByteBuffer buffer = ByteBuffer.wrap("q,size,10".getBytes(StandardCharsets.US_ASCII));
+        commandHandler.handle(buffer, 0, buffer.limit());
+        Mockito.verify(myWriter).write(2);
+    }
+
+    @Test
+    public void handleBytes_order_shouldCallOrderBuyAndSell() {
+        final ByteBuffer buffer = ByteBuffer.wrap("o,buy,100500\no,sell,1".getBytes(StandardCharsets.US_ASCII));
+        commandHandler.handle(buffer, 0, 12);
+        commandHandler.handle(buffer, 13, buffer.limit());
+        Mockito.verify(orderBook).orderBuy(100500);
+        Mockito.verify(orderBook).orderSell(1);
+    }
+
+    @Test
+    public void handleChars_shouldThrowException_whenSideIsUnknown() {
+        final String command = "u,11,5,foo";
+        assertThrows(IllegalArgumentException.class, () -> commandHandler.handle(command, 0, command.length()));
+    }
+
+    @Test
+    public void handleChars_shouldThrowException_whenPriceIsNotANumber() {
+        final String command = "u,1x,5,ask";
+        assertThrows(NumberFormatException.class, () -> commandHandler.handle(command, 0, command.length()));
+    }
+
+    @Test
+    public void handle_shouldCountCommandsByType() {
+        commandHandler.handle("u,9,1,bid");
+        commandHandler.handle("u,9,2,bid", 0, 9);
+        commandHandler.handle("o,sell,1");
+        assertEquals(2, commandHandler.getStats().getCommands(CommandType.UPDATE));
+        assertEquals(1, commandHandler.getStats().getCommands(CommandType.SELL));
+        assertEquals(3, commandHandler.getStats().getTotal());
+    }
+
+    @Test
+    public void handle_shouldCountFailures() {
+        Mockito.doThrow(new BookException("no bids")).when(orderBook).orderSell(1);
+        assertThrows(BookException.class, () -> commandHandler.handle("o,sell,1", 0, 8));
+        assertThrows(IllegalArgumentException.class, () -> commandHandler.handle("u,11,5,foo"));
+        assertEquals(2, commandHandler.getStats().getFailures());
+        assertEquals(0, commandHandler.getStats().getTotal());
+    }
+
+    @Test
+    public void handle_queryDepth_shouldWriteBidLevelsThenAskLevels() {
+        final StringWriter output = new StringWriter();
+        final CommandHandler handler = new CommandHandler(new BookArrayImpl(), new MyWriter(output));
+        final String[] commands = {"u,9,1,bid", "u,8,0,bid", "u,7,2,bid", "u,6,3,bid", "u,11,4,ask", "q,depth,2"};
+        for (final String command : commands) {
+            handler.handle(command, 0, command.length());
+        }
+        handler.handle("q,depth,3");
+        final String n = System.lineSeparator();
+        assertEquals("9,1,7,2" + n + "11,4" + n + "9,1,7,2,6,3" + n + "11,4" + n, output.toString());
+        assertEquals(2, handler.getStats().getCommands(CommandType.DEPTH));
+    }
+
+    @Test
+    public void handle_queryDepth_shouldWriteEmptyLines_whenBookIsEmpty() {
+        final StringWriter output = new StringWriter();
+        final CommandHandler handler = new CommandHandler(new BookArrayImpl(), new MyWriter(output));
+        handler.handle("q,depth,5", 0, 9);
+        assertEquals(System.lineSeparator() + System.lineSeparator(), output.toString());
+    }
+
+    @Test
+    public void handle_queryDepth_shouldThrowException_whenDepthIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> commandHandler.handle("q,depth,0", 0, 9));
+        assertEquals(1, commandHandler.getStats().getFailures());
+    }
+
+    @Test
+    public void handle_order_shouldExecuteFillOrKillAndIocWithoutException() {
+        Mockito.doReturn(FillStatus.KILLED).when(orderBook)
+                .marketOrder(eq(OrderType.BUY), eq(5), eq(ExecutionMode.FILL_OR_KILL), any());
+        Mockito.doReturn(FillStatus.PARTIALLY_FILLED).when(orderBook)
+                .marketOrder(eq(OrderType.SELL), eq(7), eq(ExecutionMode.IMMEDIATE_OR_CANCEL), any());
+        commandHandler.handle("o,buy,5,fok", 0, 11);
+        commandHandler.handle("o,sell,7,ioc");
+        Mockito.verify(orderBook, Mockito.never()).orderBuy(5);
+        assertEquals(1, commandHandler.getStats().getOrders(FillStatus.KILLED));
+        assertEquals(1, commandHandler.getStats().getOrders(FillStatus.PARTIALLY_FILLED));
+        assertEquals(1, commandHandler.getStats().getCommands(CommandType.SELL));
+    }
+
+    @Test
+    public void handleChars_shouldThrowException_whenExecutionModeIsUnknown() {
+        assertThrows(IllegalArgumentException.class, () -> commandHandler.handle("o,buy,5,gtc", 0, 11));
+    }
+
+    @Test
+    public void handle_queryCumulativeSizeAndSweepPrice_shouldWriteResults() {
+        when(orderBook.getCumulativeSize(EntryType.ASK, 105)).thenReturn(5_000_000_000L);
+        when(orderBook.getSweepPrice(EntryType.BID, 30)).thenReturn(94);
+        commandHandler.handle("q,cum_size,ask,105", 0, 18);
+        commandHandler.handle("q,sweep_price,bid,30");
+        Mockito.verify(myWriter).write(5_000_000_000L);
+        Mockito.verify(myWriter).write(94);
+    }
+
+    @Test
+    public void handle_limitOrder_shouldThrowException_whenBookHasNoLimitOrders() {
+        assertThrows(BookException.class, () -> commandHandler.handle("l,1,buy,99,10", 0, 13));
+        assertEquals(1, commandHandler.getStats().getFailures());
+    }
+
+    @Test
+    public void handle_queryCumulativeSize_shouldThrowException_whenSideIsSpread() {
+        assertThrows(IllegalArgumentException.class, () -> commandHandler.handle("q,cum_size,spread,1", 0, 19));
+    }
+
+    @Test
+    public void handle_limitOrders_shouldPlaceCancelAndModify() {
+        commandHandler = new CommandHandler(limitOrderBook, myWriter);
+        commandHandler.handle("l,7000000000,buy,99,10", 0, 22);
+        commandHandler.handle("l,8,sell,101,3");
+        commandHandler.handle("m,7000000000,98,4", 0, 17);
+        commandHandler.handle("c,8");
+        Mockito.verify(limitOrderBook).placeLimit(eq(7_000_000_000L), eq(OrderType.BUY), eq(99), eq(10), any());
+        Mockito.verify(limitOrderBook).placeLimit(eq(8L), eq(OrderType.SELL), eq(101), eq(3), any());
+        Mockito.verify(limitOrderBook).modify(7_000_000_000L, 98, 4);
+        Mockito.verify(limitOrderBook).cancel(8);
+        assertEquals(2, commandHandler.getStats().getCommands(CommandType.LIMIT));
+        Mockito.verifyZeroInteractions(myWriter);
+    }
+
+    @Test
+    public void handleChars_limitOrder_shouldThrowException_whenSideIsUnknown() {
+        assertThrows(IllegalArgumentException.class, () -> commandHandler.handle("l,1,bid,99,10", 0, 13));
+    }
+
 }
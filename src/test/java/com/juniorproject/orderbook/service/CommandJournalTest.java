@@ -0,0 +1,168 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.repository.BookType;
+import com.juniorproject.orderbook.repository.LimitOrderBook;
+import com.juniorproject.orderbook.repository.OrderBook;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CommandJournalTest {
+
+    private static final String[] COMMANDS = {
+        "u,99,10,bid",
+        "u,101,8,ask",
+        "q,best_bid",
+        "u,102,5,ask",
+        "l,1,buy,100,4",
+        "l,2,sell,103,6",
+        "o,buy,3",
+        "q,size,101",
+        "m,1,100,2",
+        "o,sell,20,ioc",
+        "c,2",
+        "l,3,sell,98,1",
+        "u,97,7,bid"
+    };
+
+    private static final int JOURNALED = 11;
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createTempFile("order-book", ".journal");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void replay_shouldRebuildEveryBookType() throws IOException {
+        final OrderBook book = BookType.TREE_SET.newBook();
+        final CommandHandler commandHandler = new CommandHandler(book, new MyWriter(new StringWriter()));
+        try (CommandJournal journal = new CommandJournal(file, 4096, 4, 0)) {
+            commandHandler.setJournal(journal);
+            handle(commandHandler, COMMANDS);
+            assertEquals(JOURNALED, journal.getRecords());
+            assertEquals(2, journal.getCommits());
+        }
+
+        for (BookType bookType : BookType.values()) {
+            final OrderBook replayed = bookType.newBook();
+            assertEquals(JOURNALED, CommandJournal.replay(file, replayed));
+            assertArrayEquals(depth(book, EntryType.BID), depth(replayed, EntryType.BID));
+            assertArrayEquals(depth(book, EntryType.ASK), depth(replayed, EntryType.ASK));
+            assertEquals(book.getTotalSize(EntryType.BID), replayed.getTotalSize(EntryType.BID));
+            assertEquals(book.getTotalSize(EntryType.ASK), replayed.getTotalSize(EntryType.ASK));
+            assertEquals(((LimitOrderBook) book).getOrderCount(), ((LimitOrderBook) replayed).getOrderCount());
+            assertEquals(((LimitOrderBook) book).getOrderSize(1), ((LimitOrderBook) replayed).getOrderSize(1));
+        }
+    }
+
+    @Test
+    public void commit_shouldForceRecordsOnTimer_whenNothingIsAppended() throws IOException, InterruptedException {
+        final CommandHandler commandHandler = new CommandHandler(BookType.ARRAY.newBook(),
+                new MyWriter(new StringWriter()));
+        try (CommandJournal journal = new CommandJournal(file, 4096, 100, TimeUnit.MILLISECONDS.toNanos(1))) {
+            commandHandler.setJournal(journal);
+            commandHandler.handle("u,99,10,bid");
+            commandHandler.handle("q,best_bid");
+            assertEquals(1, journal.getRecords());
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (journal.getCommits() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, journal.getCommits());
+        }
+        assertEquals(1, CommandJournal.replay(file, BookType.ARRAY.newBook()));
+    }
+
+    @Test
+    public void close_shouldCommitRecordsLeftAtEndOfInput() throws IOException {
+        final CommandJournal journal = new CommandJournal(file, 4096, 100, 0);
+        final CommandHandler commandHandler = new CommandHandler(BookType.ARRAY.newBook(),
+                new MyWriter(new StringWriter()));
+        commandHandler.setJournal(journal);
+        commandHandler.handle("u,99,10,bid");
+        commandHandler.handle("u,101,8,ask");
+        assertEquals(0, journal.getCommits());
+        journal.close();
+        assertEquals(1, journal.getCommits());
+        assertEquals(2, CommandJournal.replay(file, BookType.ARRAY.newBook()));
+    }
+
+    @Test
+    public void replay_shouldSkipLinesAlreadyHandled_andAppendAfterExistingRecords() throws IOException {
+        final CommandHandler first = new CommandHandler(BookType.ARRAY.newBook(), new MyWriter(new StringWriter()));
+        try (CommandJournal journal = new CommandJournal(file, 4096, 100, 0)) {
+            first.setJournal(journal);
+            handle(first, "u,99,10,bid", "q,best_bid", "u,101,8,ask");
+        }
+
+        final OrderBook book = BookType.ARRAY.newBook();
+        book.update(99, 10, EntryType.BID);
+        final CommandHandler second = new CommandHandler(book, new MyWriter(new StringWriter()));
+        second.setLine(1);
+        assertEquals(1, CommandJournal.replay(file, second));
+        assertEquals(3, second.getLine());
+        try (CommandJournal journal = new CommandJournal(file, 4096, 100, 0)) {
+            assertEquals(2, journal.getRecords());
+            second.setJournal(journal);
+            handle(second, "o,buy,3");
+            assertEquals(3, journal.getRecords());
+        }
+
+        final OrderBook replayed = BookType.OFF_HEAP.newBook();
+        assertEquals(3, CommandJournal.replay(file, replayed));
+        assertEquals(10, replayed.getSizeByPrice(99));
+        assertEquals(5, replayed.getSizeByPrice(101));
+    }
+
+    @Test
+    public void append_shouldMapNextSegment_whenCurrentIsFull() throws IOException {
+        final CommandHandler commandHandler = new CommandHandler(BookType.ARRAY.newBook(),
+                new MyWriter(new StringWriter()));
+        try (CommandJournal journal = new CommandJournal(file, 2 * CommandJournal.RECORD_BYTES, 100, 0)) {
+            commandHandler.setJournal(journal);
+            handle(commandHandler, "u,95,1,bid", "u,96,2,bid", "u,97,3,bid", "u,98,4,bid", "u,99,5,bid");
+            assertEquals(2, journal.getCommits());
+        }
+        assertEquals(6 * CommandJournal.RECORD_BYTES, Files.size(file));
+
+        final OrderBook replayed = BookType.TREE_SET.newBook();
+        assertEquals(5, CommandJournal.replay(file, replayed));
+        assertEquals(15, replayed.getTotalSize(EntryType.BID));
+    }
+
+    @Test
+    public void constructor_shouldThrowException_whenSegmentDoesNotHoldWholeRecords() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CommandJournal(file, CommandJournal.RECORD_BYTES + 1, 1, 0));
+    }
+
+    private static int[] depth(final OrderBook book, final EntryType side) {
+        final int[] buffer = new int[20];
+        book.getDepth(side, 10, buffer, 0);
+        return buffer;
+    }
+
+    private static void handle(final CommandHandler commandHandler, final String... commands) {
+        for (String command : commands) {
+            commandHandler.handle(command, 0, command.length());
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.repository.BookArrayImpl;
+import com.juniorproject.orderbook.repository.BookException;
+import com.juniorproject.orderbook.repository.BookTreeSetImpl;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CommandPipelineTest {
+
+    private Path inputFile;
+
+    private List<String> lines;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        final Random random = new Random(7);
+        lines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            final int price = 90 + random.nextInt(20);
+            switch (random.nextInt(5)) {
+            case 0:
+                lines.add("u," + price + "," + random.nextInt(100) + (price < 100 ? ",bid" : ",ask"));
+                break;
+            case 1:
+                lines.add("q,best_bid");
+                break;
+            case 2:
+                lines.add("q,best_ask");
+                break;
+            case 3:
+                lines.add("q,size," + price);
+                break;
+            default:
+                lines.add("u,99,1000000,bid");
+                lines.add("u,100,1000000,ask");
+                lines.add(random.nextBoolean() ? "o,buy,3" : "o,sell,3");
+                break;
+            }
+        }
+        inputFile = Files.createTempFile("order-book", ".txt");
+        Files.write(inputFile, lines, StandardCharsets.US_ASCII);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(inputFile);
+    }
+
+    @Test
+    public void run_shouldWriteSameOutputAsSequentialHandling() throws IOException {
+        final StringWriter expected = new StringWriter();
+        final CommandHandler sequential = new CommandHandler(BookTreeSetImpl.newInstance(), new MyWriter(expected));
+        lines.forEach(sequential::handle);
+
+        final StringWriter actual = new StringWriter();
+        final CommandPipeline pipeline = new CommandPipeline(
+                new CommandHandler(new BookArrayImpl(), new MyWriter(actual)), new MappedFileReader(4096), 64);
+        assertEquals(lines.size(), pipeline.run(inputFile));
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(lines.size(), pipeline.getStageItems(CommandPipeline.MATCHING));
+    }
+
+    @Test
+    public void run_shouldRethrowFailureOfMatchingStage() throws IOException {
+        Files.write(inputFile, List.of("u,9,1,bid", "o,sell,2", "q,best_bid"), StandardCharsets.US_ASCII);
+        final CommandPipeline pipeline = new CommandPipeline(
+                new CommandHandler(new BookArrayImpl(), new MyWriter(new StringWriter())), new MappedFileReader(), 2);
+        assertThrows(BookException.class, () -> pipeline.run(inputFile));
+    }
+
+    @Test
+    public void run_shouldCountFailure_whenLineCanNotBeParsed() throws IOException {
+        Files.write(inputFile, List.of("u,9,1,bid", "u,9,x,bid", "q,best_bid"), StandardCharsets.US_ASCII);
+        final CommandHandler commandHandler = new CommandHandler(new BookArrayImpl(), new MyWriter(new StringWriter()));
+        final CommandPipeline pipeline = new CommandPipeline(commandHandler, new MappedFileReader(), 2);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.run(inputFile));
+        assertEquals(1, commandHandler.getStats().getFailures());
+    }
+
+}
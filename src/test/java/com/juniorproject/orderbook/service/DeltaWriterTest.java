@@ -0,0 +1,83 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.entity.EntryType;
+import com.juniorproject.orderbook.repository.BookArrayImpl;
+import com.juniorproject.orderbook.repository.DeltaOrderBook;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DeltaWriterTest {
+
+    @Test
+    public void onDeltas_shouldWriteLevelsInOrder_andTopOfBookLast() {
+        final StringWriter output = new StringWriter();
+        final DeltaWriter deltaWriter = new DeltaWriter(output);
+        final DeltaOrderBook book = new DeltaOrderBook(new BookArrayImpl(), deltaWriter);
+        book.update(10, 5, EntryType.ASK);
+        book.update(9, 3, EntryType.BID);
+        book.flush();
+        book.update(12, 2, EntryType.ASK);
+        book.update(10, 0, EntryType.ASK);
+        book.flush();
+
+        assertEquals(String.format("u,10,5,ask%nu,9,3,bid%nt,9,3,10,5%n"
+                + "u,12,2,ask%nu,10,0,ask%nt,9,3,12,2%n"), output.toString());
+        assertEquals(2, deltaWriter.getBatches());
+    }
+
+    @Test
+    public void onDeltas_shouldReproduceBook_whenReplayed() {
+        final StringWriter output = new StringWriter();
+        final DeltaOrderBook book = new DeltaOrderBook(new BookArrayImpl(), new DeltaWriter(output));
+        final CommandHandler commandHandler = new CommandHandler(book, new MyWriter(new StringWriter()));
+        commandHandler.setDeltas(book, 3);
+        for (String line : new String[] {"u,9,1,bid", "u,11,5,ask", "o,buy,2", "u,11,4,bid", "u,12,6,ask",
+            "u,9,0,bid", "o,sell,1"}) {
+            commandHandler.handle(line, 0, line.length());
+        }
+        commandHandler.flushDeltas();
+
+        final BookArrayImpl replayed = new BookArrayImpl();
+        final CommandHandler replayHandler = new CommandHandler(replayed, new MyWriter(new StringWriter()));
+        for (String line : output.toString().split(System.lineSeparator())) {
+            replayHandler.handle(line, 0, line.length());
+        }
+        for (EntryType side : new EntryType[] {EntryType.BID, EntryType.ASK}) {
+            final int[] expected = new int[8];
+            final int[] actual = new int[8];
+            assertEquals(book.getDepth(side, 4, expected, 0), replayed.getDepth(side, 4, actual, 0));
+            assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+        }
+    }
+
+    @Test
+    public void onDeltas_shouldReproduceSpreadLevels_whenReplayed() {
+        final StringWriter output = new StringWriter();
+        final DeltaOrderBook book = new DeltaOrderBook(new BookArrayImpl(), new DeltaWriter(output));
+        final CommandHandler commandHandler = new CommandHandler(book, new MyWriter(new StringWriter()));
+        commandHandler.setDeltas(book, 2);
+        for (String line : new String[] {"u,9,1,bid", "u,11,5,ask", "u,10,4,bid", "u,10,7,spread",
+            "u,11,3,spread", "u,11,2,ask", "u,12,6,spread", "u,12,0,spread", "u,9,8,spread"}) {
+            commandHandler.handle(line, 0, line.length());
+        }
+        commandHandler.flushDeltas();
+
+        final BookArrayImpl replayed = new BookArrayImpl();
+        final CommandHandler replayHandler = new CommandHandler(replayed, new MyWriter(new StringWriter()));
+        for (String line : output.toString().split(System.lineSeparator())) {
+            replayHandler.handle(line, 0, line.length());
+        }
+        for (EntryType side : EntryType.values()) {
+            final int[] expected = new int[8];
+            final int[] actual = new int[8];
+            assertEquals(book.getDepth(side, 4, expected, 0), replayed.getDepth(side, 4, actual, 0));
+            assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+        }
+        assertEquals(7, replayed.getSize(EntryType.SPREAD, 10));
+        assertEquals(8, replayed.getSize(EntryType.SPREAD, 9));
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.repository.BookArrayImpl;
+import com.juniorproject.orderbook.repository.BookSnapshot;
+import com.juniorproject.orderbook.repository.OrderBook;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MappedFileReaderTest {
+
+    private static final String INPUT = "u,9,1,bid\n"
+            + "u,11,5,ask\r\n"
+            + "q,best_bid\n"
+            + "\n"
+            + "q,best_ask\n"
+            + "o,buy,2\n"
+            + "q,size,11\n"
+            + "q,best_ask";
+
+    private Path inputFile;
+
+    private StringWriter output;
+
+    private CommandHandler commandHandler;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        inputFile = Files.createTempFile("order-book", ".txt");
+        Files.write(inputFile, INPUT.getBytes(StandardCharsets.US_ASCII));
+        output = new StringWriter();
+        commandHandler = new CommandHandler(new BookArrayImpl(), new MyWriter(output));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(inputFile);
+    }
+
+    @Test
+    public void read_shouldHandleEveryLine() throws IOException {
+        assertEquals(8, new MappedFileReader().read(inputFile, commandHandler::handle));
+        assertEquals(expectedOutput(), output.toString());
+    }
+
+    @Test
+    public void read_shouldHandleLinesCrossingChunks() throws IOException {
+        assertEquals(8, new MappedFileReader(16).read(inputFile, commandHandler::handle));
+        assertEquals(expectedOutput(), output.toString());
+    }
+
+    @Test
+    public void read_shouldThrowException_whenLineIsLongerThanChunk() {
+        assertThrows(IOException.class, () -> new MappedFileReader(4).read(inputFile, commandHandler::handle));
+    }
+
+    @Test
+    public void read_shouldContinueFromSnapshot_skippingCoveredLines() throws IOException {
+        final Path snapshot = Files.createTempFile("order-book", ".snapshot");
+        try {
+            Files.write(inputFile, ("u,9,1,bid\nu,11,5,ask\n\ns," + snapshot + "\no,buy,2\nq,best_ask\nq,best_bid")
+                    .getBytes(StandardCharsets.US_ASCII));
+            new MappedFileReader().read(inputFile, commandHandler::handle);
+            final OrderBook restored = new BookArrayImpl();
+            final StringWriter tail = new StringWriter();
+            final CommandHandler restoredHandler = new CommandHandler(restored, new MyWriter(tail));
+            restoredHandler.setLine(BookSnapshot.restore(snapshot, restored));
+            assertEquals(4, restoredHandler.getLine());
+            assertEquals(7, new MappedFileReader().read(inputFile, restoredHandler::handle, restoredHandler.getLine()));
+            assertEquals(output.toString(), tail.toString());
+            assertEquals(3, restoredHandler.getStats().getTotal());
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    private String expectedOutput() {
+        final String separator = System.lineSeparator();
+        return "9,1" + separator + "11,5" + separator + "3" + separator + "11,3" + separator;
+    }
+
+}
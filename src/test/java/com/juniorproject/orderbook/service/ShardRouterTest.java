@@ -0,0 +1,95 @@
+package com.juniorproject.orderbook.service;
+
+import com.juniorproject.orderbook.repository.BookException;
+import com.juniorproject.orderbook.repository.BookType;
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardRouterTest {
+
+    private StringWriter output;
+
+    private BufferedWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        output = new StringWriter();
+        writer = new BufferedWriter(output);
+    }
+
+    @Test
+    public void route_shouldKeepBooksOfSymbolsSeparate() throws Exception {
+        final ShardRouter router = new ShardRouter(4, BookType.ARRAY, writer);
+        router.route("AAA,u,9,1,bid");
+        router.route("BBB,u,9,5,bid");
+        router.route("AAA,u,11,2,ask");
+        router.route("");
+        router.close();
+        assertEquals(1, router.getBook("AAA").bestBidSize());
+        assertEquals(5, router.getBook("BBB").bestBidSize());
+        assertEquals(0, router.getBook("BBB").bestAskPrice());
+        assertEquals(3, router.getTotalCommands());
+    }
+
+    @Test
+    public void route_shouldKeepOrderOfQueriesWithinSymbol() throws Exception {
+        final ShardRouter router = new ShardRouter(3, BookType.TREE_SET, writer);
+        for (int i = 1; i <= 100; i++) {
+            router.route("AAA,u,10," + i + ",bid");
+            router.route("AAA,q,best_bid");
+            router.route("BBB,u,20," + i + ",ask");
+            router.route("BBB,q,best_ask");
+        }
+        router.close();
+        writer.flush();
+        final List<String> lines = Arrays.asList(output.toString().split(System.lineSeparator()));
+        assertEquals(200, lines.size());
+        assertEquals(expectedLines("AAA,10,"), lines.stream().filter(l -> l.startsWith("AAA")).collect(Collectors.toList()));
+        assertEquals(expectedLines("BBB,20,"), lines.stream().filter(l -> l.startsWith("BBB")).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void close_shouldRethrowFailureOfShard() {
+        final ShardRouter router = new ShardRouter(2, BookType.ARRAY, writer);
+        router.route("AAA,o,buy,1");
+        assertThrows(BookException.class, router::close);
+    }
+
+    @Test
+    public void route_shouldRethrowFailureOfShard_andStopHandlingCommands() {
+        final ShardRouter router = new ShardRouter(2, BookType.ARRAY, writer);
+        router.route("AAA,o,buy,1");
+        assertThrows(BookException.class, () -> {
+            while (true) {
+                router.route("AAA,u,9,1,bid");
+            }
+        });
+        assertThrows(BookException.class, router::close);
+        assertEquals(0, router.getBook("AAA").bestBidSize());
+        assertEquals(0, router.getTotalCommands());
+    }
+
+    @Test
+    public void route_shouldThrowException_whenSymbolIsMissing() throws Exception {
+        final ShardRouter router = new ShardRouter(1, BookType.ARRAY, writer);
+        assertThrows(IllegalArgumentException.class, () -> router.route("q"));
+        router.close();
+    }
+
+    private List<String> expectedLines(final String prefix) {
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 1; i <= 100; i++) {
+            expected.append(prefix).append(i).append('\n');
+        }
+        return Arrays.asList(expected.toString().split("\n"));
+    }
+
+}
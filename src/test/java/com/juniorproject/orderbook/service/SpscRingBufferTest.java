@@ -0,0 +1,73 @@
+package com.juniorproject.orderbook.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SpscRingBufferTest {
+
+    @Test
+    public void take_shouldReturnSlotsInPublishOrder_acrossThreads() throws InterruptedException {
+        final SpscRingBuffer<long[]> ring = new SpscRingBuffer<>(8, () -> new long[1]);
+        final int count = 1_000_000;
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong outOfOrder = new AtomicLong();
+        final Thread consumer = new Thread(() -> {
+            long expected = 0;
+            long total = 0;
+            for (long[] slot = ring.take(); slot != null; slot = ring.take()) {
+                if (slot[0] != expected++) {
+                    outOfOrder.incrementAndGet();
+                }
+                total += slot[0];
+                ring.release();
+            }
+            sum.set(total);
+        });
+        consumer.start();
+        for (int i = 0; i < count; i++) {
+            ring.claim()[0] = i;
+            ring.publish();
+        }
+        ring.close();
+        consumer.join();
+        assertEquals(0, outOfOrder.get());
+        assertEquals((long) count * (count - 1) / 2, sum.get());
+    }
+
+    @Test
+    public void claim_shouldReturnSameSlot_untilPublished() {
+        final SpscRingBuffer<long[]> ring = new SpscRingBuffer<>(2, () -> new long[1]);
+        assertSame(ring.claim(), ring.claim());
+    }
+
+    @Test
+    public void claim_shouldReturnNull_whenFullRingIsHalted() {
+        final SpscRingBuffer<long[]> ring = new SpscRingBuffer<>(1, () -> new long[1]);
+        ring.claim();
+        ring.publish();
+        ring.halt();
+        assertNull(ring.claim());
+    }
+
+    @Test
+    public void take_shouldReturnNull_whenClosedRingIsDrained() {
+        final SpscRingBuffer<long[]> ring = new SpscRingBuffer<>(4, () -> new long[1]);
+        ring.claim();
+        ring.publish();
+        ring.close();
+        ring.take();
+        ring.release();
+        assertNull(ring.take());
+    }
+
+    @Test
+    public void constructor_shouldThrowException_whenCapacityIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>(3, Object::new));
+    }
+
+}